@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tombentley.kafctl.format.CGroupsOutput;
+import com.github.tombentley.kafctl.format.GroupLag;
+import com.github.tombentley.kafctl.format.Output;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering consumer group descriptions and lag in each output format.
+ * {@code partitions} is the total number of partitions consumed, across all groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class CGroupsOutputBenchmark {
+
+    @Param({"table", "json", "ndjson", "yaml"})
+    String format;
+
+    @Param({"1000", "100000", "1000000"})
+    int partitions;
+
+    @Param({"partition"})
+    String detail;
+
+    private CGroupsOutput output;
+    private Map<String, ConsumerGroupDescription> groups;
+    private List<GroupLag> lags;
+
+    @Setup
+    public void setup() {
+        output = new CGroupsOutput.OutputFormatConverter().convert(format);
+        List<Node> brokers = Datasets.brokers(partitions);
+        groups = Datasets.groups(partitions, brokers);
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> committed = Datasets.committedOffsets(partitions);
+        lags = GroupLag.of(committed, Datasets.endOffsets(committed), new GroupLag.DetailConverter().convert(detail));
+    }
+
+    @Benchmark
+    public long describeCGroups() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            output.describeCGroups(groups, out);
+        }
+        return writer.count();
+    }
+
+    @Benchmark
+    public long describeLags() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            output.describeLags(lags, out);
+        }
+        return writer.count();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tombentley.kafctl.Kafctl;
+import org.apache.kafka.clients.admin.SyntheticAdminClient;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures whole commands, run in-process against a {@link SyntheticCluster} with the given per-request latency
+ * (and up to the same again of jitter), bypassing the metadata cache.
+ * This includes argument parsing, requests, indexing and formatting, but not JVM startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class CommandBenchmark {
+
+    @Param({"10000", "100000"})
+    int partitions;
+
+    @Param({"0", "5"})
+    int latencyMs;
+
+    private SyntheticAdminClient admin;
+    private Kafctl kafctl;
+    private String[] topicStateArgs;
+    private String[] alterReplicasArgs;
+    private String manifest;
+    private String reassignment;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        admin = SyntheticCluster.create(partitions, Duration.ofMillis(latencyMs), Duration.ofMillis(latencyMs));
+        kafctl = new Kafctl(admin);
+        List<String> topics = new ArrayList<>(admin.listTopics().names().get());
+        topics.sort(null);
+        List<String> args = new ArrayList<>(List.of("get", "topic", "state", "--no-cache", "-o", "csv"));
+        args.addAll(topics);
+        topicStateArgs = args.toArray(new String[0]);
+        args = new ArrayList<>(List.of("alter", "topic", "--replicas", String.valueOf(Datasets.REPLICATION_FACTOR + 1), "--dry-run"));
+        args.addAll(topics);
+        alterReplicasArgs = args.toArray(new String[0]);
+        manifest = writeManifest(kafctl.home(), admin.listTopics().listings().get());
+        reassignment = kafctl.home().resolve("reassignment.json").toString();
+        kafctl.run("plan", "rebalance", "-f", reassignment);
+    }
+
+    /** A manifest of every topic, changing the retention of every tenth, for {@code apply --dry-run}. */
+    private static String writeManifest(Path dir, Iterable<TopicListing> topics) throws Exception {
+        StringBuilder yaml = new StringBuilder("topics:\n");
+        int i = 0;
+        for (TopicListing topic : topics) {
+            yaml.append("- name: ").append(topic.name()).append('\n')
+                    .append("  partitions: ").append(Datasets.PARTITIONS_PER_TOPIC).append('\n')
+                    .append("  replicationFactor: ").append(Datasets.REPLICATION_FACTOR).append('\n')
+                    .append("  configs:\n")
+                    .append("    retention.ms: \"").append(i++ % 10 == 0 ? "86400000" : "604800000").append("\"\n")
+                    .append("    cleanup.policy: delete\n");
+        }
+        Path path = dir.resolve("manifest.yaml");
+        Files.writeString(path, yaml);
+        return path.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        kafctl.close();
+    }
+
+    @Benchmark
+    public long getTopics() {
+        return kafctl.run("get", "topics", "--no-cache");
+    }
+
+    @Benchmark
+    public long getTopicState() {
+        return kafctl.run(topicStateArgs);
+    }
+
+    @Benchmark
+    public long getPartitionsUnderReplicated() {
+        return kafctl.run("get", "partitions", "--no-cache", "--where-under-replicated");
+    }
+
+    @Benchmark
+    public long getBrokerSummary() {
+        return kafctl.run("get", "broker", "summary", "--no-cache", "-o", "csv");
+    }
+
+    @Benchmark
+    public long getConsumerGroupLag() {
+        return kafctl.run("get", "consumer-group", "lag", "--no-cache", "--by", "group");
+    }
+
+    @Benchmark
+    public long applyDryRun() {
+        return kafctl.run("apply", "-f", manifest, "--dry-run");
+    }
+
+    @Benchmark
+    public long planRebalance() {
+        return kafctl.run("plan", "rebalance", "-f", reassignment);
+    }
+
+    @Benchmark
+    public long alterTopicReplicasDryRun() {
+        return kafctl.run(alterReplicasArgs);
+    }
+
+    @Benchmark
+    public long alterReassignmentDryRun() {
+        return kafctl.run("alter", "reassignment", "-f", reassignment, "--dry-run");
+    }
+}
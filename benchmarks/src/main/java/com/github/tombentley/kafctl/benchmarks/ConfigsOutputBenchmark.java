@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tombentley.kafctl.format.GetConfigsOutput;
+import com.github.tombentley.kafctl.format.Output;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.common.config.ConfigResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering a config in each output format.
+ * The properties format only supports a single resource, so this uses one broker's config with many entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ConfigsOutputBenchmark {
+
+    @Param({"properties", "json", "ndjson", "yaml"})
+    String format;
+
+    @Param({"1000", "100000", "1000000"})
+    int entries;
+
+    private GetConfigsOutput output;
+    private Map<ConfigResource, Config> configs;
+
+    @Setup
+    public void setup() {
+        output = new GetConfigsOutput.OutputFormatConverter().convert(format);
+        configs = Datasets.brokerConfig(entries);
+    }
+
+    @Benchmark
+    public long getConfigs() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            output.getConfigs(configs, out);
+        }
+        return writer.count();
+    }
+}
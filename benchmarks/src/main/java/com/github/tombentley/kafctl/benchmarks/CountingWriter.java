@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * A Writer which discards what's written to it, counting the characters,
+ * so that benchmarks measure formatting rather than I/O.
+ */
+final class CountingWriter extends Writer {
+
+    private long count;
+
+    long count() {
+        return count;
+    }
+
+    @Override
+    public void write(int c) {
+        count++;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        count += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        count += len;
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        count += csq == null ? 4 : csq.length();
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) {
+        count++;
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
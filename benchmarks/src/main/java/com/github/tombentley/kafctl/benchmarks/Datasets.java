@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberAssignment;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.config.ConfigResource;
+
+/**
+ * Synthetic, deterministic cluster metadata for benchmarks.
+ * The shape is loosely that of a large multi-tenant cluster: topics of {@value #PARTITIONS_PER_TOPIC} partitions,
+ * replication factor {@value #REPLICATION_FACTOR}, spread round-robin over brokers in {@value #RACKS} racks,
+ * with every tenth partition under-replicated.
+ */
+final class Datasets {
+
+    static final int PARTITIONS_PER_TOPIC = 10;
+    static final int REPLICATION_FACTOR = 3;
+    static final int RACKS = 3;
+    static final int PARTITIONS_PER_GROUP = 100;
+    static final int MEMBERS_PER_GROUP = 10;
+
+    private Datasets() {
+    }
+
+    /** One broker per 2000 partitions, at least 3 and at most 300. */
+    static List<Node> brokers(int partitions) {
+        int numBrokers = Math.max(REPLICATION_FACTOR, Math.min(300, partitions / 2000));
+        List<Node> brokers = new ArrayList<>(numBrokers);
+        for (int id = 0; id < numBrokers; id++) {
+            brokers.add(new Node(id, "broker-" + id + ".kafka.example.com", 9092, "rack-" + (id % RACKS)));
+        }
+        return brokers;
+    }
+
+    static String topicName(int topic) {
+        return String.format("tenant-%04d.events-%06d", topic % 1000, topic);
+    }
+
+    static List<TopicDescription> topics(int partitions, List<Node> brokers) {
+        int numTopics = Math.max(1, partitions / PARTITIONS_PER_TOPIC);
+        List<TopicDescription> topics = new ArrayList<>(numTopics);
+        for (int topic = 0; topic < numTopics; topic++) {
+            List<TopicPartitionInfo> infos = new ArrayList<>(PARTITIONS_PER_TOPIC);
+            for (int p = 0; p < PARTITIONS_PER_TOPIC; p++) {
+                int first = topic * PARTITIONS_PER_TOPIC + p;
+                List<Node> replicas = new ArrayList<>(REPLICATION_FACTOR);
+                for (int r = 0; r < REPLICATION_FACTOR; r++) {
+                    replicas.add(brokers.get((first + r) % brokers.size()));
+                }
+                List<Node> isr = first % 10 == 0 ? replicas.subList(0, REPLICATION_FACTOR - 1) : replicas;
+                infos.add(new TopicPartitionInfo(p, replicas.get(0), replicas, isr));
+            }
+            topics.add(new TopicDescription(topicName(topic), false, infos, Set.of(), new Uuid(topic, topic)));
+        }
+        return topics;
+    }
+
+    static List<TopicListing> listings(List<TopicDescription> topics) {
+        List<TopicListing> listings = new ArrayList<>(topics.size());
+        for (TopicDescription td : topics) {
+            listings.add(new TopicListing(td.name(), false));
+        }
+        return listings;
+    }
+
+    /**
+     * Groups which each consume {@value #PARTITIONS_PER_GROUP} partitions,
+     * assigned evenly to {@value #MEMBERS_PER_GROUP} members.
+     */
+    static Map<String, ConsumerGroupDescription> groups(int partitions, List<Node> brokers) {
+        int numGroups = Math.max(1, partitions / PARTITIONS_PER_GROUP);
+        Map<String, ConsumerGroupDescription> groups = new TreeMap<>();
+        for (int group = 0; group < numGroups; group++) {
+            String groupId = "group-" + group;
+            List<TopicPartition> assigned = groupPartitions(group);
+            List<MemberDescription> members = new ArrayList<>(MEMBERS_PER_GROUP);
+            for (int m = 0; m < MEMBERS_PER_GROUP; m++) {
+                Set<TopicPartition> assignment = new HashSet<>();
+                for (int i = m; i < assigned.size(); i += MEMBERS_PER_GROUP) {
+                    assignment.add(assigned.get(i));
+                }
+                members.add(new MemberDescription("consumer-" + group + "-" + m, Optional.empty(),
+                        "client-" + m, "/10.0." + (group % 256) + "." + m, new MemberAssignment(assignment)));
+            }
+            groups.put(groupId, new ConsumerGroupDescription(groupId, false, members, "range",
+                    ConsumerGroupState.STABLE, brokers.get(group % brokers.size())));
+        }
+        return groups;
+    }
+
+    private static List<TopicPartition> groupPartitions(int group) {
+        List<TopicPartition> result = new ArrayList<>(PARTITIONS_PER_GROUP);
+        int firstTopic = group * (PARTITIONS_PER_GROUP / PARTITIONS_PER_TOPIC);
+        for (int t = 0; t < PARTITIONS_PER_GROUP / PARTITIONS_PER_TOPIC; t++) {
+            for (int p = 0; p < PARTITIONS_PER_TOPIC; p++) {
+                result.add(new TopicPartition(topicName(firstTopic + t), p));
+            }
+        }
+        return result;
+    }
+
+    /** The committed offsets of the {@link #groups(int, List) groups}. */
+    static Map<String, Map<TopicPartition, OffsetAndMetadata>> committedOffsets(int partitions) {
+        int numGroups = Math.max(1, partitions / PARTITIONS_PER_GROUP);
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> committed = new HashMap<>();
+        for (int group = 0; group < numGroups; group++) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition tp : groupPartitions(group)) {
+                offsets.put(tp, new OffsetAndMetadata(1_000_000L + tp.partition() * 1000L));
+            }
+            committed.put("group-" + group, offsets);
+        }
+        return committed;
+    }
+
+    /** End offsets slightly ahead of the {@link #committedOffsets(int) committed offsets}. */
+    static Map<TopicPartition, Long> endOffsets(Map<String, Map<TopicPartition, OffsetAndMetadata>> committed) {
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        committed.values().forEach(offsets -> offsets.forEach((tp, offset) ->
+                endOffsets.put(tp, offset.offset() + (tp.hashCode() & 0xff))));
+        return endOffsets;
+    }
+
+    /** A single broker's config, with {@code entries} entries. */
+    static Map<ConfigResource, Config> brokerConfig(int entries) {
+        List<ConfigEntry> configEntries = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            configEntries.add(new ConfigEntry("synthetic.config." + i, Integer.toString(i * 31)));
+        }
+        return Map.of(new ConfigResource(ConfigResource.Type.BROKER, "0"), new Config(configEntries));
+    }
+}
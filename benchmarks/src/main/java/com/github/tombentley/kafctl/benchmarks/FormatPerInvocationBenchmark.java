@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.format.TopicsOutput;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what each invocation of a command pays for its output format, as in the daemon or when watching:
+ * converting the {@code --output} option, iterating the completion candidates, and rendering a small result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FormatPerInvocationBenchmark {
+
+    @Param({"table", "csv", "json", "yaml"})
+    String format;
+
+    @Param({"10"})
+    int partitions;
+
+    private List<TopicDescription> topics;
+
+    @Setup
+    public void setup() {
+        List<Node> brokers = Datasets.brokers(partitions);
+        topics = Datasets.topics(partitions, brokers);
+    }
+
+    @Benchmark
+    public long convertAndDescribeTopics() {
+        var converter = new TopicsOutput.OutputFormatConverter();
+        long candidates = 0;
+        for (String candidate : converter) {
+            candidates += candidate.length();
+        }
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            converter.convert(format).describeTopics(topics, out);
+        }
+        return writer.count() + candidates;
+    }
+}
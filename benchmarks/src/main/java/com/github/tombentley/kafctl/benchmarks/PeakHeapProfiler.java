@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports how far heap usage rose above its level at the start of each iteration,
+ * using the heap memory pools' peak usage.
+ * Because the dataset is built before the iteration starts this approximates the heap needed to format it.
+ * Use it with {@code -prof com.github.tombentley.kafctl.benchmarks.PeakHeapProfiler}.
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+
+    private long usedAtStart;
+
+    @Override
+    public String getDescription() {
+        return "Peak heap usage above the usage at the start of the iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            pool.resetPeakUsage();
+            used += pool.getUsage().getUsed();
+        }
+        usedAtStart = used;
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                          IterationResult result) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        double mb = Math.max(0, peak - usedAtStart) / (1024.0 * 1024.0);
+        return List.of(new ScalarResult("·peak.heap", mb, "MB", AggregationPolicy.MAX));
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>(ManagementFactory.getMemoryPoolMXBeans());
+        pools.removeIf(pool -> pool.getType() != MemoryType.HEAP);
+        return pools;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.SyntheticAdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+/**
+ * Creates {@link SyntheticAdminClient}s populated with the {@link Datasets} for a cluster of a given size.
+ * Replica sizes depend on the partition's leader, so that the brokers hold unequal numbers of bytes
+ * and {@code plan rebalance} has some moves to plan.
+ */
+final class SyntheticCluster {
+
+    static final long GIB = 1L << 30;
+
+    static final Map<String, String> TOPIC_CONFIGS = Map.of(
+            "retention.ms", "604800000",
+            "cleanup.policy", "delete");
+
+    private SyntheticCluster() {
+    }
+
+    static SyntheticAdminClient create(int partitions, Duration latency, Duration jitter) {
+        List<Node> brokers = Datasets.brokers(partitions);
+        SyntheticAdminClient admin = new SyntheticAdminClient(brokers, latency, jitter);
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        Map<TopicPartition, Long> replicaSizes = new HashMap<>();
+        for (TopicDescription td : Datasets.topics(partitions, brokers)) {
+            admin.addTopic(false, td.name(), td.partitions(), TOPIC_CONFIGS);
+            for (TopicPartitionInfo p : td.partitions()) {
+                TopicPartition tp = new TopicPartition(td.name(), p.partition());
+                beginningOffsets.put(tp, 0L);
+                replicaSizes.put(tp, (1 + p.leader().id() % 3) * GIB);
+            }
+        }
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> committed = Datasets.committedOffsets(partitions);
+        Map<TopicPartition, Long> endOffsets = Datasets.endOffsets(committed);
+        beginningOffsets.keySet().forEach(tp -> endOffsets.putIfAbsent(tp, 0L));
+        admin.replicaSizes(replicaSizes::get);
+        admin.updateBeginningOffsets(beginningOffsets);
+        admin.updateEndOffsets(endOffsets);
+        for (ConsumerGroupDescription group : Datasets.groups(partitions, brokers).values()) {
+            admin.addGroup(group, committed.get(group.groupId()));
+        }
+        return admin;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.format.PartitionsOutput;
+import com.github.tombentley.kafctl.format.TopicsOutput;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering topic and partition metadata in each output format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class TopicsOutputBenchmark {
+
+    @Param({"table", "csv", "json", "ndjson", "yaml"})
+    String format;
+
+    @Param({"1000", "100000", "1000000"})
+    int partitions;
+
+    private TopicsOutput topicsOutput;
+    private PartitionsOutput partitionsOutput;
+    private List<TopicDescription> topics;
+    private List<TopicListing> listings;
+    private PartitionIndex index;
+    private int[] rows;
+
+    @Setup
+    public void setup() {
+        topicsOutput = new TopicsOutput.OutputFormatConverter().convert(format);
+        partitionsOutput = new PartitionsOutput.OutputFormatConverter().convert(format);
+        List<Node> brokers = Datasets.brokers(partitions);
+        topics = Datasets.topics(partitions, brokers);
+        listings = Datasets.listings(topics);
+        index = PartitionIndex.build(topics, brokers);
+        rows = index.all().stream().toArray();
+    }
+
+    @Benchmark
+    public long describeTopics() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            topicsOutput.describeTopics(topics, out);
+        }
+        return writer.count();
+    }
+
+    @Benchmark
+    public long listTopics() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            topicsOutput.listTopics(listings, out);
+        }
+        return writer.count();
+    }
+
+    @Benchmark
+    public long describePartitions() {
+        CountingWriter writer = new CountingWriter();
+        try (Output out = new Output(writer)) {
+            partitionsOutput.describePartitions(index, rows, out);
+        }
+        return writer.count();
+    }
+}
@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+#
+#  Copyright 2021 The original authors
+#
+#  Licensed under the Apache License, Version 2.0 (the "License");
+#  you may not use this file except in compliance with the License.
+#  You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+#  Unless required by applicable law or agreed to in writing, software
+#  distributed under the License is distributed on an "AS IS" BASIS,
+#  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+#  See the License for the specific language governing permissions and
+#  limitations under the License.
+#
+
+# Compares the startup time of the JVM and native kafctl executables.
+#
+# For each command and each executable this runs the command WARMUP times, then RUNS more times,
+# measuring the time to the first byte of output and the time to exit, and prints the median
+# and 90th percentile of each as CSV.
+#
+# Build both executables first:
+#   mvn package && mvn package -Pnative
+#
+# Commands which talk to a cluster use the current context; those which fail (e.g. because there's no cluster)
+# are still timed, which measures startup up to the point of failure.
+#
+# Usage: benchmarks/startup.sh [command ...]
+#   where each command is a quoted kafctl argument list, e.g. benchmarks/startup.sh "get topics" "get brokers"
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-20}
+WARMUP=${WARMUP:-3}
+JVM=${JVM:-"java -jar target/quarkus-app/quarkus-run.jar"}
+NATIVE=${NATIVE:-"$(ls target/*-runner 2>/dev/null | head -n 1 || true)"}
+
+if [ $# -gt 0 ]; then
+  COMMANDS=("$@")
+else
+  COMMANDS=("--help" "get contexts" "get topics" "get brokers" "get consumer-group")
+fi
+
+if [ -z "${BASH_VERSINFO:-}" ] || [ "${BASH_VERSINFO[0]}" -lt 5 ]; then
+  echo "bash 5 or later is needed (for EPOCHREALTIME)" >&2
+  exit 1
+fi
+
+now_us() {
+  local t=${EPOCHREALTIME/[.,]/}
+  echo "${t}"
+}
+
+# Prints "first-byte-us total-us" for one run of the given command line
+time_once() {
+  local start first end
+  local fifo
+  fifo=$(mktemp -u)
+  mkfifo "$fifo"
+  start=$(now_us)
+  # shellcheck disable=SC2086
+  $1 > "$fifo" 2>/dev/null &
+  local pid=$!
+  # Wait for the first byte (or EOF, if there's no output)
+  { head -c 1 > /dev/null; first=$(now_us); cat > /dev/null; } < "$fifo"
+  wait "$pid" || true
+  end=$(now_us)
+  rm -f "$fifo"
+  echo "$((first - start)) $((end - start))"
+}
+
+# Prints the given percentile (0-100) of the numbers on stdin, in ms
+percentile() {
+  sort -n | awk -v p="$1" '{ v[NR] = $1 } END { i = int((NR - 1) * p / 100) + 1; printf "%.1f", v[i] / 1000 }'
+}
+
+echo "executable,command,runs,first_byte_p50_ms,first_byte_p90_ms,total_p50_ms,total_p90_ms"
+for exe in jvm native; do
+  if [ "$exe" = jvm ]; then
+    bin=$JVM
+  else
+    bin=$NATIVE
+    if [ -z "$bin" ]; then
+      echo "No native executable found; build it with mvn package -Pnative" >&2
+      continue
+    fi
+  fi
+  for cmd in "${COMMANDS[@]}"; do
+    for _ in $(seq "$WARMUP"); do
+      time_once "$bin $cmd" > /dev/null
+    done
+    samples=$(for _ in $(seq "$RUNS"); do time_once "$bin $cmd"; done)
+    first_p50=$(cut -d' ' -f1 <<< "$samples" | percentile 50)
+    first_p90=$(cut -d' ' -f1 <<< "$samples" | percentile 90)
+    total_p50=$(cut -d' ' -f2 <<< "$samples" | percentile 50)
+    total_p90=$(cut -d' ' -f2 <<< "$samples" | percentile 90)
+    echo "$exe,\"$cmd\",$RUNS,$first_p50,$first_p90,$total_p50,$total_p90"
+  done
+done
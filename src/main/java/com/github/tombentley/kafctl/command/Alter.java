@@ -22,7 +22,9 @@ import picocli.CommandLine;
         name = "alter",
         description = "Alter things",
         subcommands = {
+                AlterConsumerGroup.class,
                 AlterContext.class,
+                AlterReassignment.class,
                 AlterTopic.class
         }
 )
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.CGroupsOutput;
+import com.github.tombentley.kafctl.format.OffsetReset;
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.ConsumerGroupOffsets;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "consumer-group",
+        aliases = "consumer-groups",
+        description = "Alters the named consumer groups.")
+public class AlterConsumerGroup implements Runnable {
+
+    private static final Comparator<TopicPartition> PARTITION_ORDER = Comparator.comparing(TopicPartition::topic)
+            .thenComparingInt(TopicPartition::partition);
+
+    @CommandLine.Parameters(index = "0..*", arity = "1..", description = "The groups to alter.")
+    List<String> groupNames;
+
+    @CommandLine.Option(names = {"--reset-offsets"}, required = true,
+            description = "Reset the groups' committed offsets. The groups must have no active members.")
+    boolean resetOffsets;
+
+    @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+    Target target;
+
+    static class Target {
+        @CommandLine.Option(names = {"--to-earliest"}, required = true,
+                description = "Reset to the earliest offset of each partition.")
+        boolean earliest;
+
+        @CommandLine.Option(names = {"--to-latest"}, required = true,
+                description = "Reset to the latest offset of each partition.")
+        boolean latest;
+
+        @CommandLine.Option(names = {"--to-datetime"}, required = true, paramLabel = "DATETIME",
+                converter = DateTimeConverter.class,
+                description = "Reset to the earliest offset of each partition whose timestamp is at or after the given "
+                        + "ISO-8601 date-time, such as 2021-07-01T09:00:00Z. Without an offset the local time zone is used.")
+        Instant datetime;
+
+        @CommandLine.Option(names = {"--shift-by"}, required = true, paramLabel = "OFFSETS",
+                description = "Shift each committed offset by the given (possibly negative) number of offsets, "
+                        + "limited to the partition's earliest and latest offsets.")
+        Long shiftBy;
+    }
+
+    @CommandLine.Option(names = {"--topic"}, split = ",", paramLabel = "TOPIC",
+            description = "Reset the offsets of all the partitions of the given topics. "
+                    + "By default the partitions the group has committed offsets for are reset.")
+    Set<String> topicNames;
+
+    @CommandLine.Option(names = {"--dry-run"},
+            description = "Print the new offsets, without changing them.")
+    boolean dryRun;
+
+    @CommandLine.Option(
+            names = {"--output", "-o"},
+            description = "The output format of the new offsets. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = CGroupsOutput.OutputFormatConverter.class,
+            completionCandidates = CGroupsOutput.OutputFormatConverter.class)
+    CGroupsOutput output;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "16",
+            description = "The maximum number of groups whose committed offsets are fetched or altered concurrently.")
+    int maxInFlight;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Override
+    public void run() {
+        adminClient.withAdmin(admin -> {
+            var offsets = new ConsumerGroupOffsets(admin, maxInFlight);
+            Map<String, Map<TopicPartition, OffsetAndMetadata>> committed = offsets.committedOffsets(groupNames);
+            if (!offsets.errors().isEmpty()) {
+                throw new RuntimeException("Unable to get the committed offsets of " + offsets.errors().size() + " group(s)");
+            }
+            List<OffsetReset> plan = plan(admin, offsets, committed);
+
+            Set<String> active = new TreeSet<>();
+            for (ConsumerGroupDescription group : admin.describeConsumerGroups(groupNames).all().get().values()) {
+                if (group.state() != ConsumerGroupState.EMPTY && group.state() != ConsumerGroupState.DEAD) {
+                    active.add(group.groupId());
+                }
+            }
+            if (!active.isEmpty() && !dryRun) {
+                throw new RuntimeException("Cannot reset the offsets of groups with active members: " + String.join(", ", active));
+            }
+            try (Output out = Output.stdout()) {
+                output.describeOffsetResets(plan, out);
+            }
+            if (dryRun) {
+                active.forEach(groupId -> System.err.println("Group " + groupId + " has active members, so its offsets can't be reset"));
+                return null;
+            }
+            Map<String, Map<TopicPartition, OffsetAndMetadata>> newOffsets = new TreeMap<>();
+            for (OffsetReset reset : plan) {
+                newOffsets.computeIfAbsent(reset.groupId(), g -> new TreeMap<>(PARTITION_ORDER))
+                        .put(reset.topicPartition(), new OffsetAndMetadata(reset.newOffset()));
+            }
+            Map<String, Throwable> failures = offsets.alterCommittedOffsets(newOffsets);
+            failures.forEach((groupId, error) -> System.err.println("Unable to reset the offsets of group " + groupId + ": " + error.getMessage()));
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Unable to reset the offsets of " + failures.size() + " group(s)");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Computes the new offset of each of the groups' partitions, using one {@code listOffsets} call for each
+     * kind of offset needed.
+     */
+    private List<OffsetReset> plan(Admin admin, ConsumerGroupOffsets offsets,
+                                   Map<String, Map<TopicPartition, OffsetAndMetadata>> committed) throws Exception {
+        Map<String, Collection<TopicPartition>> partitionsByGroup = new TreeMap<>();
+        if (topicNames != null) {
+            List<TopicPartition> topicPartitions = new ArrayList<>();
+            for (TopicDescription td : admin.describeTopics(topicNames).all().get().values()) {
+                td.partitions().forEach(p -> topicPartitions.add(new TopicPartition(td.name(), p.partition())));
+            }
+            groupNames.forEach(groupId -> partitionsByGroup.put(groupId, topicPartitions));
+        } else {
+            committed.forEach((groupId, groupOffsets) -> partitionsByGroup.put(groupId, groupOffsets.keySet()));
+        }
+        Set<TopicPartition> partitions = partitionsByGroup.values().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        Map<TopicPartition, Long> earliest = Map.of();
+        Map<TopicPartition, Long> latest = Map.of();
+        Map<TopicPartition, Long> atTime = Map.of();
+        if (target.earliest || target.shiftBy != null) {
+            earliest = offsets.offsets(partitions, OffsetSpec.earliest());
+        }
+        if (target.datetime != null) {
+            atTime = offsets.offsets(partitions, OffsetSpec.forTimestamp(target.datetime.toEpochMilli()));
+        }
+        if (target.latest || target.shiftBy != null || atTime.containsValue(-1L)) {
+            // Partitions without any message at or after the date-time are reset to the latest offset
+            latest = offsets.offsets(target.datetime == null ? partitions : atTime.entrySet().stream()
+                    .filter(e -> e.getValue() == -1L)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList()), OffsetSpec.latest());
+        }
+
+        List<OffsetReset> plan = new ArrayList<>();
+        Set<TopicPartition> unknown = new TreeSet<>(PARTITION_ORDER);
+        for (Map.Entry<String, Collection<TopicPartition>> entry : partitionsByGroup.entrySet()) {
+            String groupId = entry.getKey();
+            Map<TopicPartition, OffsetAndMetadata> groupOffsets = committed.getOrDefault(groupId, Map.of());
+            for (TopicPartition tp : entry.getValue()) {
+                OffsetAndMetadata current = groupOffsets.get(tp);
+                Long newOffset;
+                if (target.earliest) {
+                    newOffset = earliest.get(tp);
+                } else if (target.latest) {
+                    newOffset = latest.get(tp);
+                } else if (target.datetime != null) {
+                    newOffset = atTime.get(tp);
+                    if (newOffset != null && newOffset == -1L) {
+                        newOffset = latest.get(tp);
+                    }
+                } else if (current == null) {
+                    // There's nothing to shift
+                    continue;
+                } else if (earliest.containsKey(tp) && latest.containsKey(tp)) {
+                    newOffset = Math.max(earliest.get(tp), Math.min(latest.get(tp), current.offset() + target.shiftBy));
+                } else {
+                    newOffset = null;
+                }
+                if (newOffset == null) {
+                    unknown.add(tp);
+                } else {
+                    plan.add(new OffsetReset(groupId, tp, current == null ? null : current.offset(), newOffset));
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new RuntimeException("Unable to determine the new offsets of partitions "
+                    + unknown.stream().map(tp -> tp.topic() + "/" + tp.partition()).collect(Collectors.joining(", ")));
+        }
+        plan.sort((a, b) -> {
+            int cmp = a.groupId().compareTo(b.groupId());
+            return cmp != 0 ? cmp : PARTITION_ORDER.compare(a.topicPartition(), b.topicPartition());
+        });
+        return plan;
+    }
+
+    static class DateTimeConverter implements CommandLine.ITypeConverter<Instant> {
+        @Override
+        public Instant convert(String value) {
+            try {
+                return OffsetDateTime.parse(value).toInstant();
+            } catch (DateTimeParseException e) {
+                try {
+                    return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant();
+                } catch (DateTimeParseException e2) {
+                    throw new CommandLine.TypeConversionException("Expected an ISO-8601 date-time but got '" + value + "'");
+                }
+            }
+        }
+    }
+}
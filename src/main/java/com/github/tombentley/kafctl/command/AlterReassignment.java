@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.ReassignmentPlan;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "reassignment",
+        aliases = "reassignments",
+        description = "Reassigns partitions to the replicas given in a reassignment JSON file, "
+                + "in the format used by kafka-reassign-partitions.sh.")
+public class AlterReassignment implements Runnable {
+
+    @CommandLine.Option(names = {"-f", "--file"}, required = true, description = "The reassignment JSON.")
+    File file;
+
+    @CommandLine.Option(names = {"--dry-run"},
+            description = "Print the reassignment JSON of the partitions whose replicas would change, without changing them.")
+    boolean dryRun;
+
+    @CommandLine.Mixin
+    ReassignmentOptions reassignment;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        adminClient.withAdmin(admin -> {
+            ReassignmentPlan targets;
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                targets = ReassignmentPlan.read(in);
+            }
+            var describer = new PagedTopicDescriber(admin, 500, 4);
+            PartitionIndex index = GetPartitions.buildIndex(admin, metadataCache, MetadataCache.Policy.refresh(),
+                    describer, targets.topicNames());
+            if (!describer.errors().isEmpty()) {
+                throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+            }
+            reassignment.execute(admin, targets.resolve(index), dryRun);
+            return null;
+        });
+    }
+}
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,8 +29,13 @@ import java.util.Properties;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.github.tombentley.kafctl.index.PartitionIndex;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.ReassignmentPlan;
 import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigsOptions;
 import org.apache.kafka.clients.admin.ConfigEntry;
 import org.apache.kafka.clients.admin.CreatePartitionsOptions;
 import org.apache.kafka.clients.admin.NewPartitions;
@@ -63,20 +69,26 @@ public class AlterTopic implements Runnable {
     @CommandLine.Option(names = {"-p", "--partitions"}, description = "The new number of partitions.")
     Integer partitions;
 
-    @CommandLine.Option(names = {"-r", "--replicas"}, description = "The number of replicas.")
+    @CommandLine.Option(names = {"-r", "--replicas"},
+            description = "The new number of replicas. The new replicas are placed to spread each partition across racks "
+                    + "and keep the number of replicas on each broker even, and existing replicas are kept where possible.")
     Short replicas;
 
-    @CommandLine.Option(names = {"--dry-run"}, description="Validate the change without actually performing it")
+    @CommandLine.Option(names = {"--dry-run"}, description="Validate the change without actually performing it. "
+            + "When changing the number of replicas, print the reassignment JSON instead.")
     boolean dryRun;
 
+    @CommandLine.Mixin
+    ReassignmentOptions reassignment;
+
     @Inject
     AdminClient adminClient;
 
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
-        if (replicas != null) {
-            throw new RuntimeException("Changing replicas not yet supported"); // TODO support RF change
-        }
         adminClient.withAdmin(ac -> {
             Map<String, NewPartitions> newPartitions = Optional.ofNullable(partitions).map(integer -> topicNames.stream().collect(Collectors.toMap(
                     Function.identity(),
@@ -102,15 +114,19 @@ public class AlterTopic implements Runnable {
                         Map<ConfigEntry, AlterConfigOp.OpType> collect = m.entrySet().stream().collect(Collectors.toMap(
                                 entry -> new ConfigEntry(entry.getKey(), entry.getValue()),
                                 entry -> AlterConfigOp.OpType.SET));
-                        Map.of(set, AlterConfigOp.OpType.SET,
-                                append, AlterConfigOp.OpType.APPEND,
-                                subtract, AlterConfigOp.OpType.SUBTRACT,
-                                delete, AlterConfigOp.OpType.DELETE).forEach((key, value) -> key.forEach(pair -> {
-                            String[] split = pair.split("=", 1);
+                        Map<List<String>, AlterConfigOp.OpType> ops = new HashMap<>();
+                        ops.put(set, AlterConfigOp.OpType.SET);
+                        ops.put(append, AlterConfigOp.OpType.APPEND);
+                        ops.put(subtract, AlterConfigOp.OpType.SUBTRACT);
+                        ops.put(delete, AlterConfigOp.OpType.DELETE);
+                        ops.remove(null);
+                        ops.forEach((key, value) -> key.forEach(pair -> {
+                            String[] split = pair.split("=", 2);
                             collect.put(new ConfigEntry(split[0], split[1]), value);
                         }));
                         return collect.entrySet().stream().map(e -> new AlterConfigOp(e.getKey(), e.getValue())).collect(Collectors.toList());
                     }));
+            configs.values().removeIf(Collection::isEmpty);
 
             // TODO can the change to configs depend on the number of partitions (thus is a fixed order between the two operations always going to work?)
 
@@ -118,7 +134,19 @@ public class AlterTopic implements Runnable {
                 ac.createPartitions(newPartitions, new CreatePartitionsOptions().validateOnly(dryRun)).all().get();
             }
             if (!configs.isEmpty()) {
-                ac.incrementalAlterConfigs(configs).all().get();
+                ac.incrementalAlterConfigs(configs, new AlterConfigsOptions().validateOnly(dryRun)).all().get();
+            }
+            if (replicas != null) {
+                // Describe after increasing the partitions, so the new partitions get the new replication factor too
+                var describer = new PagedTopicDescriber(ac, 500, 4);
+                PartitionIndex index = GetPartitions.buildIndex(ac, metadataCache, MetadataCache.Policy.refresh(),
+                        describer, topicNames);
+                if (!describer.errors().isEmpty()) {
+                    throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+                }
+                ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.all(), replicas,
+                        metadataCache.describeClusterNodes(ac, MetadataCache.Policy.refresh()));
+                reassignment.execute(ac, plan, dryRun);
             }
             return null;
         });
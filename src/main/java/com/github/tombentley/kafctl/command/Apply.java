@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.TopicManifest;
+import com.github.tombentley.kafctl.util.TopicPlan;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "apply",
+        description = "Creates and alters topics so they match a YAML manifest.")
+public class Apply implements Runnable {
+
+    @CommandLine.Option(names = {"-f", "--file"}, required = true,
+            description = "The manifest of the desired topics, or - to read it from standard input.")
+    File file;
+
+    @CommandLine.Option(names = {"--dry-run"},
+            description = "Print the changes which would be made, without making them.")
+    boolean dryRun;
+
+    @CommandLine.Option(names = {"--batch-size"}, defaultValue = "100",
+            description = "The maximum number of topics to change in each request.")
+    int batchSize;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "4",
+            description = "The maximum number of requests to have outstanding at once.")
+    int maxInFlight;
+
+    @CommandLine.Option(names = {"--reassignment-batch-size"}, defaultValue = "50",
+            description = "The maximum number of partitions to reassign at once when changing replication factors.")
+    int reassignmentBatchSize;
+
+    @CommandLine.Option(names = {"--throttle"}, defaultValue = "-1", paramLabel = "BYTES_PER_SECOND",
+            description = "Limit the replication traffic of each broker involved in changing replication factors to the given rate. "
+                    + "By default replication isn't throttled.")
+    long throttle;
+
+    @CommandLine.Option(names = {"--poll-interval"}, defaultValue = "5", paramLabel = "SECONDS",
+            description = "How often to check whether a batch of reassignments has finished.")
+    double pollSeconds;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        TopicManifest manifest;
+        try (InputStream in = "-".equals(file.getPath()) ? System.in : Files.newInputStream(file.toPath())) {
+            manifest = TopicManifest.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        adminClient.withAdmin(admin -> {
+            TopicPlan plan = TopicPlan.compute(admin, manifest);
+            try (Output out = Output.stdout()) {
+                plan.print(out.writer());
+            }
+            if (!plan.problems().isEmpty()) {
+                throw new RuntimeException("The manifest has " + plan.problems().size() + " topic(s) which can't be applied; no changes were made");
+            }
+            if (dryRun || plan.isEmpty()) {
+                return null;
+            }
+            Map<String, Throwable> failures = plan.execute(admin, batchSize, maxInFlight);
+            failures.forEach((name, error) -> System.err.println("Unable to apply topic " + name + ": " + error.getMessage()));
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Unable to apply " + failures.size() + " topic(s)");
+            }
+            if (!plan.replicationFactorChanges().isEmpty()) {
+                // Describe after increasing the partitions, so the new partitions get the new replication factor too
+                var describer = new PagedTopicDescriber(admin, batchSize, maxInFlight);
+                PartitionIndex index = GetPartitions.buildIndex(admin, metadataCache, MetadataCache.Policy.refresh(),
+                        describer, plan.replicationFactorChanges());
+                if (!describer.errors().isEmpty()) {
+                    throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+                }
+                new ReassignmentOptions(reassignmentBatchSize, throttle, pollSeconds).execute(admin,
+                        plan.reassignment(index, metadataCache.describeClusterNodes(admin, MetadataCache.Policy.refresh())), false);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.time.Duration;
+
+import com.github.tombentley.kafctl.util.MetadataCache;
+import picocli.CommandLine.Option;
+
+/**
+ * Options controlling the use of the {@link MetadataCache} by read-only commands.
+ */
+class CacheOptions {
+
+    private static final long DEFAULT_TTL_SECONDS = 30;
+
+    @Option(names = {"--cache-ttl"},
+            description = "The number of seconds for which cached metadata is used. "
+                    + "Defaults to the KAFCTL_CACHE_TTL environment variable, or " + DEFAULT_TTL_SECONDS + " for "
+                    + "listings. Commands showing state such as leaders and ISRs only use cached metadata when a TTL "
+                    + "is given by this option or the environment variable.")
+    Long ttlSeconds;
+
+    @Option(names = {"--refresh"}, defaultValue = "false",
+            description = "Fetch fresh metadata from the cluster, updating the cache.")
+    boolean refresh;
+
+    @Option(names = {"--no-cache"}, defaultValue = "false",
+            description = "Fetch metadata from the cluster, without reading or updating the cache.")
+    boolean noCache;
+
+    /** The policy for commands which list things, whose metadata changes rarely. */
+    MetadataCache.Policy policy() {
+        return policy(DEFAULT_TTL_SECONDS);
+    }
+
+    /**
+     * The policy for commands showing state which changes from moment to moment, such as leaders and ISRs,
+     * which refreshes the cache unless a TTL was given explicitly.
+     */
+    MetadataCache.Policy livePolicy() {
+        return policy(null);
+    }
+
+    private MetadataCache.Policy policy(Long defaultTtlSeconds) {
+        Long ttl = ttlSeconds;
+        if (ttl == null && System.getenv("KAFCTL_CACHE_TTL") != null) {
+            try {
+                ttl = Long.valueOf(System.getenv("KAFCTL_CACHE_TTL"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("KAFCTL_CACHE_TTL should be a number of seconds");
+            }
+        }
+        if (ttl == null) {
+            ttl = defaultTtlSeconds;
+        }
+        if (noCache) {
+            return MetadataCache.Policy.BYPASS;
+        } else if (refresh || ttl == null) {
+            return MetadataCache.Policy.refresh();
+        } else {
+            return MetadataCache.Policy.ttl(Duration.ofSeconds(ttl));
+        }
+    }
+}
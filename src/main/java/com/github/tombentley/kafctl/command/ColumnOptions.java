@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.util.List;
+
+import com.github.tombentley.kafctl.format.Columns;
+import picocli.CommandLine.Option;
+
+/**
+ * Options for selecting which columns (or fields) a get command outputs.
+ */
+class ColumnOptions {
+
+    @Option(names = {"--columns", "--fields"}, split = ",", paramLabel = "COLUMN",
+            description = "Output just the given columns (or fields, for JSON-like formats). " +
+                    "Names are table headers or field names, ignoring case and punctuation.")
+    List<String> names;
+
+    Columns selection() {
+        return Columns.of(names);
+    }
+
+    /**
+     * Whether to request the optional data shown in the given column: when the data was asked for using
+     * {@code flag} and the column wasn't left out of the selection, or when the column was selected.
+     */
+    boolean wants(String column, boolean flag) {
+        return flag ? selection().includes(column) : selection().selects(column);
+    }
+}
@@ -16,7 +16,18 @@
  */
 package com.github.tombentley.kafctl.command;
 
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
 import com.github.tombentley.kafctl.Constants;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.NameIndex;
 import picocli.AutoComplete;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -28,19 +39,160 @@ import picocli.CommandLine.Spec;
 )
 public class Completion implements Runnable {
 
-    // TODO figure out the hack needed for topic name complation
+    private static final String CONTEXTS = "contexts";
+
+    // The kinds of name which complete each positional parameter or option, keyed by its param label
+    private static final Map<String, String> LABEL_KINDS = Map.of(
+            "<topicName>", NameIndex.TOPICS,
+            "<topicNames>", NameIndex.TOPICS,
+            "TOPIC", NameIndex.TOPICS,
+            "TOPIC/PARTITION", NameIndex.TOPICS,
+            "<groupNames>", NameIndex.GROUPS,
+            "<brokerId>", NameIndex.BROKERS,
+            "<brokerIds>", NameIndex.BROKERS,
+            "BROKER_ID", NameIndex.BROKERS,
+            "<contextName>", CONTEXTS,
+            "CONTEXT", CONTEXTS);
 
     @Spec CommandLine.Model.CommandSpec spec;
 
+    @CommandLine.Option(names = "--refresh-names", hidden = true,
+            description = "Refresh the topic, group and broker names used for completion, rather than generating the script.")
+    boolean refreshNames;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
+        if (refreshNames) {
+            // Fetching the names updates the name index as a side effect
+            adminClient.withAdmin(admin -> {
+                metadataCache.listTopics(admin, MetadataCache.Policy.refresh());
+                metadataCache.listConsumerGroups(admin, MetadataCache.Policy.refresh());
+                metadataCache.describeClusterNodes(admin, MetadataCache.Policy.refresh());
+                return null;
+            });
+            return;
+        }
         String script = AutoComplete.bash(
                 spec.root().name(),
                 spec.root().commandLine());
         // not PrintWriter.println: scripts with Windows line separators fail in strange ways!
         spec.commandLine().getOut().print(script);
         spec.commandLine().getOut().print('\n');
+        spec.commandLine().getOut().print(dynamicCompletion(spec.root()));
         spec.commandLine().getOut().flush();
+    }
+
+    /**
+     * Generates bash functions which add topic names, group ids, broker ids and context names to the
+     * completions generated by picocli. The names are looked up in the name index files (see {@link NameIndex})
+     * using {@code look}, which binary searches the memory-mapped file, so completion never waits for the cluster.
+     */
+    private static String dynamicCompletion(CommandLine.Model.CommandSpec root) {
+        Map<String, String> positionals = new TreeMap<>(Comparator.comparing(String::length).reversed().thenComparing(Comparator.naturalOrder()));
+        Map<String, String> options = new TreeMap<>();
+        TreeSet<String> argOptions = new TreeSet<>();
+        collect(root, List.of(""), positionals, options, argOptions);
+        argOptions.removeAll(options.keySet());
+
+        String cmd = root.name();
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Completion of topic names, group ids, broker ids and context names, from the sorted name index\n");
+        sb.append("# files in ~/.").append(cmd).append(", which are refreshed in the background when they're older than\n");
+        sb.append("# KAFCTL_COMPLETION_TTL minutes (default 1).\n");
+        sb.append("function _").append(cmd).append("_names() {\n");
+        sb.append("  local kind=$1 prefix=$2 dir=\"$HOME/.").append(cmd).append("\"\n");
+        sb.append("  if [[ $kind == ").append(CONTEXTS).append(" ]]; then\n");
+        sb.append("    local f\n");
+        sb.append("    for f in \"$dir\"/context-*.properties; do\n");
+        sb.append("      f=${f##*/context-}\n");
+        sb.append("      f=${f%.properties}\n");
+        sb.append("      [[ $f != '*' && $f == \"$prefix\"* ]] && echo \"$f\"\n");
+        sb.append("    done\n");
+        sb.append("    return 0\n");
+        sb.append("  fi\n");
+        sb.append("  [[ -r $dir/context ]] || return 0\n");
+        sb.append("  local ctx\n");
+        sb.append("  ctx=$(< \"$dir/context\")\n");
+        sb.append("  local file=\"$dir/context-$ctx.$kind.names\"\n");
+        sb.append("  if [[ ! -e $file || -z $(find \"$file\" -mmin -\"${KAFCTL_COMPLETION_TTL:-1}\" 2> /dev/null) ]]; then\n");
+        sb.append("    # Touching the file stops further refreshes being started while this one runs\n");
+        sb.append("    touch \"$file\"\n");
+        sb.append("    ( \"${COMP_WORDS[0]}\" completion --refresh-names > /dev/null 2>&1 & )\n");
+        sb.append("  fi\n");
+        sb.append("  if command -v look > /dev/null; then\n");
+        sb.append("    LC_ALL=C look \"$prefix\" \"$file\"\n");
+        sb.append("  else\n");
+        sb.append("    LC_ALL=C awk -v p=\"$prefix\" 'index($0, p) == 1' \"$file\"\n");
+        sb.append("  fi\n");
+        sb.append("}\n\n");
+
+        sb.append("function _").append(cmd).append("_dynamic() {\n");
+        sb.append("  _complete_").append(cmd).append(" \"$@\"\n");
+        sb.append("  local cur=${COMP_WORDS[COMP_CWORD]} prev=${COMP_WORDS[COMP_CWORD-1]} kind=\"\"\n");
+        sb.append("  if [[ $prev == \"=\" && $COMP_CWORD -gt 1 ]]; then\n");
+        sb.append("    prev=${COMP_WORDS[COMP_CWORD-2]}\n");
+        sb.append("  fi\n");
+        sb.append("  case $prev in\n");
+        options.forEach((option, kind) -> sb.append("    ").append(option).append(") kind=").append(kind).append(" ;;\n"));
+        if (!argOptions.isEmpty()) {
+            sb.append("    ").append(String.join("|", argOptions)).append(") return ;;\n");
+        }
+        sb.append("  esac\n");
+        sb.append("  if [[ -z $kind && $cur != -* ]]; then\n");
+        sb.append("    local path=\"\" i\n");
+        sb.append("    for ((i = 1; i < COMP_CWORD; i++)); do\n");
+        sb.append("      [[ ${COMP_WORDS[i]} == -* ]] || path+=\" ${COMP_WORDS[i]}\"\n");
+        sb.append("    done\n");
+        sb.append("    case \"$path \" in\n");
+        positionals.forEach((path, kind) -> sb.append("      \"").append(path).append(" \"*) kind=").append(kind).append(" ;;\n"));
+        sb.append("    esac\n");
+        sb.append("  fi\n");
+        sb.append("  if [[ -n $kind ]]; then\n");
+        sb.append("    COMPREPLY+=( $(_").append(cmd).append("_names \"$kind\" \"$cur\") )\n");
+        sb.append("  fi\n");
+        sb.append("}\n\n");
+        sb.append("complete -F _").append(cmd).append("_dynamic -o default ")
+                .append(cmd).append(' ').append(cmd).append(".sh ").append(cmd).append(".bash\n");
+        return sb.toString();
+    }
 
+    private static void collect(CommandLine.Model.CommandSpec command, List<String> paths,
+                                Map<String, String> positionals, Map<String, String> options, TreeSet<String> argOptions) {
+        for (CommandLine.Model.OptionSpec option : command.options()) {
+            if (option.arity().min() > 0) {
+                String kind = LABEL_KINDS.get(option.paramLabel());
+                for (String name : option.names()) {
+                    if (kind != null) {
+                        options.put(name, kind);
+                    } else {
+                        argOptions.add(name);
+                    }
+                }
+            }
+        }
+        // The names given to create commands are new, so there's nothing to complete
+        boolean creating = paths.stream().anyMatch(path -> path.startsWith(" create"));
+        if (!creating && !command.positionalParameters().isEmpty()) {
+            String kind = LABEL_KINDS.get(command.positionalParameters().get(0).paramLabel());
+            if (kind != null) {
+                paths.forEach(path -> positionals.put(path, kind));
+            }
+        }
+        command.subcommands().values().stream().distinct().forEach(sub -> {
+            List<String> subPaths = new ArrayList<>();
+            for (String path : paths) {
+                subPaths.add(path + " " + sub.getCommandSpec().name());
+                for (String alias : sub.getCommandSpec().aliases()) {
+                    subPaths.add(path + " " + alias);
+                }
+            }
+            collect(sub.getCommandSpec(), subPaths, positionals, options, argOptions);
+        });
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.format.Columns;
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.util.AdminClient;
+import org.apache.kafka.clients.admin.Admin;
+import picocli.CommandLine.Option;
+
+/**
+ * Options for read-only commands which can run against several contexts at once,
+ * merging their output into one document with a context column (or field).
+ */
+class ContextOptions {
+
+    @FunctionalInterface
+    interface Body {
+        void run(Admin admin, Output out) throws Exception;
+    }
+
+    @Option(names = {"--contexts"}, split = ",", paramLabel = "CONTEXT",
+            description = "Run against each of the given contexts, rather than the current one.")
+    List<String> contexts;
+
+    @Option(names = {"--all-contexts"}, defaultValue = "false",
+            description = "Run against every context.")
+    boolean allContexts;
+
+    @Option(names = {"--max-parallel-contexts"}, defaultValue = "4",
+            description = "The maximum number of contexts to run against at once.")
+    int maxParallel;
+
+    @Option(names = {"--context-timeout"}, defaultValue = "30", paramLabel = "SECONDS",
+            description = "The number of seconds to allow for each context, once it has started.")
+    long timeoutSeconds;
+
+    boolean enabled() {
+        return allContexts || (contexts != null && !contexts.isEmpty());
+    }
+
+    /** Fails if several contexts were asked for, for options which only make sense with one. */
+    void requireSingle(String option) {
+        if (enabled()) {
+            throw new IllegalArgumentException(option + " can't be used with --contexts or --all-contexts");
+        }
+    }
+
+    /**
+     * Runs the {@code body} against the current context, writing to stdout, or, if several contexts were asked for,
+     * against each of them concurrently, writing their merged output to stdout.
+     * The body's Outputs are restricted to the given {@code columns}.
+     * The output of any contexts which failed is still included, but the failures are reported
+     * and cause the command to fail once the output is written.
+     */
+    void run(AdminClient adminClient, Columns columns, Body body) {
+        if (!enabled()) {
+            adminClient.withAdmin(admin -> {
+                try (Output out = Output.stdout().columns(columns)) {
+                    body.run(admin, out);
+                }
+                return null;
+            });
+            return;
+        }
+        List<String> names = allContexts ? adminClient.contextNames() : contexts;
+        Map<String, Output> outs = new LinkedHashMap<>();
+        names.forEach(name -> outs.put(name, Output.collecting(name).columns(columns)));
+        List<AdminClient.Outcome<Void>> outcomes = adminClient.withAdmins(names, maxParallel,
+                Duration.ofSeconds(timeoutSeconds), (name, admin) -> {
+                    body.run(admin, outs.get(name));
+                    return null;
+                });
+        List<Output> completed = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (AdminClient.Outcome<Void> outcome : outcomes) {
+            // A timed out context might still be writing to its output, so leave it out
+            if (!outcome.timedOut()) {
+                completed.add(outs.get(outcome.contextName()));
+            }
+            if (outcome.error() != null) {
+                System.err.println(outcome.contextName() + ": " + outcome.error().getMessage());
+                failed.add(outcome.contextName());
+            }
+        }
+        try (Output out = Output.stdout()) {
+            Output.merge(completed, out);
+        }
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("Failed for " + failed.size() + " of " + names.size() + " context(s): "
+                    + String.join(", ", failed));
+        }
+    }
+}
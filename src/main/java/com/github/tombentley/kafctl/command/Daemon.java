@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.tombentley.kafctl.format.Formats;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.ContextDb;
+import picocli.CommandLine;
+
+/**
+ * A long-lived process which serves commands over a loopback socket, so that the
+ * {@link org.apache.kafka.clients.admin.Admin} for each context stays connected between commands.
+ *
+ * <p>The port and an access token are written to {@code ~/.kafctl/daemon}, readable only by the owner.
+ * A client connects, sends the token, then each argument on its own line, followed by an empty line.
+ * The daemon replies on this control connection with a line holding an id for the command's output.
+ * The client opens a second connection and sends that id, and the daemon streams the command's standard output
+ * over it as the command writes it, closing it when the command finishes.
+ * The daemon then sends, on the control connection, a line holding the command's exit status and the number of
+ * lines of standard error which follow it, then those lines, and closes the connection.
+ * If the command isn't run, for example because the token is wrong, the id is {@code -} and there's no
+ * output connection. Commands are served one at a time, so {@code --watch} is refused.</p>
+ */
+@CommandLine.Command(
+        name = "daemon",
+        description = "Runs a local daemon which keeps an Admin client per context connected, and serves commands over a loopback socket.")
+public class Daemon implements Runnable {
+
+    static final String DAEMON_FILE_NAME = "daemon";
+
+    private static final String NO_OUTPUT = "-";
+
+    @CommandLine.Option(names = {"--port"}, defaultValue = "0",
+            description = "The loopback port to listen on. By default an ephemeral port is used.")
+    int port;
+
+    @CommandLine.Option(names = {"--idle-timeout"}, defaultValue = "300",
+            description = "The number of seconds after which an unused Admin client is closed.")
+    long idleTimeoutSeconds;
+
+    @Inject
+    CommandLine.IFactory factory;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    ContextDb context;
+
+    @Override
+    public void run() {
+        Duration idleTimeout = Duration.ofSeconds(idleTimeoutSeconds);
+        String token = UUID.randomUUID().toString();
+        Path daemonFile = context.dotDirPath(DAEMON_FILE_NAME);
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            // So that the first command served doesn't pay for creating the mappers and serializers
+            Formats.prewarm();
+            writeDaemonFile(daemonFile, server.getLocalPort(), token);
+            System.err.println("Listening on " + server.getLocalSocketAddress());
+            // Wake up periodically to evict idle Admins, even when no commands are arriving
+            server.setSoTimeout((int) Math.min(idleTimeout.toMillis(), 10_000L));
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    adminClient.evictIdle(idleTimeout);
+                    continue;
+                }
+                try (socket) {
+                    serve(server, socket, token);
+                } catch (IOException e) {
+                    System.err.println("Error serving command: " + e.getMessage());
+                }
+                adminClient.evictIdle(idleTimeout);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(daemonFile);
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private void serve(ServerSocket server, Socket socket, String token) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream control = socket.getOutputStream();
+        if (!token.equals(reader.readLine())) {
+            refuse(control, "Invalid token");
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            args.add(line);
+        }
+        if (!args.isEmpty() && args.get(0).equals("daemon")) {
+            refuse(control, "Cannot run the daemon from within the daemon");
+            return;
+        }
+        CommandLine commandLine = new CommandLine(KcCtlCommand.class, factory);
+        if (isWatching(commandLine, args)) {
+            // Commands are served one at a time, so a command which never finishes would block every other client
+            refuse(control, "Cannot --watch from within the daemon");
+            return;
+        }
+        String outputId = UUID.randomUUID().toString();
+        control.write((outputId + "\n").getBytes(StandardCharsets.UTF_8));
+        control.flush();
+        try (Socket output = acceptOutput(server, outputId)) {
+            if (output == null) {
+                respond(control, 1, "The client didn't open the output connection");
+                return;
+            }
+            // Commands print to System.out and System.err, so redirect them for the duration of the command.
+            // Standard output goes straight to the client, while standard error, which is small, is collected
+            // so it can be sent with the exit status.
+            var stderrBuffer = new ByteArrayOutputStream();
+            PrintStream stdout = System.out;
+            PrintStream stderr = System.err;
+            PrintStream outPs = new PrintStream(new BufferedOutputStream(output.getOutputStream()), false, StandardCharsets.UTF_8);
+            PrintStream errPs = new PrintStream(stderrBuffer, true, StandardCharsets.UTF_8);
+            System.setOut(outPs);
+            System.setErr(errPs);
+            int exitCode;
+            try {
+                commandLine.setOut(new PrintWriter(outPs, true));
+                commandLine.setErr(new PrintWriter(errPs, true));
+                commandLine.setExecutionExceptionHandler((ex, cmd, parseResult) -> {
+                    errPs.print(cmd.getColorScheme().stackTraceText(ex));
+                    return cmd.getCommandSpec().exitCodeOnExecutionException();
+                });
+                exitCode = commandLine.execute(args.toArray(new String[0]));
+            } finally {
+                System.setOut(stdout);
+                System.setErr(stderr);
+                outPs.flush();
+                errPs.flush();
+            }
+            // Close the output before responding, so the client has read all of it by the time it reads the status
+            output.close();
+            respond(control, exitCode, stderrBuffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Accepts the client's output connection for the command with the given id.
+     * Since commands are served one at a time, any other client connecting meanwhile is refused.
+     * @return The output connection, or null if the client didn't open it in time.
+     */
+    private static Socket acceptOutput(ServerSocket server, String outputId) throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                return null;
+            }
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            if (outputId.equals(reader.readLine())) {
+                return socket;
+            }
+            try (socket) {
+                refuse(socket.getOutputStream(), "The daemon is busy serving another command");
+            }
+        }
+    }
+
+    private static boolean isWatching(CommandLine commandLine, List<String> args) {
+        CommandLine.ParseResult parseResult;
+        try {
+            parseResult = commandLine.parseArgs(args.toArray(new String[0]));
+        } catch (CommandLine.ParameterException e) {
+            // Let execute() report it
+            return false;
+        }
+        for (; parseResult != null; parseResult = parseResult.subcommand()) {
+            if (parseResult.hasMatchedOption("--watch")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Responds to a command which won't be run, so has no output connection. */
+    private static void refuse(OutputStream control, String error) throws IOException {
+        control.write((NO_OUTPUT + "\n").getBytes(StandardCharsets.UTF_8));
+        respond(control, 1, error);
+    }
+
+    /**
+     * Writes a response on the control connection: a line with the exit status and the number of lines
+     * of standard error, then those lines.
+     */
+    private static void respond(OutputStream control, int exitCode, String stderr) throws IOException {
+        if (!stderr.isEmpty() && !stderr.endsWith("\n")) {
+            stderr += "\n";
+        }
+        long stderrLines = stderr.chars().filter(ch -> ch == '\n').count();
+        control.write((exitCode + " " + stderrLines + "\n" + stderr).getBytes(StandardCharsets.UTF_8));
+        control.flush();
+    }
+
+    private static void writeDaemonFile(Path daemonFile, int port, String token) throws IOException {
+        Files.deleteIfExists(daemonFile);
+        try {
+            Files.createFile(daemonFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(daemonFile);
+        }
+        Files.writeString(daemonFile, port + System.lineSeparator() + token + System.lineSeparator(),
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -17,13 +17,30 @@
 package com.github.tombentley.kafctl.command;
 
 import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
+import com.github.tombentley.kafctl.format.LowWatermark;
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.format.PartitionsOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.clients.admin.DeleteRecordsOptions;
+import org.apache.kafka.clients.admin.DeletedRecords;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
 import org.apache.kafka.clients.admin.RecordsToDelete;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
 import picocli.CommandLine;
 
 @CommandLine.Command(
@@ -34,11 +51,31 @@ public class DeleteRecords implements Runnable {
     @CommandLine.Parameters(index = "0", description = "The name of the topic to delete records from")
     String topicName;
 
-    @CommandLine.Parameters(index = "1", description = "The partition to delete records from")
-    int partition;
+    @CommandLine.Option(names = {"--partition"}, split = ",", paramLabel = "PARTITION",
+            description = "The partitions to delete records from. By default records are deleted from all partitions.")
+    Set<Integer> partitions;
 
-    @CommandLine.Parameters(index = "2", description = "The oldest offset to retain.")
-    int beforeOffset;
+    @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+    Before before;
+
+    @CommandLine.Option(names = {"--output", "-o"},
+            description = "The output format of the partitions' new low watermarks. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = PartitionsOutput.OutputFormatConverter.class,
+            completionCandidates = PartitionsOutput.OutputFormatConverter.class)
+    PartitionsOutput output;
+
+    static class Before {
+        @CommandLine.Option(names = {"--before-offset"}, required = true, paramLabel = "OFFSET",
+                description = "The oldest offset to retain in each partition.")
+        Long offset;
+
+        @CommandLine.Option(names = {"--before-timestamp"}, required = true, paramLabel = "DATETIME",
+                converter = AlterConsumerGroup.DateTimeConverter.class,
+                description = "Delete the records with a timestamp before the given ISO-8601 date-time, "
+                        + "such as 2021-07-01T09:00:00Z. Without an offset the local time zone is used.")
+        Instant timestamp;
+    }
 
     // TODO Kafka itself doesn't support a dry-run
 //    @CommandLine.Option(names = {"--dry-run"})
@@ -49,9 +86,78 @@ public class DeleteRecords implements Runnable {
 
     @Override
     public void run() {
-        adminClient.withAdmin(ac -> {
-            ac.deleteRecords(Map.of(new TopicPartition(topicName, partition), RecordsToDelete.beforeOffset(beforeOffset)), new DeleteRecordsOptions()).all().get();
+        adminClient.withAdmin(admin -> {
+            List<TopicPartition> topicPartitions = topicPartitions(admin);
+            Map<TopicPartition, RecordsToDelete> toDelete = new HashMap<>();
+            if (before.offset != null) {
+                topicPartitions.forEach(tp -> toDelete.put(tp, RecordsToDelete.beforeOffset(before.offset)));
+            } else {
+                offsetsForTimestamp(admin, topicPartitions).forEach((tp, offset) -> toDelete.put(tp, RecordsToDelete.beforeOffset(offset)));
+            }
+
+            Map<TopicPartition, KafkaFuture<DeletedRecords>> lowWatermarks = admin.deleteRecords(toDelete, new DeleteRecordsOptions()).lowWatermarks();
+            int failures = 0;
+            List<LowWatermark> deleted = new ArrayList<>(topicPartitions.size());
+            for (TopicPartition tp : topicPartitions) {
+                try {
+                    deleted.add(new LowWatermark(tp, lowWatermarks.get(tp).get().lowWatermark()));
+                } catch (ExecutionException e) {
+                    System.err.println("Unable to delete records from partition " + tp.partition() + ": " + e.getCause().getMessage());
+                    failures++;
+                }
+            }
+            try (Output out = Output.stdout()) {
+                output.describeLowWatermarks(deleted, out);
+            }
+            if (failures > 0) {
+                throw new RuntimeException("Unable to delete records from " + failures + " partition(s)");
+            }
             return null;
         });
     }
+
+    private List<TopicPartition> topicPartitions(Admin admin) throws ExecutionException, InterruptedException {
+        TopicDescription description = admin.describeTopics(List.of(topicName)).all().get().get(topicName);
+        Set<Integer> existing = description.partitions().stream()
+                .map(TopicPartitionInfo::partition)
+                .collect(Collectors.toSet());
+        if (partitions != null) {
+            List<Integer> unknown = partitions.stream()
+                    .filter(p -> !existing.contains(p))
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Topic " + topicName + " has no partition(s) " + unknown);
+            }
+        }
+        return existing.stream()
+                .filter(p -> partitions == null || partitions.contains(p))
+                .sorted()
+                .map(p -> new TopicPartition(topicName, p))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the offset of the first record at or after the timestamp in each partition, using one
+     * {@code listOffsets} call. Partitions with no such record get their latest offset, so all their records are deleted.
+     */
+    private Map<TopicPartition, Long> offsetsForTimestamp(Admin admin, List<TopicPartition> topicPartitions) throws ExecutionException, InterruptedException {
+        OffsetSpec spec = OffsetSpec.forTimestamp(before.timestamp.toEpochMilli());
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> atTime = admin.listOffsets(
+                topicPartitions.stream().collect(Collectors.toMap(tp -> tp, tp -> spec))).all().get();
+        Map<TopicPartition, Long> offsets = new TreeMap<>((a, b) -> Integer.compare(a.partition(), b.partition()));
+        List<TopicPartition> noneAfter = new ArrayList<>();
+        atTime.forEach((tp, info) -> {
+            if (info.offset() == -1L) {
+                noneAfter.add(tp);
+            } else {
+                offsets.put(tp, info.offset());
+            }
+        });
+        if (!noneAfter.isEmpty()) {
+            admin.listOffsets(noneAfter.stream().collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest())))
+                    .all().get().forEach((tp, info) -> offsets.put(tp, info.offset()));
+        }
+        return offsets;
+    }
 }
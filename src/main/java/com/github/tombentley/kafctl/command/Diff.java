@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.format.SnapshotDiff;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "diff",
+        description = "Shows the differences between two snapshots taken with `snapshot`.")
+public class Diff implements Runnable {
+
+    @CommandLine.Parameters(index = "0", description = "The earlier snapshot.")
+    File before;
+
+    @CommandLine.Parameters(index = "1", description = "The later snapshot.")
+    File after;
+
+    @Override
+    public void run() {
+        try (Output out = Output.stdout()) {
+            new SnapshotDiff(before.toPath(), after.toPath()).diff(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.format.BrokerSummaryOutput;
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.PreferredLeaderElector;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "leaders",
+        description = "Elects the preferred leader of each partition of the named topics (or all topics) "
+                + "which isn't led by it, and then reports the brokers' leader skew."
+)
+public class ElectLeaders implements Runnable {
+
+    @CommandLine.Parameters(index = "0..*", arity = "0..")
+    List<String> topicNames;
+
+    @CommandLine.Option(names = {"--output", "-o"},
+            description = "The output format of the leader skew report. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = BrokerSummaryOutput.OutputFormatConverter.class,
+            completionCandidates = BrokerSummaryOutput.OutputFormatConverter.class)
+    BrokerSummaryOutput output;
+
+    @CommandLine.Option(names = {"--dry-run"},
+            description = "Print the partitions whose leaders would be elected to standard error, without electing them.")
+    boolean dryRun;
+
+    @CommandLine.Option(names = {"--batch-size"}, defaultValue = "100",
+            description = "The maximum number of partitions to elect in each request.")
+    int batchSize;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "1",
+            description = "The maximum number of election requests to have outstanding at once.")
+    int maxInFlight;
+
+    @CommandLine.Option(names = {"--pause"}, defaultValue = "1", paramLabel = "SECONDS",
+            description = "The number of seconds to wait before sending each election request after the first.")
+    double pauseSeconds;
+
+    @CommandLine.Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics to describe in each request.")
+    int pageSize;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        adminClient.withAdmin(admin -> {
+            PartitionIndex partitions = describe(admin);
+            List<TopicPartition> electable = new ArrayList<>();
+            int unavailable = 0;
+            // Progress goes to stderr, so that stdout is just the report, in whatever format was asked for
+            PrintWriter progress = new PrintWriter(System.err, true);
+            var rows = partitions.whereNotPreferredLeader();
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                int preferred = partitions.replica(row, 0);
+                // The controller won't elect a preferred leader which isn't in the ISR
+                if (!partitions.isInIsr(row, preferred)) {
+                    unavailable++;
+                    continue;
+                }
+                electable.add(new TopicPartition(partitions.topicName(row), partitions.partition(row)));
+                if (dryRun) {
+                    progress.printf("%s/%d: %s -> %d%n", partitions.topicName(row), partitions.partition(row),
+                            partitions.leader(row) == PartitionIndex.NO_LEADER ? "none" : Integer.toString(partitions.leader(row)),
+                            preferred);
+                }
+            }
+            progress.printf("%d of %d partitions aren't led by their preferred leader", rows.cardinality(), partitions.size());
+            progress.println(unavailable == 0 ? "" : ", of which " + unavailable + " can't be elected because the preferred leader isn't in the ISR");
+            Map<TopicPartition, Throwable> failures = Map.of();
+            if (!dryRun && !electable.isEmpty()) {
+                failures = new PreferredLeaderElector(admin, batchSize, maxInFlight,
+                        Duration.ofMillis(Math.round(pauseSeconds * 1000))).elect(electable, progress);
+                failures.forEach((tp, error) -> System.err.println("Unable to elect the leader of " + tp.topic() + "/"
+                        + tp.partition() + ": " + error.getMessage()));
+                partitions = describe(admin);
+            }
+            try (Output out = Output.stdout()) {
+                report(admin, partitions, out);
+            }
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Unable to elect the preferred leader of " + failures.size() + " partition(s)");
+            }
+            return null;
+        });
+    }
+
+    /** Describes the partitions from the cluster, rather than the cache, since leadership is what's changing. */
+    private PartitionIndex describe(Admin admin) throws Exception {
+        var describer = new PagedTopicDescriber(admin, pageSize, 4);
+        PartitionIndex partitions = GetPartitions.buildIndex(admin, metadataCache, MetadataCache.Policy.refresh(), describer,
+                topicNames == null || topicNames.isEmpty() ? null : topicNames);
+        if (!describer.errors().isEmpty()) {
+            throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+        }
+        return partitions;
+    }
+
+    private void report(Admin admin, PartitionIndex partitions, Output out) throws Exception {
+        BrokerIndex brokers = BrokerIndex.build(partitions, metadataCache.describeClusterNodes(admin, MetadataCache.Policy.refresh()));
+        output.describeBrokerSummaries(brokers, brokers.brokerIds(), out);
+    }
+}
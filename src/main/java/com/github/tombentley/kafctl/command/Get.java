@@ -26,6 +26,7 @@ import picocli.CommandLine.Command;
                 GetBroker.class,
                 GetConsumerGroup.class,
                 GetConsumerGroupState.class,
+                GetPartitions.class,
                 GetContexts.class
         }
 )
@@ -20,7 +20,9 @@ import javax.inject.Inject;
 
 import com.github.tombentley.kafctl.format.DescribeClusterOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 
 /*
@@ -42,7 +44,9 @@ import picocli.CommandLine.Option;
         subcommands = {
                 GetBrokerConfig.class,
                 GetBrokerLoggers.class,
-                GetBrokerState.class
+                GetBrokerState.class,
+                GetBrokerLogDirs.class,
+                GetBrokerSummary.class
         }
 )
 public class GetBroker implements Runnable {
@@ -54,14 +58,25 @@ public class GetBroker implements Runnable {
             completionCandidates = DescribeClusterOutput.OutputFormatConverter.class)
     DescribeClusterOutput output;
 
+    @Mixin
+    CacheOptions cache;
+
+    @Mixin
+    ContextOptions contexts;
+
+    @Mixin
+    ColumnOptions columns;
+
     @Inject
     AdminClient adminClient;
 
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
-        adminClient.withAdmin(admin -> {
-            System.out.println(output.describeBrokers(admin.describeCluster().nodes().get()));
-            return null;
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            output.describeBrokers(metadataCache.describeClusterNodes(admin, cache.policy()), out);
        });
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.DescribeClusterOutput;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "log-dirs", description = "Gets the size and offset lag of the replicas in the named brokers' log dirs.")
+public class GetBrokerLogDirs implements Runnable {
+
+    @Option(names = {"--output", "-o"},
+            description = "The output format. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "json",
+            converter = DescribeClusterOutput.OutputFormatConverter.class,
+            completionCandidates = DescribeClusterOutput.OutputFormatConverter.class)
+    DescribeClusterOutput output;
+
+    @Parameters(index = "0..*", arity = "0..", description = "The brokers whose log dirs to get. Defaults to all brokers.")
+    List<Integer> brokerIds;
+
+    @Mixin
+    CacheOptions cache;
+
+    @Mixin
+    ContextOptions contexts;
+
+    @Mixin
+    ColumnOptions columns;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            Collection<Integer> ids = brokerIds == null || brokerIds.isEmpty()
+                    ? metadataCache.describeClusterNodes(admin, cache.policy()).stream().map(Node::id).sorted().collect(Collectors.toList())
+                    : brokerIds;
+            LogDirIndex index = buildIndex(admin, ids, Set.of());
+            output.describeLogDirs(index, index.dirs(ids), out);
+            checkErrors(index);
+        });
+    }
+
+    /**
+     * Describes the log dirs of the given brokers, which is done in parallel, aggregating each broker's
+     * response as it's received.
+     * @param topicNames The topics to aggregate the replicas of, or null for all topics.
+     */
+    static LogDirIndex buildIndex(Admin admin, Collection<Integer> brokerIds, Set<String> topicNames) throws InterruptedException {
+        LogDirIndex index = new LogDirIndex(topicNames);
+        Map<Integer, KafkaFuture<Map<String, LogDirDescription>>> descriptions = admin.describeLogDirs(brokerIds).descriptions();
+        for (int brokerId : brokerIds) {
+            try {
+                index.add(brokerId, descriptions.get(brokerId).get());
+            } catch (ExecutionException e) {
+                index.addError(brokerId, e.getCause().getMessage());
+            }
+        }
+        return index;
+    }
+
+    static void checkErrors(LogDirIndex index) {
+        if (!index.brokerErrors().isEmpty()) {
+            index.brokerErrors().forEach((brokerId, error) ->
+                    System.err.println("Unable to describe the log dirs of broker " + brokerId + ": " + error));
+            throw new RuntimeException("Unable to describe the log dirs of " + index.brokerErrors().size() + " broker(s)");
+        }
+    }
+}
@@ -22,7 +22,11 @@ import java.util.stream.Collectors;
 
 import com.github.tombentley.kafctl.format.DescribeClusterOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.Watcher;
+import org.apache.kafka.common.Node;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
@@ -46,36 +50,63 @@ public class GetBrokerState implements Runnable {
 
     List<String> where; // filter
     // get broker --where-broker-id=1 --show=config --show=node -oyaml
-    // get broker --where-leading=topic/1      # get the broker which is leading topic/1
-    // get broker --where-following=topic/1    # get the brokers which are following topic/1
-    // get broker --where-in-isr-of=topic/1    # get the brokers which are in the isr of topic/1
-    // get broker --where-replicating=topic/1  # get the brokers which are in the isr of topic/1
-    // get broker --where-lagging=topic/1      # get the brokers which are replicating but not in isr of topic/1
+    // --where-leading, --where-following, --where-in-isr-of, --where-replicating and --where-lagging
+    // are implemented by `get broker summary`
     // get broker --where-coordinating=txn/1
     //
     // table BROKER ID, CONFIG_KEY, CONFIG_VALUE, HOSTNAME, PORT, RACK_ID
 
-    // Then we can also use similar filter and sort on `get partitions`
-    // get partitions --where-topic-name=foo   # get the partitions for topic foo
-    // get partitions --where-leader=1         # get the partitions/replicas where broker 1 is the leader
-    // get partitions --where-follower=1       # get the partitions/replicas where broker 1 is a follower
-    // get partitions --where-no-leader        # get the partitions without a leader
-    // get partitions --where-leader=1 --where-under-replicated # partitions on broker 1 which are under-replicated
+    // Then we can also use similar filter and sort on `get partitions` (see GetPartitions)
 
     List<String> sort; // how to sort the results (default to the first where?)
     // --sort=broker_id,config_key
 
+    @Mixin
+    CacheOptions cache;
+
+    @Mixin
+    WatchOptions watch;
+
+    @Mixin
+    ContextOptions contexts;
+
+    @Mixin
+    ColumnOptions columns;
+
     @Inject
     AdminClient adminClient;
 
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
-        adminClient.withAdmin(admin -> {
+        if (watch.enabled()) {
+            contexts.requireSingle("--watch");
+        }
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
             // TODO output should be in the same order as brokerId
-            System.out.println(output.describeBrokers(admin.describeCluster().nodes().get().stream()
+            List<Node> nodes = metadataCache.describeClusterNodes(admin, cache.livePolicy()).stream()
                     .filter(node -> brokerIds.contains(node.id()))
-                    .collect(Collectors.toList())));
-            return null;
+                    .collect(Collectors.toList());
+            output.describeBrokers(nodes, out);
+            if (watch.enabled()) {
+                out.writer().flush();
+                var watcher = new Watcher(watch.interval(), out.writer());
+                var baseline = new Watcher.Rows();
+                nodes.forEach(node -> addRow(baseline, node));
+                watcher.baseline(baseline);
+                watcher.watch(rows -> admin.describeCluster().nodes().get().stream()
+                        .filter(node -> brokerIds.contains(node.id()))
+                        .forEach(node -> addRow(rows, node)));
+            }
         });
     }
+
+    private static void addRow(Watcher.Rows rows, Node node) {
+        rows.add("broker " + node.idString(),
+                "host", node.host(),
+                "port", Integer.toString(node.port()),
+                "rack", node.rack());
+    }
 }
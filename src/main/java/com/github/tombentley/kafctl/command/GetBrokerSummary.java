@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import com.github.tombentley.kafctl.format.BrokerSummaryOutput;
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "summary",
+        description = "Gets the number of partitions the named brokers (or all brokers) lead, follow and are lagging on, "
+                + "and their leader skew."
+)
+public class GetBrokerSummary implements Runnable {
+
+    @CommandLine.Option(names = {"--output", "-o"},
+            description = "The output format. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = BrokerSummaryOutput.OutputFormatConverter.class,
+            completionCandidates = BrokerSummaryOutput.OutputFormatConverter.class)
+    BrokerSummaryOutput output;
+
+    @CommandLine.Parameters(index = "0..*", arity = "0..")
+    List<Integer> brokerIds;
+
+    @CommandLine.Option(names = {"--where-leading"}, converter = TopicPartitionConverter.class, paramLabel = "TOPIC/PARTITION",
+            description = "Only the broker which is leading the given topic/partition.")
+    TopicPartition whereLeading;
+
+    @CommandLine.Option(names = {"--where-following"}, converter = TopicPartitionConverter.class, paramLabel = "TOPIC/PARTITION",
+            description = "Only the brokers which are following the given topic/partition.")
+    TopicPartition whereFollowing;
+
+    @CommandLine.Option(names = {"--where-replicating"}, converter = TopicPartitionConverter.class, paramLabel = "TOPIC/PARTITION",
+            description = "Only the brokers which are replicas of the given topic/partition.")
+    TopicPartition whereReplicating;
+
+    @CommandLine.Option(names = {"--where-in-isr-of"}, converter = TopicPartitionConverter.class, paramLabel = "TOPIC/PARTITION",
+            description = "Only the brokers which are in the ISR of the given topic/partition.")
+    TopicPartition whereInIsrOf;
+
+    @CommandLine.Option(names = {"--where-lagging"}, converter = TopicPartitionConverter.class, paramLabel = "TOPIC/PARTITION",
+            description = "Only the brokers which are replicas of, but not in the ISR of, the given topic/partition.")
+    TopicPartition whereLagging;
+
+    @CommandLine.Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics to describe in each request.")
+    int pageSize;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "4",
+            description = "The maximum number of describe requests to have outstanding at once.")
+    int maxInFlight;
+
+    @CommandLine.Mixin
+    CacheOptions cache;
+
+    @CommandLine.Mixin
+    ContextOptions contexts;
+
+    @CommandLine.Mixin
+    ColumnOptions columns;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            var describer = new PagedTopicDescriber(admin, pageSize, maxInFlight);
+            PartitionIndex partitions = GetPartitions.buildIndex(admin, metadataCache, cache.livePolicy(), describer, null);
+            BrokerIndex index = BrokerIndex.build(partitions, metadataCache.describeClusterNodes(admin, cache.livePolicy()));
+            IntPredicate selected = brokerId -> brokerIds == null || brokerIds.isEmpty() || brokerIds.contains(brokerId);
+            if (whereLeading != null) {
+                int row = row(partitions, whereLeading);
+                selected = selected.and(brokerId -> partitions.leader(row) == brokerId);
+            }
+            if (whereFollowing != null) {
+                int row = row(partitions, whereFollowing);
+                selected = selected.and(brokerId -> partitions.isReplica(row, brokerId) && partitions.leader(row) != brokerId);
+            }
+            if (whereReplicating != null) {
+                int row = row(partitions, whereReplicating);
+                selected = selected.and(brokerId -> partitions.isReplica(row, brokerId));
+            }
+            if (whereInIsrOf != null) {
+                int row = row(partitions, whereInIsrOf);
+                selected = selected.and(brokerId -> partitions.isInIsr(row, brokerId));
+            }
+            if (whereLagging != null) {
+                int row = row(partitions, whereLagging);
+                selected = selected.and(brokerId -> partitions.isReplica(row, brokerId) && !partitions.isInIsr(row, brokerId));
+            }
+            output.describeBrokerSummaries(index, Arrays.stream(index.brokerIds()).filter(selected).toArray(), out);
+            if (!describer.errors().isEmpty()) {
+                throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+            }
+        });
+    }
+
+    private static int row(PartitionIndex partitions, TopicPartition tp) {
+        int row = partitions.row(tp.topic(), tp.partition());
+        if (row == -1) {
+            throw new RuntimeException("Partition " + tp.topic() + "/" + tp.partition() + " does not exist");
+        }
+        return row;
+    }
+}
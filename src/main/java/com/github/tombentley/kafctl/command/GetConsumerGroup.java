@@ -20,6 +20,7 @@ import javax.inject.Inject;
 
 import com.github.tombentley.kafctl.format.CGroupsOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
@@ -27,10 +28,11 @@ import picocli.CommandLine.Command;
         name = "consumer-group",
         aliases = {"consumer-groups", "cg"},
         description = "When executed without a subcommand, lists the consumer group ids. " +
-                "When the `state` subcommand is given, gets the state of the listed consumer groups.",
+                "When the `state` subcommand is given, gets the state of the listed consumer groups. " +
+                "When the `lag` subcommand is given, gets the lag of the listed consumer groups.",
         subcommands = {
-                GetConsumerGroupState.class
-                // TODO `get consumer-group lag` command
+                GetConsumerGroupState.class,
+                GetConsumerGroupLag.class
         }
 )
 public class GetConsumerGroup implements Runnable {
@@ -43,14 +45,25 @@ public class GetConsumerGroup implements Runnable {
             completionCandidates = CGroupsOutput.OutputFormatConverter.class)
     CGroupsOutput output;
 
+    @CommandLine.Mixin
+    CacheOptions cache;
+
+    @CommandLine.Mixin
+    ContextOptions contexts;
+
+    @CommandLine.Mixin
+    ColumnOptions columns;
+
     @Inject
     AdminClient adminClient;
 
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
-        adminClient.withAdmin(admin -> {
-            System.out.println(output.listCGroups(admin.listConsumerGroups().all().get()));
-            return null;
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            output.listCGroups(metadataCache.listConsumerGroups(admin, cache.policy()), out);
        });
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.CGroupsOutput;
+import com.github.tombentley.kafctl.format.GroupLag;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.ConsumerGroupOffsets;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "lag",
+        description = "Gets the lag of the named consumer groups, or of all consumer groups if none are named."
+)
+public class GetConsumerGroupLag implements Runnable {
+
+    @CommandLine.Option(
+            names = {"--output", "-o"},
+            description = "The output format. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = CGroupsOutput.OutputFormatConverter.class,
+            completionCandidates = CGroupsOutput.OutputFormatConverter.class)
+    CGroupsOutput output;
+
+    @CommandLine.Option(names = {"--by"}, defaultValue = "partition",
+            description = "Whether to break down the lag by group, topic or partition. Valid values: ${COMPLETION-CANDIDATES}",
+            converter = GroupLag.DetailConverter.class,
+            completionCandidates = GroupLag.DetailConverter.class)
+    GroupLag.Detail detail;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "16",
+            description = "The maximum number of groups whose committed offsets are fetched concurrently.")
+    int maxInFlight;
+
+    @CommandLine.Parameters(index = "0..*", arity = "0..")
+    List<String> groupNames;
+
+    @CommandLine.Mixin
+    CacheOptions cache;
+
+    @CommandLine.Mixin
+    ContextOptions contexts;
+
+    @CommandLine.Mixin
+    ColumnOptions columns;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            List<String> groupIds;
+            if (groupNames == null || groupNames.isEmpty()) {
+                groupIds = metadataCache.listConsumerGroups(admin, cache.policy()).stream()
+                        .map(ConsumerGroupListing::groupId)
+                        .collect(Collectors.toList());
+            } else {
+                groupIds = groupNames;
+            }
+            var offsets = new ConsumerGroupOffsets(admin, maxInFlight);
+            Map<String, Map<TopicPartition, OffsetAndMetadata>> committed = offsets.committedOffsets(groupIds);
+            Set<TopicPartition> partitions = committed.values().stream()
+                    .flatMap(groupOffsets -> groupOffsets.keySet().stream())
+                    .collect(Collectors.toSet());
+            Map<TopicPartition, Long> endOffsets = offsets.endOffsets(partitions);
+            output.describeLags(GroupLag.of(committed, endOffsets, detail), out);
+            if (!offsets.errors().isEmpty()) {
+                throw new RuntimeException("Unable to get the committed offsets of " + offsets.errors().size() + " group(s)");
+            }
+        });
+    }
+}
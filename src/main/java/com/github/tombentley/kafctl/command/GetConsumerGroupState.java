@@ -22,13 +22,19 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import com.github.tombentley.kafctl.format.CGroupsOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.Watcher;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.ConsumerGroupListing;
 import org.apache.kafka.clients.admin.DescribeConsumerGroupsOptions;
-import org.apache.kafka.clients.admin.ListConsumerGroupsOptions;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.KafkaFuture;
 import picocli.CommandLine;
 
 @CommandLine.Command(
@@ -61,25 +67,84 @@ public class GetConsumerGroupState implements Runnable {
         @CommandLine.Parameters(index = "0..*", arity = "0..")
         List<String> groupNames;
 
+        @CommandLine.Mixin
+        CacheOptions cache;
+
+        @CommandLine.Mixin
+        WatchOptions watch;
+
+        @CommandLine.Mixin
+        ContextOptions contexts;
+
+        @CommandLine.Mixin
+        ColumnOptions columns;
+
         @Inject
         AdminClient adminClient;
 
+        @Inject
+        MetadataCache metadataCache;
+
         @Override
         public void run() {
                 // TODO table out with internal column
                 // TODO sort by internal first, then name?
 
-                adminClient.withAdmin(admin -> {
+                if (watch.enabled()) {
+                        contexts.requireSingle("--watch");
+                }
+                contexts.run(adminClient, columns.selection(), (admin, out) -> {
+                        var baseline = new Watcher.Rows();
                         if (groupNames == null || groupNames.isEmpty()) {
-                                ArrayList<ConsumerGroupListing> listing = new ArrayList<>(admin.listConsumerGroups(new ListConsumerGroupsOptions()).all().get());
+                                ArrayList<ConsumerGroupListing> listing = new ArrayList<>(metadataCache.listConsumerGroups(admin, cache.livePolicy()));
                                 listing.sort(Comparator.comparing(ConsumerGroupListing::groupId));
-                                System.out.println(output.listCGroups(listing));
+                                output.listCGroups(listing, out);
+                                listing.forEach(group -> addRow(baseline, group));
                         } else {
                                 Map<String, ConsumerGroupDescription> listing = new TreeMap<>(admin.describeConsumerGroups(groupNames, new DescribeConsumerGroupsOptions()).all().get());
-                                System.out.println(output.describeCGroups(listing));
+                                output.describeCGroups(listing, out);
+                                listing.values().forEach(group -> addRow(baseline, group));
+                        }
+                        if (watch.enabled()) {
+                                out.writer().flush();
+                                var watcher = new Watcher(watch.interval(), out.writer());
+                                watcher.baseline(baseline);
+                                watcher.watch(rows -> {
+                                        if (groupNames == null || groupNames.isEmpty()) {
+                                                admin.listConsumerGroups().all().get().stream()
+                                                        .sorted(Comparator.comparing(ConsumerGroupListing::groupId))
+                                                        .forEach(group -> addRow(rows, group));
+                                        } else {
+                                                var futures = new TreeMap<>(admin.describeConsumerGroups(groupNames).describedGroups());
+                                                for (Map.Entry<String, KafkaFuture<ConsumerGroupDescription>> entry : futures.entrySet()) {
+                                                        String key = "group " + entry.getKey();
+                                                        try {
+                                                                addRow(rows, entry.getValue().get());
+                                                        } catch (ExecutionException e) {
+                                                                System.err.println("Unable to describe group " + entry.getKey() + ": " + e.getCause().getMessage());
+                                                                rows.keep(key::equals);
+                                                        }
+                                                }
+                                        }
+                                });
                         }
-                        return null;
                 });
         }
 
+        private static void addRow(Watcher.Rows rows, ConsumerGroupListing group) {
+                rows.add("group " + group.groupId(),
+                        "state", group.state().map(ConsumerGroupState::toString).orElse("unknown"));
+        }
+
+        private static void addRow(Watcher.Rows rows, ConsumerGroupDescription group) {
+                rows.add("group " + group.groupId(),
+                        "state", group.state().toString(),
+                        "coordinator", group.coordinator().idString(),
+                        "members", group.members().stream()
+                                .map(MemberDescription::consumerId)
+                                .sorted()
+                                .collect(Collectors.joining(",")),
+                        "assignor", group.partitionAssignor());
+        }
+
 }
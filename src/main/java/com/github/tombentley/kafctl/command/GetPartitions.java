@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.PartitionsOutput;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.TopicListing;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "partitions",
+        description = "Gets the partitions matching all the given --where conditions."
+)
+public class GetPartitions implements Runnable {
+
+    @CommandLine.Option(names = {"--output", "-o"},
+            description = "The output format. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = PartitionsOutput.OutputFormatConverter.class,
+            completionCandidates = PartitionsOutput.OutputFormatConverter.class)
+    PartitionsOutput output;
+
+    @CommandLine.Option(names = {"--where-topic-name"}, split = ",", paramLabel = "TOPIC",
+            description = "Only partitions of the given topics.")
+    Set<String> whereTopicName;
+
+    @CommandLine.Option(names = {"--where-leader"}, paramLabel = "BROKER_ID",
+            description = "Only partitions led by the given broker.")
+    Integer whereLeader;
+
+    @CommandLine.Option(names = {"--where-follower"}, paramLabel = "BROKER_ID",
+            description = "Only partitions with a replica on the given broker which is not the leader.")
+    Integer whereFollower;
+
+    @CommandLine.Option(names = {"--where-replica"}, paramLabel = "BROKER_ID",
+            description = "Only partitions with a replica on the given broker.")
+    Integer whereReplica;
+
+    @CommandLine.Option(names = {"--where-in-isr"}, paramLabel = "BROKER_ID",
+            description = "Only partitions with the given broker in their ISR.")
+    Integer whereInIsr;
+
+    @CommandLine.Option(names = {"--where-lagging"}, paramLabel = "BROKER_ID",
+            description = "Only partitions with a replica on the given broker which is not in the ISR.")
+    Integer whereLagging;
+
+    @CommandLine.Option(names = {"--where-leader-rack"},
+            description = "Only partitions whose leader is in the given rack.")
+    String whereLeaderRack;
+
+    @CommandLine.Option(names = {"--where-no-leader"},
+            description = "Only partitions without a leader.")
+    boolean whereNoLeader;
+
+    @CommandLine.Option(names = {"--where-under-replicated"},
+            description = "Only partitions whose ISR is smaller than their replicas.")
+    boolean whereUnderReplicated;
+
+    @CommandLine.Option(names = {"--sort"}, split = ",", defaultValue = "topic,partition",
+            description = "The columns to sort by, in order of precedence. "
+                    + "Prefix a column with '-' to sort in descending order. "
+                    + "Valid columns: topic, partition, leader, replication-factor, isr-size, leader-rack.",
+            converter = SortConverter.class)
+    List<PartitionIndex.Sort> sort;
+
+    @CommandLine.Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics to describe in each request.")
+    int pageSize;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "4",
+            description = "The maximum number of describe requests to have outstanding at once.")
+    int maxInFlight;
+
+    @CommandLine.Mixin
+    CacheOptions cache;
+
+    @CommandLine.Mixin
+    ContextOptions contexts;
+
+    @CommandLine.Mixin
+    ColumnOptions columns;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            var describer = new PagedTopicDescriber(admin, pageSize, maxInFlight);
+            PartitionIndex index = buildIndex(admin, metadataCache, cache.livePolicy(), describer, whereTopicName);
+            BitSet rows = index.all();
+            if (whereTopicName != null) {
+                rows.and(index.whereTopic(whereTopicName));
+            }
+            if (whereLeader != null) {
+                rows.and(index.whereLeader(whereLeader));
+            }
+            if (whereFollower != null) {
+                rows.and(index.whereFollower(whereFollower));
+            }
+            if (whereReplica != null) {
+                rows.and(index.whereReplica(whereReplica));
+            }
+            if (whereInIsr != null) {
+                rows.and(index.whereInIsr(whereInIsr));
+            }
+            if (whereLagging != null) {
+                rows.and(index.whereLagging(whereLagging));
+            }
+            if (whereLeaderRack != null) {
+                rows.and(index.whereLeaderRack(whereLeaderRack));
+            }
+            if (whereNoLeader) {
+                rows.and(index.whereNoLeader());
+            }
+            if (whereUnderReplicated) {
+                rows.and(index.whereUnderReplicated());
+            }
+            output.describePartitions(index, index.sort(rows, sort), out);
+            if (!describer.errors().isEmpty()) {
+                throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+            }
+        });
+    }
+
+    /**
+     * Builds an index of the partitions of the given topics, or of all topics if {@code topicNames} is null.
+     */
+    static PartitionIndex buildIndex(Admin admin, MetadataCache metadataCache, MetadataCache.Policy policy,
+                                     PagedTopicDescriber describer, Collection<String> topicNames) throws ExecutionException, InterruptedException {
+        Collection<String> names;
+        if (topicNames == null) {
+            names = metadataCache.listTopics(admin, policy).stream()
+                    .map(TopicListing::name)
+                    .collect(Collectors.toCollection(TreeSet::new));
+        } else {
+            names = new TreeSet<>(topicNames);
+        }
+        return PartitionIndex.build(
+                metadataCache.describeTopics(describer, policy, names),
+                metadataCache.describeClusterNodes(admin, policy));
+    }
+
+    static class SortConverter implements CommandLine.ITypeConverter<PartitionIndex.Sort> {
+        @Override
+        public PartitionIndex.Sort convert(String value) {
+            boolean descending = value.startsWith("-");
+            String column = descending ? value.substring(1) : value;
+            try {
+                return new PartitionIndex.Sort(
+                        PartitionIndex.SortKey.valueOf(column.toUpperCase(Locale.ROOT).replace('-', '_')),
+                        descending);
+            } catch (IllegalArgumentException e) {
+                throw new CommandLine.TypeConversionException("Unknown sort column '" + column + "'");
+            }
+        }
+    }
+}
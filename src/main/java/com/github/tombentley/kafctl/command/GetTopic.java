@@ -19,10 +19,11 @@ package com.github.tombentley.kafctl.command;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.stream.Collectors;
 
 import com.github.tombentley.kafctl.format.TopicsOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
-import org.apache.kafka.clients.admin.ListTopicsOptions;
+import com.github.tombentley.kafctl.util.MetadataCache;
 import org.apache.kafka.clients.admin.TopicListing;
 import picocli.CommandLine;
 
@@ -32,7 +33,8 @@ import picocli.CommandLine;
         description = "Gets the named topics' state or config.",
         subcommands = {
                 GetTopicState.class,
-                GetTopicConfig.class
+                GetTopicConfig.class,
+                GetTopicSize.class
         }
 )
 public class GetTopic implements Runnable {
@@ -44,9 +46,21 @@ public class GetTopic implements Runnable {
                 completionCandidates = TopicsOutput.OutputFormatConverter.class)
         TopicsOutput output;
 
+        @CommandLine.Mixin
+        CacheOptions cache;
+
+        @CommandLine.Mixin
+        ContextOptions contexts;
+
+        @CommandLine.Mixin
+        ColumnOptions columns;
+
         @Inject
         AdminClient adminClient;
 
+        @Inject
+        MetadataCache metadataCache;
+
         @CommandLine.Option(names = {"--show-internal"}, defaultValue = "false",
                 description = "Whether to show internal topics like __consumer_offsets.")
         boolean showInternal;
@@ -56,11 +70,12 @@ public class GetTopic implements Runnable {
                 // TODO table out with internal column
                 // TODO sort by internal first, then name?
 
-                adminClient.withAdmin(admin -> {
-                        ArrayList<TopicListing> listing = new ArrayList<>(admin.listTopics(new ListTopicsOptions().listInternal(showInternal)).listings().get());
+                contexts.run(adminClient, columns.selection(), (admin, out) -> {
+                        ArrayList<TopicListing> listing = metadataCache.listTopics(admin, cache.policy()).stream()
+                                .filter(t -> showInternal || !t.isInternal())
+                                .collect(Collectors.toCollection(ArrayList::new));
                         listing.sort(Comparator.comparing(t -> t.name()));
-                        System.out.println(output.listTopics(listing));
-                        return null;
+                        output.listTopics(listing, out);
                 });
         }
 
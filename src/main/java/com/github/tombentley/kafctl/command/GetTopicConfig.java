@@ -27,6 +27,7 @@ import org.apache.kafka.clients.admin.Config;
 import org.apache.kafka.clients.admin.DescribeConfigsOptions;
 import org.apache.kafka.common.config.ConfigResource;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 
 import static picocli.CommandLine.Parameters;
@@ -49,21 +50,26 @@ public class GetTopicConfig implements Runnable {
     @Parameters(index = "0..*", arity = "1..")
     List<String> topicNames;
 
+    @Mixin
+    ContextOptions contexts;
+
+    @Mixin
+    ColumnOptions columns;
+
     @Inject
     AdminClient adminClient;
 
     @Override
     public void run() {
-        adminClient.withAdmin(admin -> {
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
             Map<ConfigResource, Config> configs = admin.describeConfigs(
                     topicNames.stream()
                             .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name))
                             .collect(Collectors.toList()),
                     new DescribeConfigsOptions()
-                            .includeDocumentation(includeDocs)
-                            .includeSynonyms(includeSynonyms)).all().get();
-            System.out.println(output.getConfigs(configs));
-            return null;
+                            .includeDocumentation(columns.wants("doc", includeDocs))
+                            .includeSynonyms(columns.wants("synonyms", includeSynonyms))).all().get();
+            output.getConfigs(configs, out);
         });
 
     }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.TopicsOutput;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import org.apache.kafka.common.Node;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "size",
+        description = "Gets the total size and offset lag of the named topics' replicas, from the brokers' log dirs.")
+public class GetTopicSize implements Runnable {
+
+    @CommandLine.Parameters(index = "0..*", arity = "0..", description = "The topics to get the size of. Defaults to all topics.")
+    List<String> topicNames;
+
+    @CommandLine.Option(names = {"--output", "-o"},
+            description = "The output format. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "table",
+            converter = TopicsOutput.OutputFormatConverter.class,
+            completionCandidates = TopicsOutput.OutputFormatConverter.class)
+    TopicsOutput output;
+
+    @CommandLine.Option(names = {"--by-partition"}, defaultValue = "false",
+            description = "Get the totals of each partition, rather than of each topic.")
+    boolean byPartition;
+
+    @CommandLine.Mixin
+    CacheOptions cache;
+
+    @CommandLine.Mixin
+    ContextOptions contexts;
+
+    @CommandLine.Mixin
+    ColumnOptions columns;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        Set<String> names = topicNames == null || topicNames.isEmpty() ? null : new HashSet<>(topicNames);
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            List<Integer> brokerIds = metadataCache.describeClusterNodes(admin, cache.policy()).stream()
+                    .map(Node::id).sorted().collect(Collectors.toList());
+            LogDirIndex index = GetBrokerLogDirs.buildIndex(admin, brokerIds, names);
+            if (byPartition) {
+                output.describePartitionSizes(index, index.partitions(), out);
+            } else {
+                output.describeTopicSizes(index, index.topics(), out);
+            }
+            GetBrokerLogDirs.checkErrors(index);
+        });
+    }
+}
@@ -19,10 +19,20 @@ package com.github.tombentley.kafctl.command;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import com.github.tombentley.kafctl.format.TopicsOutput;
 import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.Watcher;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
@@ -39,15 +49,74 @@ public class GetTopicState implements Runnable {
     @Parameters(index = "0..*", arity = "1..")
     List<String> topicNames;
 
+    @Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics to describe in each request.")
+    int pageSize;
+
+    @Option(names = {"--max-in-flight"}, defaultValue = "4",
+            description = "The maximum number of describe requests to have outstanding at once.")
+    int maxInFlight;
+
+    @Mixin
+    CacheOptions cache;
+
+    @Mixin
+    WatchOptions watch;
+
+    @Mixin
+    ContextOptions contexts;
+
+    @Mixin
+    ColumnOptions columns;
+
     @Inject
     AdminClient adminClient;
 
+    @Inject
+    MetadataCache metadataCache;
+
     @Override
     public void run() {
-        adminClient.withAdmin(admin -> {
-            var tds = new ArrayList<>(admin.describeTopics(this.topicNames).all().get().values());
-            System.out.println(output.describeTopics(tds));
-            return null;
+        if (watch.enabled()) {
+            contexts.requireSingle("--watch");
+        }
+        contexts.run(adminClient, columns.selection(), (admin, out) -> {
+            var describer = new PagedTopicDescriber(admin, pageSize, maxInFlight);
+            var names = new TreeSet<>(this.topicNames);
+            var described = metadataCache.describeTopics(describer, cache.livePolicy(), names);
+            var baseline = new Watcher.Rows();
+            Iterable<TopicDescription> tds = () -> StreamSupport.stream(described.spliterator(), false)
+                    .peek(td -> addRows(baseline, td))
+                    .iterator();
+            output.describeTopics(tds, out);
+            if (!describer.errors().isEmpty()) {
+                throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+            }
+            if (watch.enabled()) {
+                out.writer().flush();
+                var watcher = new Watcher(watch.interval(), out.writer());
+                watcher.baseline(baseline);
+                watcher.watch(rows -> {
+                    var pollDescriber = new PagedTopicDescriber(admin, pageSize, maxInFlight);
+                    pollDescriber.describe(new ArrayList<>(names)).forEachRemaining(td -> addRows(rows, td));
+                    for (String failed : pollDescriber.errors().keySet()) {
+                        rows.keep(key -> key.startsWith(failed + "/"));
+                    }
+                });
+            }
         });
     }
+
+    private static void addRows(Watcher.Rows rows, TopicDescription td) {
+        for (TopicPartitionInfo p : td.partitions()) {
+            rows.add(td.name() + "/" + p.partition(),
+                    "leader", p.leader() == null || p.leader().isEmpty() ? "none" : p.leader().idString(),
+                    "replicas", ids(p.replicas()),
+                    "isr", ids(p.isr()));
+        }
+    }
+
+    private static String ids(List<Node> nodes) {
+        return nodes.stream().map(Node::idString).collect(Collectors.joining(","));
+    }
 }
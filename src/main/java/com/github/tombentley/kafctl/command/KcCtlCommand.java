@@ -29,8 +29,14 @@ import picocli.CommandLine;
                 Alter.class,
                 Edit.class,
                 Delete.class,
+                Elect.class,
+                Plan.class,
+                Apply.class,
+                Snapshot.class,
+                Diff.class,
                 CommandLine.HelpCommand.class,
-                Completion.class
+                Completion.class,
+                Daemon.class
         }
 )
 public class KcCtlCommand {
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.BrokerBytes;
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.DiskBalancer;
+import com.github.tombentley.kafctl.util.MetadataCache;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import com.github.tombentley.kafctl.util.ReassignmentPlan;
+import org.apache.kafka.common.Node;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "rebalance",
+        description = "Plans moving replicas between brokers so that each holds about the same number of bytes, "
+                + "writing reassignment JSON which can be executed with `alter reassignment`.")
+public class PlanRebalance implements Runnable {
+
+    @CommandLine.Option(names = {"-f", "--file"},
+            description = "The file to write the reassignment JSON to. Defaults to standard output, "
+                    + "in which case the summary is written to standard error.")
+    File file;
+
+    @CommandLine.Option(names = {"--tolerance"}, defaultValue = "5", paramLabel = "PERCENT",
+            description = "How far from the mean number of bytes each broker may be.")
+    double tolerancePercent;
+
+    @CommandLine.Option(names = {"--max-moves"}, defaultValue = "2147483647",
+            description = "The maximum number of replicas to move.")
+    int maxMoves;
+
+    @CommandLine.Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics to describe in each request.")
+    int pageSize;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    MetadataCache metadataCache;
+
+    @Override
+    public void run() {
+        adminClient.withAdmin(admin -> {
+            var describer = new PagedTopicDescriber(admin, pageSize, 4);
+            PartitionIndex partitions = GetPartitions.buildIndex(admin, metadataCache, MetadataCache.Policy.refresh(), describer, null);
+            if (!describer.errors().isEmpty()) {
+                throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+            }
+            Collection<Node> brokers = metadataCache.describeClusterNodes(admin, MetadataCache.Policy.refresh());
+            LogDirIndex logDirs = GetBrokerLogDirs.buildIndex(admin,
+                    brokers.stream().map(Node::id).sorted().collect(Collectors.toList()), null);
+            GetBrokerLogDirs.checkErrors(logDirs);
+
+            DiskBalancer balancer = new DiskBalancer(partitions, logDirs, brokers);
+            ReassignmentPlan plan = balancer.plan(tolerancePercent / 100, maxMoves);
+            if (file != null) {
+                try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                    plan.write(out);
+                }
+            } else {
+                try (Output out = Output.stdout()) {
+                    plan.write(out.stream());
+                    out.writer().println();
+                }
+            }
+            List<BrokerBytes> brokerBytes = new ArrayList<>();
+            for (int brokerId : balancer.brokerIds()) {
+                brokerBytes.add(new BrokerBytes(brokerId, balancer.rack(brokerId),
+                        balancer.bytesBefore(brokerId), balancer.bytesAfter(brokerId)));
+            }
+            try (Output summary = file != null ? Output.stdout() : Output.stderr()) {
+                BrokerBytes.writeTable(brokerBytes, summary);
+                summary.writer().printf("Moving %d replicas of %d partitions, %d bytes in total%n",
+                        balancer.moves(), plan.target().size(), balancer.movedBytes());
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.format.Output;
+import com.github.tombentley.kafctl.util.ReassignmentExecutor;
+import com.github.tombentley.kafctl.util.ReassignmentPlan;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine.Option;
+
+/**
+ * Options controlling how commands which reassign partitions execute their {@link ReassignmentPlan}.
+ */
+class ReassignmentOptions {
+
+    @Option(names = {"--batch-size"}, defaultValue = "50",
+            description = "The maximum number of partitions to reassign at once.")
+    int batchSize;
+
+    @Option(names = {"--throttle"}, defaultValue = "-1", paramLabel = "BYTES_PER_SECOND",
+            description = "Limit the replication traffic of each broker involved in the reassignment to the given rate. "
+                    + "By default replication isn't throttled.")
+    long throttle;
+
+    @Option(names = {"--poll-interval"}, defaultValue = "5", paramLabel = "SECONDS",
+            description = "How often to check whether a batch of reassignments has finished.")
+    double pollSeconds;
+
+    ReassignmentOptions() {
+    }
+
+    ReassignmentOptions(int batchSize, long throttle, double pollSeconds) {
+        this.batchSize = batchSize;
+        this.throttle = throttle;
+        this.pollSeconds = pollSeconds;
+    }
+
+    /**
+     * Prints the plan as reassignment JSON if {@code dryRun}, otherwise executes it.
+     * Throws if any partition couldn't be reassigned.
+     */
+    void execute(Admin admin, ReassignmentPlan plan, boolean dryRun) throws Exception {
+        try (Output out = Output.stdout()) {
+            if (dryRun) {
+                plan.write(out.stream());
+                out.writer().println();
+                return;
+            }
+            PrintWriter writer = out.writer();
+            if (plan.isEmpty()) {
+                writer.println("No partitions need reassigning");
+                return;
+            }
+            writer.printf("Reassigning %d partitions, adding %d replicas%n", plan.target().size(), plan.addedReplicas());
+            Map<TopicPartition, Throwable> failures = new ReassignmentExecutor(admin, batchSize, throttle,
+                    Duration.ofMillis(Math.round(pollSeconds * 1000))).execute(plan, writer);
+            failures.forEach((tp, error) -> System.err.println("Unable to reassign " + tp.topic() + "/"
+                    + tp.partition() + ": " + error.getMessage()));
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Unable to reassign " + failures.size() + " partition(s)");
+            }
+        }
+    }
+}
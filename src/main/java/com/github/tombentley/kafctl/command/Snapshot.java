@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.format.SnapshotWriter;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.ConsumerGroupOffsets;
+import com.github.tombentley.kafctl.util.ContextDb;
+import com.github.tombentley.kafctl.util.PagedTopicDescriber;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.config.ConfigResource;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "snapshot",
+        description = "Saves the state of the cluster's brokers, topics and consumer groups to a file, for use with `diff`.")
+public class Snapshot implements Runnable {
+
+    @CommandLine.Parameters(index = "0", description = "The file to write the snapshot to.")
+    File file;
+
+    @CommandLine.Option(names = {"--page-size"}, defaultValue = "500",
+            description = "The maximum number of topics or groups to describe in each request.")
+    int pageSize;
+
+    @CommandLine.Option(names = {"--max-in-flight"}, defaultValue = "4",
+            description = "The maximum number of describe requests to have outstanding at once.")
+    int maxInFlight;
+
+    @Inject
+    AdminClient adminClient;
+
+    @Inject
+    ContextDb contextDb;
+
+    @Override
+    public void run() {
+        adminClient.withAdmin(admin -> {
+            try (SnapshotWriter writer = new SnapshotWriter(file.toPath(), contextDb.current().name())) {
+                List<ConfigResource> brokers = admin.describeCluster().nodes().get().stream()
+                        .map(Node::idString)
+                        .sorted()
+                        .map(id -> new ConfigResource(ConfigResource.Type.BROKER, id))
+                        .collect(Collectors.toList());
+                writeConfigs(admin, writer, brokers);
+
+                List<String> topicNames = admin.listTopics(new ListTopicsOptions().listInternal(true)).listings().get().stream()
+                        .map(TopicListing::name)
+                        .sorted()
+                        .collect(Collectors.toList());
+                var describer = new PagedTopicDescriber(admin, pageSize, maxInFlight);
+                for (Iterator<TopicDescription> it = describer.describe(topicNames); it.hasNext(); ) {
+                    writer.topic(it.next());
+                }
+                for (List<String> page : pages(topicNames)) {
+                    writeConfigs(admin, writer, page.stream()
+                            .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name))
+                            .collect(Collectors.toList()));
+                }
+
+                List<String> groupIds = admin.listConsumerGroups().all().get().stream()
+                        .map(ConsumerGroupListing::groupId)
+                        .sorted()
+                        .collect(Collectors.toList());
+                var offsets = new ConsumerGroupOffsets(admin, maxInFlight);
+                for (List<String> page : pages(groupIds)) {
+                    Map<String, ConsumerGroupDescription> groups = admin.describeConsumerGroups(page).all().get();
+                    for (String groupId : page) {
+                        writer.group(groups.get(groupId));
+                    }
+                    for (var entry : offsets.committedOffsets(page).entrySet()) {
+                        writer.offsets(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (!describer.errors().isEmpty()) {
+                    throw new RuntimeException("Unable to describe " + describer.errors().size() + " topic(s)");
+                }
+                writer.complete();
+            }
+            return null;
+        });
+    }
+
+    private static void writeConfigs(Admin admin, SnapshotWriter writer, List<ConfigResource> resources) throws Exception {
+        if (resources.isEmpty()) {
+            return;
+        }
+        Map<ConfigResource, Config> configs = admin.describeConfigs(resources).all().get();
+        for (ConfigResource resource : resources) {
+            writer.config(resource, configs.get(resource));
+        }
+    }
+
+    private <T> List<List<T>> pages(List<T> items) {
+        List<List<T>> pages = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += pageSize) {
+            pages.add(items.subList(start, Math.min(start + pageSize, items.size())));
+        }
+        return pages;
+    }
+}
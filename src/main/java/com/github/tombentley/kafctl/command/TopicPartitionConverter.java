@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import org.apache.kafka.common.TopicPartition;
+import picocli.CommandLine;
+
+/**
+ * Converts a {@code topic/partition} argument to a {@link TopicPartition}.
+ */
+class TopicPartitionConverter implements CommandLine.ITypeConverter<TopicPartition> {
+    @Override
+    public TopicPartition convert(String value) {
+        int slash = value.lastIndexOf('/');
+        if (slash <= 0 || slash == value.length() - 1) {
+            throw new CommandLine.TypeConversionException("Expected topic/partition but got '" + value + "'");
+        }
+        try {
+            return new TopicPartition(value.substring(0, slash), Integer.parseInt(value.substring(slash + 1)));
+        } catch (NumberFormatException e) {
+            throw new CommandLine.TypeConversionException("Expected topic/partition but got '" + value + "'");
+        }
+    }
+}
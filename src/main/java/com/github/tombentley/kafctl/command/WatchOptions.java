@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.time.Duration;
+
+import picocli.CommandLine.Option;
+
+/**
+ * Options for commands which can watch for changes, rather than running once.
+ */
+class WatchOptions {
+
+    @Option(names = {"--watch", "-w"},
+            description = "After the initial output, keep polling every --watch-interval, printing only what changed.")
+    boolean enabled;
+
+    @Option(names = {"--watch-interval"}, defaultValue = "2", paramLabel = "SECONDS",
+            description = "How often to poll when watching. Default: ${DEFAULT-VALUE}.")
+    int intervalSeconds;
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    Duration interval() {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("The watch interval must be positive");
+        }
+        return Duration.ofSeconds(intervalSeconds);
+    }
+}
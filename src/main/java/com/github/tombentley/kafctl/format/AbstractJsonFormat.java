@@ -16,19 +16,32 @@
  */
 package com.github.tombentley.kafctl.format;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import org.apache.kafka.clients.admin.Config;
 import org.apache.kafka.clients.admin.ConfigEntry;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
@@ -38,6 +51,7 @@ import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.clients.admin.TopicListing;
 import org.apache.kafka.common.ConsumerGroupState;
 import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.TopicPartitionInfo;
 import org.apache.kafka.common.acl.AclOperation;
 import org.apache.kafka.common.config.ConfigResource;
@@ -47,10 +61,93 @@ public abstract class AbstractJsonFormat implements
         DescribeClusterOutput,
         GetConfigsOutput,
         DescribeConfigsOutput,
-        CGroupsOutput {
+        CGroupsOutput,
+        PartitionsOutput,
+        BrokerSummaryOutput {
 
     protected abstract ObjectMapper mapper();
 
+    private volatile ObjectWriter writer;
+
+    /** The writer used by {@link #writeValues(Iterator, boolean, Output)}, created on first use. */
+    ObjectWriter writer() {
+        ObjectWriter result = writer;
+        if (result == null) {
+            result = mapper().writer()
+                    .with(Columns.ALL.filterProvider())
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            writer = result;
+        }
+        return result;
+    }
+
+    /** The writer for just the {@linkplain Output#columns() fields selected} for {@code out}. */
+    ObjectWriter writer(Output out) {
+        return out.columns().isAll() ? writer() : writer().with(out.columns().filterProvider());
+    }
+
+    /** Serializes the {@code value} to a tree using the given writer, so that its filters apply. */
+    JsonNode tree(ObjectWriter writer, Object value) {
+        TokenBuffer buffer = new TokenBuffer(mapper(), false);
+        try {
+            writer.writeValue(buffer, value);
+            return mapper().readTree(buffer.asParser());
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    /**
+     * Resolves the serializers for the types which this format writes, which are then cached by the mapper,
+     * so that the first command to use the format doesn't pay for them.
+     */
+    void prewarm() {
+        for (Class<?> type : List.of(Broker.class, Td.class, Pr.class, Bsum.class, Ldir.class, Tsize.class, Psize.class, Cfg.class, Cgl.class, Cgd.class,
+                GroupLag.class, OffsetReset.class, LowWatermark.class, String.class)) {
+            writer().forType(type);
+        }
+    }
+
+    /**
+     * Writes the {@code items} as an array, serializing one element at a time so that only the current
+     * element needs to be held in memory.
+     * If {@code unwrapSingle} is true and there is exactly one item then it's written on its own, rather than in an array.
+     * If {@code out} is collecting then the items are added to it as trees, rather than written.
+     */
+    protected <T> void writeValues(Iterator<T> items, boolean unwrapSingle, Output out) {
+        ObjectWriter writer = writer(out);
+        if (out.context() != null) {
+            items.forEachRemaining(item -> out.addObject(this, tree(writer, item)));
+            return;
+        }
+        try (JsonGenerator gen = writer.createGenerator(out.writer())) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            T first = items.hasNext() ? items.next() : null;
+            if (unwrapSingle && first != null && !items.hasNext()) {
+                writer.writeValue(gen, first);
+            } else {
+                gen.writeStartArray();
+                if (first != null) {
+                    writer.writeValue(gen, first);
+                }
+                while (items.hasNext()) {
+                    writer.writeValue(gen, items.next());
+                }
+                gen.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+        endDocument(out);
+    }
+
+    /** Terminates the document written by {@link #writeValues(Iterator, boolean, Output)}. */
+    protected void endDocument(Output out) {
+        out.writer().println();
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"brokerId", "rackId", "host", "port"})
     static class Broker {
         private final Node node;
@@ -81,40 +178,52 @@ public abstract class AbstractJsonFormat implements
     }
 
     @Override
-    public String describeCluster(String clusterId, Node controller, Collection<Node> liveBrokers, List<AclOperation> authorizedOperations) {
+    public void describeCluster(String clusterId, Node controller, Collection<Node> liveBrokers, List<AclOperation> authorizedOperations, Output out) {
         throw new RuntimeException("Impl");
     }
 
     @Override
-    public String describeBrokers(Collection<Node> liveBrokers) {
-        try {
-            return mapper().writeValueAsString(liveBrokers.stream().map(Broker::new).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void describeBrokers(Collection<Node> liveBrokers, Output out) {
+        writeValues(liveBrokers.stream().map(Broker::new).iterator(), false, out);
     }
 
     @Override
-    public String describeTopics(Collection<TopicDescription> tds) {
+    public void describeTopics(Iterable<TopicDescription> tds, Output out) {
+        writeValues(StreamSupport.stream(tds.spliterator(), false).map(Td::new).iterator(), true, out);
+    }
 
-        List<Td> list = tds.stream().map(Td::new).collect(Collectors.toList());
+    @Override
+    public void describePartitions(PartitionIndex index, int[] rows, Output out) {
+        writeValues(Arrays.stream(rows).mapToObj(row -> new Pr(index, row)).iterator(), false, out);
+    }
 
-        try {
-            return mapper().writeValueAsString(list.size() == 1 ? list.get(0) : list);
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    @Override
+    public void describeBrokerSummaries(BrokerIndex index, int[] brokerIds, Output out) {
+        writeValues(Arrays.stream(brokerIds).mapToObj(brokerId -> new Bsum(index, brokerId)).iterator(), false, out);
     }
 
     @Override
-    public String listTopics(Collection<TopicListing> listing) {
-        try {
-            return mapper().writeValueAsString(listing.stream().map(TopicListing::name).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void describeLogDirs(LogDirIndex index, int[] dirs, Output out) {
+        writeValues(Arrays.stream(dirs).mapToObj(row -> new Ldir(index, row)).iterator(), false, out);
+    }
+
+    @Override
+    public void describeTopicSizes(LogDirIndex index, int[] topics, Output out) {
+        writeValues(Arrays.stream(topics).mapToObj(row -> new Tsize(index, row)).iterator(), false, out);
+    }
+
+    @Override
+    public void describePartitionSizes(LogDirIndex index, int[] partitions, Output out) {
+        writeValues(Arrays.stream(partitions).mapToObj(row -> new Psize(index, row)).iterator(), false, out);
+    }
+
+    @Override
+    public void listTopics(Collection<TopicListing> listing, Output out) {
+        writeValues(listing.stream().map(TopicListing::name).iterator(), false, out);
     }
 
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"brokerName", "topicName", "config"})
     static class Cfg {
         private final ConfigResource cr;
@@ -142,6 +251,8 @@ public abstract class AbstractJsonFormat implements
             return new C(cfg.entries());
         }
 
+        @RegisterForReflection
+        @JsonFilter(Columns.FILTER_ID)
         static class C {
             private final Collection<ConfigEntry> cfg;
 
@@ -155,6 +266,8 @@ public abstract class AbstractJsonFormat implements
             }
         }
 
+        @RegisterForReflection
+        @JsonFilter(Columns.FILTER_ID)
         @JsonPropertyOrder({"name", "type", "value", "sensitive", "doc", "source", "default", "readOnly"})
         static class E {
             private final ConfigEntry e;
@@ -212,6 +325,8 @@ public abstract class AbstractJsonFormat implements
             }
         }
 
+        @RegisterForReflection
+        @JsonFilter(Columns.FILTER_ID)
         static class S {
             private final ConfigEntry.ConfigSynonym s;
 
@@ -237,17 +352,15 @@ public abstract class AbstractJsonFormat implements
     }
 
     @Override
-    public String getConfigs(Map<ConfigResource, Config> configs) {
-        try {
-            return mapper().writeValueAsString(configs.entrySet().stream().map(e -> new Cfg(e.getKey(), e.getValue())).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void getConfigs(Map<ConfigResource, Config> configs, Output out) {
+        writeValues(configs.entrySet().stream().map(e -> new Cfg(e.getKey(), e.getValue())).iterator(), false, out);
     }
 
     /**
      * Json wrapper for TopicDescription
      */
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"topicName", "topicId", "partitions"})
     public static class Td {
         private final TopicDescription td;
@@ -275,6 +388,8 @@ public abstract class AbstractJsonFormat implements
     /**
      * Json wrapper for TopicPartitionInfo
      */
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"partitionId", "leader", "replicas", "isr"})
     public static class Pd {
         private final TopicPartitionInfo pd;
@@ -304,6 +419,224 @@ public abstract class AbstractJsonFormat implements
         }
     }
 
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"topicName", "partitionId", "leader", "replicas", "isr"})
+    public static class Pr {
+        private final PartitionIndex index;
+        private final int row;
+
+        public Pr(PartitionIndex index, int row) {
+            this.index = index;
+            this.row = row;
+        }
+
+        @JsonProperty
+        public String topicName() {
+            return index.topicName(row);
+        }
+
+        @JsonProperty
+        public int partitionId() {
+            return index.partition(row);
+        }
+
+        @JsonProperty
+        public int leader() {
+            return index.leader(row);
+        }
+
+        @JsonProperty
+        public int[] replicas() {
+            return index.replicas(row);
+        }
+
+        @JsonProperty
+        public int[] isr() {
+            return index.isr(row);
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"brokerId", "rackId", "live", "replicas", "leaders", "preferredLeaders", "followers", "lagging", "leaderSkew"})
+    public static class Bsum {
+        private final BrokerIndex index;
+        private final int brokerId;
+
+        public Bsum(BrokerIndex index, int brokerId) {
+            this.index = index;
+            this.brokerId = brokerId;
+        }
+
+        @JsonProperty
+        public int brokerId() {
+            return brokerId;
+        }
+
+        @JsonProperty
+        public String rackId() {
+            return index.partitions().rack(brokerId);
+        }
+
+        @JsonProperty
+        public boolean live() {
+            return index.isLive(brokerId);
+        }
+
+        @JsonProperty
+        public int replicas() {
+            return index.replicaCount(brokerId);
+        }
+
+        @JsonProperty
+        public int leaders() {
+            return index.leadingCount(brokerId);
+        }
+
+        @JsonProperty
+        public int preferredLeaders() {
+            return index.preferredLeaderCount(brokerId);
+        }
+
+        @JsonProperty
+        public int followers() {
+            return index.followingCount(brokerId);
+        }
+
+        @JsonProperty
+        public int lagging() {
+            return index.laggingCount(brokerId);
+        }
+
+        @JsonProperty
+        public double leaderSkew() {
+            return index.leaderSkew(brokerId);
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"brokerId", "path", "error", "replicas", "size", "offsetLag"})
+    public static class Ldir {
+        private final LogDirIndex index;
+        private final int row;
+
+        public Ldir(LogDirIndex index, int row) {
+            this.index = index;
+            this.row = row;
+        }
+
+        @JsonProperty
+        public int brokerId() {
+            return index.dirBroker(row);
+        }
+
+        @JsonProperty
+        public String path() {
+            return index.dirPath(row);
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String error() {
+            return index.dirError(row);
+        }
+
+        @JsonProperty
+        public int replicas() {
+            return index.dirReplicas(row);
+        }
+
+        @JsonProperty
+        public long size() {
+            return index.dirSize(row);
+        }
+
+        @JsonProperty
+        public long offsetLag() {
+            return index.dirOffsetLag(row);
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"topicName", "partitions", "replicas", "size", "offsetLag"})
+    public static class Tsize {
+        private final LogDirIndex index;
+        private final int row;
+
+        public Tsize(LogDirIndex index, int row) {
+            this.index = index;
+            this.row = row;
+        }
+
+        @JsonProperty
+        public String topicName() {
+            return index.topicName(row);
+        }
+
+        @JsonProperty
+        public int partitions() {
+            return index.topicPartitions(row);
+        }
+
+        @JsonProperty
+        public int replicas() {
+            return index.topicReplicas(row);
+        }
+
+        @JsonProperty
+        public long size() {
+            return index.topicSize(row);
+        }
+
+        @JsonProperty
+        public long offsetLag() {
+            return index.topicOffsetLag(row);
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"topicName", "partitionId", "replicas", "size", "offsetLag"})
+    public static class Psize {
+        private final LogDirIndex index;
+        private final int row;
+
+        public Psize(LogDirIndex index, int row) {
+            this.index = index;
+            this.row = row;
+        }
+
+        @JsonProperty
+        public String topicName() {
+            return index.partitionTopicName(row);
+        }
+
+        @JsonProperty
+        public int partitionId() {
+            return index.partition(row);
+        }
+
+        @JsonProperty
+        public int replicas() {
+            return index.partitionReplicas(row);
+        }
+
+        @JsonProperty
+        public long size() {
+            return index.partitionSize(row);
+        }
+
+        @JsonProperty
+        public long offsetLag() {
+            return index.partitionOffsetLag(row);
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"groupId", "simple", "state"})
     public static class Cgl {
         private final ConsumerGroupListing cg;
@@ -329,14 +662,12 @@ public abstract class AbstractJsonFormat implements
     }
 
     @Override
-    public String listCGroups(Collection<ConsumerGroupListing> listing) {
-        try {
-            return mapper().writeValueAsString(listing.stream().map(Cgl::new).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void listCGroups(Collection<ConsumerGroupListing> listing, Output out) {
+        writeValues(listing.stream().map(Cgl::new).iterator(), false, out);
     }
 
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"groupId", "simple", "coordinator", "members", "partitionAssignor"})
     public static class Cgd {
         private final ConsumerGroupDescription cg;
@@ -367,10 +698,16 @@ public abstract class AbstractJsonFormat implements
 
         @JsonProperty
         public List<Mem> members() {
-            return cg.members().stream().map(Mem::new).collect(Collectors.toList());
+            // The broker returns members in no particular order, so sort them so that snapshots can be diffed
+            return cg.members().stream()
+                    .sorted(Comparator.comparing(MemberDescription::consumerId))
+                    .map(Mem::new)
+                    .collect(Collectors.toList());
         }
     }
 
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
     @JsonPropertyOrder({"consumerId", "clientId", "host", "groupInstanceId", "assignments"})
     static class Mem {
         private final MemberDescription mem;
@@ -401,25 +738,35 @@ public abstract class AbstractJsonFormat implements
 
         @JsonProperty
         public List<String> assignments() {
-            return mem.assignment().topicPartitions().stream().map(ma -> ma.topic() + "/" + ma.partition()).collect(Collectors.toList());
+            return mem.assignment().topicPartitions().stream()
+                    .sorted(Comparator.comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition))
+                    .map(ma -> ma.topic() + "/" + ma.partition())
+                    .collect(Collectors.toList());
         }
     }
 
     @Override
-    public String describeCGroups(Map<String, ConsumerGroupDescription> descriptions) {
-        try {
-            return mapper().writeValueAsString(descriptions.values().stream().map(Cgd::new).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void describeCGroups(Map<String, ConsumerGroupDescription> descriptions, Output out) {
+        writeValues(descriptions.values().stream().map(Cgd::new).iterator(), false, out);
     }
 
     @Override
-    public String describeConfigs(Collection<ConfigEntry> configs) {
-        try {
-            return mapper().writeValueAsString(configs.stream().map(Cfg.E::new).collect(Collectors.toList()));
-        } catch (JsonProcessingException e) {
-            throw new OutputException(e);
-        }
+    public void describeLags(List<GroupLag> lags, Output out) {
+        writeValues(lags.iterator(), false, out);
+    }
+
+    @Override
+    public void describeOffsetResets(List<OffsetReset> resets, Output out) {
+        writeValues(resets.iterator(), false, out);
+    }
+
+    @Override
+    public void describeLowWatermarks(List<LowWatermark> lowWatermarks, Output out) {
+        writeValues(lowWatermarks.iterator(), false, out);
+    }
+
+    @Override
+    public void describeConfigs(Collection<ConfigEntry> configs, Output out) {
+        writeValues(configs.stream().map(Cfg.E::new).iterator(), false, out);
     }
 }
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+
+/**
+ * Writes a typed table as an Apache Arrow IPC stream, for loading into analytics tools.
+ * Partitions, config entries, group members (one row per assigned partition) and lags are each a row,
+ * with integer ids and offsets, lists of broker ids for replicas and ISRs,
+ * and dictionary encoded names.
+ */
+public class ArrowFormat implements TopicsOutput, PartitionsOutput, GetConfigsOutput, CGroupsOutput {
+
+    private static Integer leader(int brokerId) {
+        return brokerId == PartitionIndex.NO_LEADER ? null : brokerId;
+    }
+
+    private static int[] ids(List<Node> nodes) {
+        return nodes.stream().mapToInt(Node::id).toArray();
+    }
+
+    @Override
+    public void describeTopics(Iterable<TopicDescription> tds, Output out) {
+        try (var writer = new ArrowWriter<Map.Entry<TopicDescription, TopicPartitionInfo>>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", e -> e.getKey().name(), true),
+                new ArrowWriter.StringColumn<>("topicId", e -> e.getKey().topicId().toString(), true),
+                new ArrowWriter.IntColumn<>("partitionId", e -> e.getValue().partition()),
+                new ArrowWriter.IntColumn<>("leader", e -> e.getValue().leader() == null || e.getValue().leader().isEmpty()
+                        ? null : e.getValue().leader().id()),
+                new ArrowWriter.IntListColumn<>("replicas", e -> ids(e.getValue().replicas())),
+                new ArrowWriter.IntListColumn<>("isr", e -> ids(e.getValue().isr()))))) {
+            for (TopicDescription td : tds) {
+                for (TopicPartitionInfo p : td.partitions()) {
+                    writer.add(Map.entry(td, p));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void listTopics(Collection<TopicListing> listing, Output out) {
+        try (var writer = new ArrowWriter<TopicListing>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", TopicListing::name, false),
+                new ArrowWriter.BoolColumn<>("internal", TopicListing::isInternal)))) {
+            listing.forEach(writer::add);
+        }
+    }
+
+    @Override
+    public void describePartitions(PartitionIndex index, int[] rows, Output out) {
+        try (var writer = new ArrowWriter<Integer>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", index::topicName, true),
+                new ArrowWriter.IntColumn<>("partitionId", index::partition),
+                new ArrowWriter.IntColumn<>("leader", row -> leader(index.leader(row))),
+                new ArrowWriter.IntListColumn<>("replicas", index::replicas),
+                new ArrowWriter.IntListColumn<>("isr", index::isr)))) {
+            for (int row : rows) {
+                writer.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void describeTopicSizes(LogDirIndex index, int[] topics, Output out) {
+        try (var writer = new ArrowWriter<Integer>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", index::topicName, false),
+                new ArrowWriter.IntColumn<>("partitions", index::topicPartitions),
+                new ArrowWriter.IntColumn<>("replicas", index::topicReplicas),
+                new ArrowWriter.LongColumn<>("size", index::topicSize),
+                new ArrowWriter.LongColumn<>("offsetLag", index::topicOffsetLag)))) {
+            for (int row : topics) {
+                writer.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void describePartitionSizes(LogDirIndex index, int[] partitions, Output out) {
+        try (var writer = new ArrowWriter<Integer>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", index::partitionTopicName, true),
+                new ArrowWriter.IntColumn<>("partitionId", index::partition),
+                new ArrowWriter.IntColumn<>("replicas", index::partitionReplicas),
+                new ArrowWriter.LongColumn<>("size", index::partitionSize),
+                new ArrowWriter.LongColumn<>("offsetLag", index::partitionOffsetLag)))) {
+            for (int row : partitions) {
+                writer.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void getConfigs(Map<ConfigResource, Config> configs, Output out) {
+        try (var writer = new ArrowWriter<Map.Entry<ConfigResource, ConfigEntry>>(out, List.of(
+                new ArrowWriter.StringColumn<>("resourceType", e -> e.getKey().type().name(), true),
+                new ArrowWriter.StringColumn<>("resourceName", e -> e.getKey().name(), true),
+                new ArrowWriter.StringColumn<>("name", e -> e.getValue().name(), true),
+                new ArrowWriter.StringColumn<>("value", e -> e.getValue().value(), false),
+                new ArrowWriter.StringColumn<>("source", e -> e.getValue().source().name(), true),
+                new ArrowWriter.BoolColumn<>("default", e -> e.getValue().isDefault()),
+                new ArrowWriter.BoolColumn<>("readOnly", e -> e.getValue().isReadOnly()),
+                new ArrowWriter.BoolColumn<>("sensitive", e -> e.getValue().isSensitive())))) {
+            configs.forEach((resource, config) -> config.entries().stream()
+                    .sorted(Comparator.comparing(ConfigEntry::name))
+                    .forEach(entry -> writer.add(Map.entry(resource, entry))));
+        }
+    }
+
+    @Override
+    public void listCGroups(Collection<ConsumerGroupListing> listing, Output out) {
+        try (var writer = new ArrowWriter<ConsumerGroupListing>(out, List.of(
+                new ArrowWriter.StringColumn<>("groupId", ConsumerGroupListing::groupId, false),
+                new ArrowWriter.BoolColumn<>("simple", ConsumerGroupListing::isSimpleConsumerGroup),
+                new ArrowWriter.StringColumn<>("state", cg -> cg.state().map(Enum::name).orElse(null), true)))) {
+            listing.forEach(writer::add);
+        }
+    }
+
+    /**
+     * A partition assigned to a member of a group.
+     * The member is null for a group without members, and the partition is null for a member without assignments.
+     */
+    private static class Assignment {
+        final ConsumerGroupDescription group;
+        final MemberDescription member;
+        final TopicPartition partition;
+
+        Assignment(ConsumerGroupDescription group, MemberDescription member, TopicPartition partition) {
+            this.group = group;
+            this.member = member;
+            this.partition = partition;
+        }
+    }
+
+    @Override
+    public void describeCGroups(Map<String, ConsumerGroupDescription> descriptions, Output out) {
+        try (var writer = new ArrowWriter<Assignment>(out, List.of(
+                new ArrowWriter.StringColumn<>("groupId", a -> a.group.groupId(), true),
+                new ArrowWriter.BoolColumn<>("simple", a -> a.group.isSimpleConsumerGroup()),
+                new ArrowWriter.StringColumn<>("state", a -> a.group.state().name(), true),
+                new ArrowWriter.IntColumn<>("coordinator", a -> a.group.coordinator().id()),
+                new ArrowWriter.StringColumn<>("partitionAssignor", a -> a.group.partitionAssignor(), true),
+                new ArrowWriter.StringColumn<>("consumerId", a -> a.member == null ? null : a.member.consumerId(), true),
+                new ArrowWriter.StringColumn<>("clientId", a -> a.member == null ? null : a.member.clientId(), true),
+                new ArrowWriter.StringColumn<>("host", a -> a.member == null ? null : a.member.host(), true),
+                new ArrowWriter.StringColumn<>("topicName", a -> a.partition == null ? null : a.partition.topic(), true),
+                new ArrowWriter.IntColumn<>("partitionId", a -> a.partition == null ? null : a.partition.partition())))) {
+            descriptions.values().stream().sorted(Comparator.comparing(ConsumerGroupDescription::groupId)).forEach(group -> {
+                if (group.members().isEmpty()) {
+                    writer.add(new Assignment(group, null, null));
+                }
+                for (MemberDescription member : group.members()) {
+                    if (member.assignment().topicPartitions().isEmpty()) {
+                        writer.add(new Assignment(group, member, null));
+                    }
+                    for (TopicPartition partition : member.assignment().topicPartitions()) {
+                        writer.add(new Assignment(group, member, partition));
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void describeLags(List<GroupLag> lags, Output out) {
+        try (var writer = new ArrowWriter<GroupLag.Row>(out, List.of(
+                new ArrowWriter.StringColumn<>("groupId", row -> row.groupId, true),
+                new ArrowWriter.StringColumn<>("topicName", row -> row.topicName, true),
+                new ArrowWriter.IntColumn<>("partitionId", row -> row.partition == null ? null : row.partition.partitionId()),
+                new ArrowWriter.LongColumn<>("committedOffset", row -> row.partition == null ? null : row.partition.committedOffset()),
+                new ArrowWriter.LongColumn<>("endOffset", row -> row.partition == null ? null : row.partition.endOffset()),
+                new ArrowWriter.LongColumn<>("lag", row -> row.lag)))) {
+            GroupLag.forEachRow(lags, writer::add);
+        }
+    }
+
+    @Override
+    public void describeOffsetResets(List<OffsetReset> resets, Output out) {
+        try (var writer = new ArrowWriter<OffsetReset>(out, List.of(
+                new ArrowWriter.StringColumn<>("groupId", OffsetReset::groupId, true),
+                new ArrowWriter.StringColumn<>("topicName", OffsetReset::topicName, true),
+                new ArrowWriter.IntColumn<>("partitionId", OffsetReset::partitionId),
+                new ArrowWriter.LongColumn<>("currentOffset", OffsetReset::currentOffset),
+                new ArrowWriter.LongColumn<>("newOffset", OffsetReset::newOffset)))) {
+            resets.forEach(writer::add);
+        }
+    }
+
+    @Override
+    public void describeLowWatermarks(List<LowWatermark> lowWatermarks, Output out) {
+        try (var writer = new ArrowWriter<LowWatermark>(out, List.of(
+                new ArrowWriter.StringColumn<>("topicName", LowWatermark::topicName, true),
+                new ArrowWriter.IntColumn<>("partitionId", LowWatermark::partitionId),
+                new ArrowWriter.LongColumn<>("lowWatermark", LowWatermark::lowWatermark)))) {
+            lowWatermarks.forEach(writer::add);
+        }
+    }
+}
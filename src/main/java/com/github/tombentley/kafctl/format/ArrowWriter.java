@@ -0,0 +1,607 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import org.apache.arrow.flatbuf.Bool;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.DictionaryBatch;
+import org.apache.arrow.flatbuf.DictionaryEncoding;
+import org.apache.arrow.flatbuf.DictionaryKind;
+import org.apache.arrow.flatbuf.Endianness;
+import org.apache.arrow.flatbuf.Field;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.Int;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.flatbuf.MetadataVersion;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.flatbuf.Schema;
+import org.apache.arrow.flatbuf.Type;
+import org.apache.arrow.flatbuf.Utf8;
+
+/**
+ * Writes rows in the <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-streaming-format">Arrow IPC
+ * streaming format</a>: a schema message followed by record batches of at most {@code batchSize} rows,
+ * so that only a batch of rows needs to be held in memory.
+ * Only the {@linkplain Output#columns() selected columns} are computed and written.
+ * Strings with few distinct values (topic names, group ids, config names) can be dictionary encoded,
+ * in which case each record batch is preceded by a dictionary batch of the values first used in it.
+ * @param <T> The type of the rows.
+ */
+class ArrowWriter<T> implements AutoCloseable {
+
+    static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final byte[] PADDING = new byte[8];
+
+    /** A column of the output, which accumulates the values of the current batch. */
+    abstract static class Column<T> {
+        final String name;
+        final Buf validity = new Buf();
+        int nullCount;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        /** Adds the value of the column for the given row, which is the {@code index}th of the batch. */
+        abstract void add(T row, int index);
+
+        /** Adds this column's {@code Field} to the schema being built, returning its offset. */
+        int field(FlatBufferBuilder builder, long dictionaryId) {
+            int nameOffset = builder.createString(name);
+            int type = type(builder);
+            int children = Field.createChildrenVector(builder, children(builder));
+            return Field.createField(builder, nameOffset, true, typeType(), type, 0, children, 0);
+        }
+
+        abstract byte typeType();
+
+        abstract int type(FlatBufferBuilder builder);
+
+        int[] children(FlatBufferBuilder builder) {
+            return new int[0];
+        }
+
+        /** Marks the {@code index}th value of the batch as valid or, if {@code valid} is false, as null. */
+        void valid(int index, boolean valid) {
+            validity.ensureBits(index + 1);
+            if (valid) {
+                validity.setBit(index);
+            } else {
+                nullCount++;
+            }
+        }
+
+        /** Adds the field nodes and buffers of the batch, of {@code length} rows, to the {@code batch}. */
+        abstract void writeBatch(Batch batch, int length);
+
+        /** Adds the validity buffer of the batch, which is omitted when there are no nulls. */
+        void writeValidity(Batch batch, int length) {
+            batch.node(length, nullCount);
+            batch.buffer(nullCount == 0 ? Buf.EMPTY : validity);
+        }
+
+        void clear() {
+            validity.clear();
+            nullCount = 0;
+        }
+    }
+
+    /** A 32-bit integer column, whose values are null when the getter returns null. */
+    static class IntColumn<T> extends Column<T> {
+        private final Function<T, Integer> getter;
+        private final Buf values = new Buf();
+
+        IntColumn(String name, Function<T, Integer> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void add(T row, int index) {
+            Integer value = getter.apply(row);
+            valid(index, value != null);
+            values.putInt(value == null ? 0 : value);
+        }
+
+        @Override
+        byte typeType() {
+            return Type.Int;
+        }
+
+        @Override
+        int type(FlatBufferBuilder builder) {
+            return Int.createInt(builder, 32, true);
+        }
+
+        @Override
+        void writeBatch(Batch batch, int length) {
+            writeValidity(batch, length);
+            batch.buffer(values);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            values.clear();
+        }
+    }
+
+    /** A 64-bit integer column, whose values are null when the getter returns null. */
+    static class LongColumn<T> extends Column<T> {
+        private final Function<T, Long> getter;
+        private final Buf values = new Buf();
+
+        LongColumn(String name, Function<T, Long> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void add(T row, int index) {
+            Long value = getter.apply(row);
+            valid(index, value != null);
+            values.putLong(value == null ? 0 : value);
+        }
+
+        @Override
+        byte typeType() {
+            return Type.Int;
+        }
+
+        @Override
+        int type(FlatBufferBuilder builder) {
+            return Int.createInt(builder, 64, true);
+        }
+
+        @Override
+        void writeBatch(Batch batch, int length) {
+            writeValidity(batch, length);
+            batch.buffer(values);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            values.clear();
+        }
+    }
+
+    /** A boolean column, without nulls. */
+    static class BoolColumn<T> extends Column<T> {
+        private final Predicate<T> getter;
+        private final Buf values = new Buf();
+
+        BoolColumn(String name, Predicate<T> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void add(T row, int index) {
+            values.ensureBits(index + 1);
+            if (getter.test(row)) {
+                values.setBit(index);
+            }
+        }
+
+        @Override
+        byte typeType() {
+            return Type.Bool;
+        }
+
+        @Override
+        int type(FlatBufferBuilder builder) {
+            Bool.startBool(builder);
+            return Bool.endBool(builder);
+        }
+
+        @Override
+        void writeBatch(Batch batch, int length) {
+            writeValidity(batch, length);
+            batch.buffer(values);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            values.clear();
+        }
+    }
+
+    /** A list of 32-bit integers column, without nulls. */
+    static class IntListColumn<T> extends Column<T> {
+        private final Function<T, int[]> getter;
+        private final Buf offsets = new Buf();
+        private final Buf values = new Buf();
+        private int count;
+
+        IntListColumn(String name, Function<T, int[]> getter) {
+            super(name);
+            this.getter = getter;
+            offsets.putInt(0);
+        }
+
+        @Override
+        void add(T row, int index) {
+            for (int value : getter.apply(row)) {
+                values.putInt(value);
+                count++;
+            }
+            offsets.putInt(count);
+        }
+
+        @Override
+        byte typeType() {
+            return Type.List;
+        }
+
+        @Override
+        int type(FlatBufferBuilder builder) {
+            org.apache.arrow.flatbuf.List.startList(builder);
+            return org.apache.arrow.flatbuf.List.endList(builder);
+        }
+
+        @Override
+        int[] children(FlatBufferBuilder builder) {
+            int itemName = builder.createString("item");
+            int itemType = Int.createInt(builder, 32, true);
+            int noChildren = Field.createChildrenVector(builder, new int[0]);
+            return new int[]{Field.createField(builder, itemName, false, Type.Int, itemType, 0, noChildren, 0)};
+        }
+
+        @Override
+        void writeBatch(Batch batch, int length) {
+            writeValidity(batch, length);
+            batch.buffer(offsets);
+            batch.node(count, 0);
+            batch.buffer(Buf.EMPTY);
+            batch.buffer(values);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            offsets.clear();
+            offsets.putInt(0);
+            values.clear();
+            count = 0;
+        }
+    }
+
+    /**
+     * A UTF-8 string column, whose values are null when the getter returns null.
+     * If it's a {@code dictionary} column then the values in the record batches are indexes into a dictionary,
+     * which is written in dictionary batches.
+     */
+    static class StringColumn<T> extends Column<T> {
+        private final Function<T, String> getter;
+        private final Map<String, Integer> dictionary;
+        private final Buf offsets = new Buf();
+        private final Buf data = new Buf();
+        private final Buf indexes;
+        private int newValues;
+        private boolean dictionaryWritten;
+
+        StringColumn(String name, Function<T, String> getter, boolean dictionary) {
+            super(name);
+            this.getter = getter;
+            this.dictionary = dictionary ? new HashMap<>() : null;
+            this.indexes = dictionary ? new Buf() : null;
+            offsets.putInt(0);
+        }
+
+        @Override
+        void add(T row, int index) {
+            String value = getter.apply(row);
+            valid(index, value != null);
+            if (dictionary == null) {
+                if (value != null) {
+                    data.putBytes(value.getBytes(StandardCharsets.UTF_8));
+                }
+                offsets.putInt(data.size);
+                return;
+            }
+            int id = 0;
+            if (value != null) {
+                id = dictionary.computeIfAbsent(value, v -> {
+                    data.putBytes(v.getBytes(StandardCharsets.UTF_8));
+                    offsets.putInt(data.size);
+                    newValues++;
+                    return dictionary.size();
+                });
+            }
+            indexes.putInt(id);
+        }
+
+        @Override
+        int field(FlatBufferBuilder builder, long dictionaryId) {
+            if (dictionary == null) {
+                return super.field(builder, dictionaryId);
+            }
+            int nameOffset = builder.createString(name);
+            int type = type(builder);
+            int indexType = Int.createInt(builder, 32, true);
+            int encoding = DictionaryEncoding.createDictionaryEncoding(builder, dictionaryId, indexType, false, DictionaryKind.DenseArray);
+            int children = Field.createChildrenVector(builder, new int[0]);
+            return Field.createField(builder, nameOffset, true, typeType(), type, encoding, children, 0);
+        }
+
+        @Override
+        byte typeType() {
+            return Type.Utf8;
+        }
+
+        @Override
+        int type(FlatBufferBuilder builder) {
+            Utf8.startUtf8(builder);
+            return Utf8.endUtf8(builder);
+        }
+
+        /**
+         * Whether a dictionary batch needs to be written before the next record batch:
+         * the first dictionary batch is always written, and then only when there are new values.
+         */
+        boolean hasDictionaryBatch() {
+            return dictionary != null && (!dictionaryWritten || newValues > 0);
+        }
+
+        /** Adds the values new to the dictionary to the {@code batch}, returning whether it's a delta. */
+        boolean writeDictionaryBatch(Batch batch) {
+            batch.node(newValues, 0);
+            batch.buffer(Buf.EMPTY);
+            batch.buffer(offsets);
+            batch.buffer(data);
+            boolean delta = dictionaryWritten;
+            dictionaryWritten = true;
+            return delta;
+        }
+
+        @Override
+        void writeBatch(Batch batch, int length) {
+            writeValidity(batch, length);
+            if (dictionary == null) {
+                batch.buffer(offsets);
+                batch.buffer(data);
+            } else {
+                batch.buffer(indexes);
+            }
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            offsets.clear();
+            offsets.putInt(0);
+            data.clear();
+            newValues = 0;
+            if (indexes != null) {
+                indexes.clear();
+            }
+        }
+    }
+
+    /** A growable little-endian byte buffer. */
+    static class Buf {
+        static final Buf EMPTY = new Buf();
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) value;
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 24);
+        }
+
+        void putLong(long value) {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        void putBytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        /** Grows the buffer, with zeros, to hold the given number of bits. */
+        void ensureBits(int bits) {
+            int length = (bits + 7) >>> 3;
+            if (length > size) {
+                ensure(length - size);
+                size = length;
+            }
+        }
+
+        void setBit(int index) {
+            bytes[index >>> 3] |= 1 << (index & 7);
+        }
+
+        void clear() {
+            Arrays.fill(bytes, 0, size, (byte) 0);
+            size = 0;
+        }
+    }
+
+    /** The field nodes and buffers of a record batch. */
+    static class Batch {
+        private final List<long[]> nodes = new ArrayList<>();
+        private final List<Buf> buffers = new ArrayList<>();
+
+        void node(long length, long nullCount) {
+            nodes.add(new long[]{length, nullCount});
+        }
+
+        void buffer(Buf buffer) {
+            buffers.add(buffer);
+        }
+    }
+
+    private final OutputStream out;
+    private final List<Column<T>> columns;
+    private final int batchSize;
+    private int rows;
+
+    ArrowWriter(Output out, List<Column<T>> columns) {
+        this(out, columns, DEFAULT_BATCH_SIZE);
+    }
+
+    ArrowWriter(Output out, List<Column<T>> columns, int batchSize) {
+        this.out = out.stream();
+        this.columns = out.columns().select(columns, column -> column.name);
+        this.batchSize = batchSize;
+        writeSchema();
+    }
+
+    void add(T row) {
+        for (Column<T> column : columns) {
+            column.add(row, rows);
+        }
+        if (++rows == batchSize) {
+            flushBatch();
+        }
+    }
+
+    private void writeSchema() {
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        int[] fields = new int[columns.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = columns.get(i).field(builder, i);
+        }
+        int schema = Schema.createSchema(builder, Endianness.Little, Schema.createFieldsVector(builder, fields), 0, 0);
+        writeMessage(builder, MessageHeader.Schema, schema, new Batch());
+    }
+
+    private void flushBatch() {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i) instanceof StringColumn && ((StringColumn<T>) columns.get(i)).hasDictionaryBatch()) {
+                writeDictionaryBatch(i, (StringColumn<T>) columns.get(i));
+            }
+        }
+        Batch batch = new Batch();
+        for (Column<T> column : columns) {
+            column.writeBatch(batch, rows);
+        }
+        FlatBufferBuilder builder = new FlatBufferBuilder(256);
+        writeMessage(builder, MessageHeader.RecordBatch, recordBatch(builder, rows, batch), batch);
+        columns.forEach(Column::clear);
+        rows = 0;
+    }
+
+    /** The dictionary of a column has the column's index as its id. */
+    private void writeDictionaryBatch(int id, StringColumn<T> column) {
+        Batch batch = new Batch();
+        int length = column.newValues;
+        boolean delta = column.writeDictionaryBatch(batch);
+        FlatBufferBuilder builder = new FlatBufferBuilder(256);
+        int data = recordBatch(builder, length, batch);
+        writeMessage(builder, MessageHeader.DictionaryBatch, DictionaryBatch.createDictionaryBatch(builder, id, data, delta), batch);
+    }
+
+    private static int recordBatch(FlatBufferBuilder builder, int length, Batch batch) {
+        RecordBatch.startNodesVector(builder, batch.nodes.size());
+        for (int i = batch.nodes.size() - 1; i >= 0; i--) {
+            FieldNode.createFieldNode(builder, batch.nodes.get(i)[0], batch.nodes.get(i)[1]);
+        }
+        int nodes = builder.endVector();
+        long[] offsets = bodyOffsets(batch);
+        RecordBatch.startBuffersVector(builder, batch.buffers.size());
+        for (int i = batch.buffers.size() - 1; i >= 0; i--) {
+            Buffer.createBuffer(builder, offsets[i], batch.buffers.get(i).size);
+        }
+        int buffers = builder.endVector();
+        return RecordBatch.createRecordBatch(builder, length, nodes, buffers, 0);
+    }
+
+    /** The offset of each buffer in the message body, with each buffer padded to a multiple of 8 bytes. */
+    private static long[] bodyOffsets(Batch batch) {
+        long[] offsets = new long[batch.buffers.size() + 1];
+        for (int i = 0; i < batch.buffers.size(); i++) {
+            offsets[i + 1] = offsets[i] + padded(batch.buffers.get(i).size);
+        }
+        return offsets;
+    }
+
+    private static int padded(int length) {
+        return (length + 7) & ~7;
+    }
+
+    /** Writes an encapsulated message: its length prefixed metadata, padded to 8 bytes, and then its body. */
+    private void writeMessage(FlatBufferBuilder builder, byte headerType, int header, Batch batch) {
+        long bodyLength = bodyOffsets(batch)[batch.buffers.size()];
+        builder.finish(Message.createMessage(builder, MetadataVersion.V5, headerType, header, bodyLength, 0));
+        byte[] metadata = builder.sizedByteArray();
+        int metadataLength = padded(metadata.length);
+        try {
+            writeInt(CONTINUATION);
+            writeInt(metadataLength);
+            out.write(metadata);
+            out.write(PADDING, 0, metadataLength - metadata.length);
+            for (Buf buffer : batch.buffers) {
+                out.write(buffer.bytes, 0, buffer.size);
+                out.write(PADDING, 0, padded(buffer.size) - buffer.size);
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    /** Writes the last batch, if it's not empty, and the end of stream marker. */
+    @Override
+    public void close() {
+        if (rows > 0) {
+            flushBatch();
+        }
+        try {
+            writeInt(CONTINUATION);
+            writeInt(0);
+            out.flush();
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+}
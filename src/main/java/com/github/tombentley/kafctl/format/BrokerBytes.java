@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.List;
+
+/**
+ * The number of bytes a broker holds before and after a planned rebalance.
+ */
+public class BrokerBytes {
+
+    private final int brokerId;
+    private final String rack;
+    private final long before;
+    private final long after;
+
+    public BrokerBytes(int brokerId, String rack, long before, long after) {
+        this.brokerId = brokerId;
+        this.rack = rack;
+        this.before = before;
+        this.after = after;
+    }
+
+    static List<TableWriter.Column<BrokerBytes>> columns() {
+        return List.of(
+                new TableWriter.Column<>("BROKER ID", row -> Integer.toString(row.brokerId)),
+                new TableWriter.Column<>("RACK", row -> row.rack),
+                new TableWriter.Column<>("BYTES BEFORE", row -> Long.toString(row.before)),
+                new TableWriter.Column<>("BYTES AFTER", row -> Long.toString(row.after)));
+    }
+
+    /** Writes the given brokers as a table. */
+    public static void writeTable(List<BrokerBytes> brokers, Output out) {
+        try (var table = new TableWriter<BrokerBytes>(out, columns())) {
+            brokers.forEach(table::add);
+        }
+    }
+}
@@ -17,23 +17,31 @@
 package com.github.tombentley.kafctl.format;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.ConsumerGroupListing;
 
 public interface CGroupsOutput {
-    String listCGroups(Collection<ConsumerGroupListing> listing);
+    void listCGroups(Collection<ConsumerGroupListing> listing, Output out);
 
-    String describeCGroups(Map<String, ConsumerGroupDescription> listing);
+    void describeCGroups(Map<String, ConsumerGroupDescription> listing, Output out);
+
+    void describeLags(List<GroupLag> lags, Output out);
+
+    /** Writes a plan for resetting groups' committed offsets. */
+    void describeOffsetResets(List<OffsetReset> resets, Output out);
 
     class OutputFormatConverter extends AbstractEnumeratedOption<CGroupsOutput> {
         @Override
         protected Map<String, CGroupsOutput> map() {
             return Map.of(
-                    "json", new JsonFormat(),
-                    "yaml", new YamlFormat(),
-                    "table", new TableFormat());
+                    "json", Formats.JSON,
+                    "ndjson", Formats.NDJSON,
+                    "arrow", Formats.ARROW,
+                    "yaml", Formats.YAML,
+                    "table", Formats.TABLE);
         }
     }
 }
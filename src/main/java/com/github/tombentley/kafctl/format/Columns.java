@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * A selection of the columns (for tabular formats) or fields (for JSON-like formats) to output.
+ * Names are matched ignoring case, punctuation and a trailing "name", so {@code topic}, {@code TOPIC},
+ * {@code topicName} and {@code topic-name} all select the same column, as do {@code PARTITION ID} and {@code partitionId}.
+ * Columns which aren't selected aren't computed at all.
+ */
+public final class Columns {
+
+    /** The id of the Jackson filter which the wrapper classes of the JSON-like formats are annotated with. */
+    static final String FILTER_ID = "columns";
+
+    public static final Columns ALL = new Columns(null);
+
+    private final Set<String> keys;
+    private final FilterProvider filterProvider;
+
+    private Columns(Set<String> keys) {
+        this.keys = keys;
+        SimpleFilterProvider provider = new SimpleFilterProvider().setFailOnUnknownId(false);
+        if (keys != null) {
+            provider.addFilter(FILTER_ID, new Filter());
+        }
+        this.filterProvider = provider;
+    }
+
+    /** The given columns, or all of them if {@code names} is null or empty. */
+    public static Columns of(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return ALL;
+        }
+        return new Columns(names.stream().map(Columns::key).collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    static String key(String name) {
+        String key = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        return key.endsWith("name") && key.length() > 4 ? key.substring(0, key.length() - 4) : key;
+    }
+
+    public boolean isAll() {
+        return keys == null;
+    }
+
+    /** Whether the named column is to be output, either because it was selected or because all columns are. */
+    public boolean includes(String name) {
+        return keys == null || keys.contains(key(name));
+    }
+
+    /**
+     * Whether the named column was explicitly selected.
+     * This is what decides whether optional data, like config documentation, is requested from the cluster.
+     */
+    public boolean selects(String name) {
+        return keys != null && keys.contains(key(name));
+    }
+
+    /**
+     * The selected {@code columns}, in their given order.
+     * @throws OutputException If none of the columns are selected, since that's surely a mistake.
+     */
+    <C> List<C> select(List<C> columns, Function<C, String> name) {
+        if (keys == null) {
+            return columns;
+        }
+        List<C> result = columns.stream().filter(column -> includes(name.apply(column))).collect(Collectors.toList());
+        if (result.isEmpty()) {
+            throw new OutputException("None of the columns " + String.join(",", keys) + " are available. Available columns: "
+                    + columns.stream().map(name).map(Columns::key).collect(Collectors.joining(",")));
+        }
+        return result;
+    }
+
+    /**
+     * The Jackson filters for serializing just the selected properties.
+     * Properties whose values are objects, or collections of objects, are always included, so that the selected
+     * properties nested within them can be.
+     */
+    FilterProvider filterProvider() {
+        return filterProvider;
+    }
+
+    private class Filter extends SimpleBeanPropertyFilter {
+        @Override
+        protected boolean include(PropertyWriter writer) {
+            return includes(writer.getName()) || isNested(writer.getType());
+        }
+
+        private boolean isNested(JavaType type) {
+            if (type.isReferenceType()) {
+                return isNested(type.getReferencedType());
+            } else if (type.isContainerType()) {
+                return type.getContentType() != null && isNested(type.getContentType());
+            }
+            return !(type.isPrimitive()
+                    || type.isEnumType()
+                    || type.isTypeOrSubTypeOf(CharSequence.class)
+                    || type.isTypeOrSubTypeOf(Number.class)
+                    || type.hasRawClass(Boolean.class)
+                    || type.hasRawClass(Optional.class));
+        }
+    }
+}
@@ -16,6 +16,8 @@
  */
 package com.github.tombentley.kafctl.format;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -24,14 +26,18 @@ import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.github.freva.asciitable.AsciiTable;
 import com.github.freva.asciitable.Column;
 import com.github.freva.asciitable.HorizontalAlign;
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.ConsumerGroupListing;
 import org.apache.kafka.clients.admin.TopicDescription;
@@ -39,24 +45,34 @@ import org.apache.kafka.clients.admin.TopicListing;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartitionInfo;
 
-public class CsvFormat implements TopicsOutput, CGroupsOutput {
+public class CsvFormat implements TopicsOutput, CGroupsOutput, PartitionsOutput, BrokerSummaryOutput {
+
+    private static class Holder {
+        static final CsvMapper MAPPER = new CsvMapper();
+        static final CsvSchema PARTITION_SCHEMA = MAPPER.schemaFor(Partition.class);
+    }
+
+    /** The shared mapper, which is also used to merge the CSV output of several contexts. */
+    static CsvMapper mapper() {
+        return Holder.MAPPER;
+    }
+
+    /** Creates the mapper and the partition schema ahead of their first use. */
+    void prewarm() {
+        Holder.MAPPER.writer(Holder.PARTITION_SCHEMA);
+    }
+
     @Override
-    public String describeTopics(Collection<TopicDescription> tds) {
-        var topics = tds.stream()
-                .flatMap(t -> t.partitions().stream().map(p -> new Partition(t, p)))
-                .sorted(Comparator.comparing(Partition::topicName))
-                .collect(Collectors.toList());
-
-        CsvMapper mapper = new CsvMapper();
-        CsvSchema columns = mapper.schemaFor(Partition.class).withUseHeader(true);
-        ObjectWriter objectWriter = mapper.writer(columns);
-        return topics.stream().map(value -> {
-            try {
-                return objectWriter.writeValueAsString(value);
-            } catch (JsonProcessingException e) {
-                throw new OutputException(e);
+    public void describeTopics(Iterable<TopicDescription> tds, Output out) {
+        try (CsvRows rows = new CsvRows(Holder.MAPPER, select(Holder.PARTITION_SCHEMA, out.columns()), out)) {
+            for (TopicDescription td : tds) {
+                for (TopicPartitionInfo p : td.partitions()) {
+                    rows.write(new Partition(td, p));
+                }
             }
-        }).collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
 
 //        return AsciiTable.getTable(
 //                AsciiTable.NO_BORDERS,
@@ -72,13 +88,56 @@ public class CsvFormat implements TopicsOutput, CGroupsOutput {
     }
 
     @Override
-    public String listTopics(Collection<TopicListing> listing) {
-        return listing.stream().map(TopicListing::name).collect(Collectors.joining(System.lineSeparator()));
+    public void describePartitions(PartitionIndex index, int[] rows, Output out) {
+        writeRows(IndexColumns.partitions(index), rows, out);
     }
 
     @Override
-    public String listCGroups(Collection<ConsumerGroupListing> listing) {
-        return listing.stream().map(ConsumerGroupListing::groupId).collect(Collectors.joining(System.lineSeparator()));
+    public void describeBrokerSummaries(BrokerIndex index, int[] brokerIds, Output out) {
+        writeRows(IndexColumns.brokers(index), brokerIds, out);
+    }
+
+    @Override
+    public void describeTopicSizes(LogDirIndex index, int[] topics, Output out) {
+        writeRows(IndexColumns.topicSizes(index), topics, out);
+    }
+
+    @Override
+    public void describePartitionSizes(LogDirIndex index, int[] partitions, Output out) {
+        writeRows(IndexColumns.partitionSizes(index), partitions, out);
+    }
+
+    /** The schema of just the selected columns. Bean properties which aren't in the schema are ignored. */
+    private static CsvSchema select(CsvSchema schema, Columns columns) {
+        if (columns.isAll()) {
+            return schema;
+        }
+        List<String> names = new ArrayList<>();
+        schema.forEach(column -> names.add(column.getName()));
+        CsvSchema.Builder builder = CsvSchema.builder();
+        columns.select(names, name -> name).forEach(builder::addColumn);
+        return builder.build();
+    }
+
+    private void writeRows(List<TableWriter.Column<Integer>> allColumns, int[] rows, Output out) {
+        List<TableWriter.Column<Integer>> columns = out.columns().select(allColumns, TableWriter.Column::header);
+        try (CsvRows writer = new CsvRows(columns, out)) {
+            for (int row : rows) {
+                writer.write(columns.stream().map(column -> column.get(row)).toArray(String[]::new));
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    @Override
+    public void listTopics(Collection<TopicListing> listing, Output out) {
+        listing.forEach(topic -> out.writer().println(topic.name()));
+    }
+
+    @Override
+    public void listCGroups(Collection<ConsumerGroupListing> listing, Output out) {
+        listing.forEach(group -> out.writer().println(group.groupId()));
     }
 
     static class Group {
@@ -101,20 +160,114 @@ public class CsvFormat implements TopicsOutput, CGroupsOutput {
     }
 
     @Override
-    public String describeCGroups(Map<String, ConsumerGroupDescription> descriptions) {
-        var topics = descriptions.values().stream()
-                .map(Group::new)
-                .sorted(Comparator.comparing(Group::groupId))
-                .collect(Collectors.toList());
-        return AsciiTable.getTable(
-                AsciiTable.NO_BORDERS,
-                topics,
-                List.of(
-                        new Column().header("GROUP ID").dataAlign(HorizontalAlign.LEFT).with(Group::groupId),
-                        new Column().header("COORDINATOR").dataAlign(HorizontalAlign.LEFT).with(Group::coordinator)
-                ));
+    public void describeCGroups(Map<String, ConsumerGroupDescription> descriptions, Output out) {
+        try (var table = new TableWriter<Group>(out, List.of(
+                new TableWriter.Column<>("GROUP ID", Group::groupId),
+                new TableWriter.Column<>("COORDINATOR", Group::coordinator)))) {
+            descriptions.values().stream()
+                    .map(Group::new)
+                    .sorted(Comparator.comparing(Group::groupId))
+                    .forEach(table::add);
+        }
+    }
+
+    @Override
+    public void describeLags(List<GroupLag> lags, Output out) {
+        if (lags.isEmpty()) {
+            return;
+        }
+        List<TableWriter.Column<GroupLag.Row>> columns = out.columns().select(GroupLag.columns(lags.get(0).detail()),
+                TableWriter.Column::header);
+        try (CsvRows rows = new CsvRows(columns, out)) {
+            GroupLag.forEachRow(lags, row -> {
+                try {
+                    rows.write(columns.stream().map(column -> column.get(row)).toArray(String[]::new));
+                } catch (IOException e) {
+                    throw new OutputException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    @Override
+    public void describeOffsetResets(List<OffsetReset> resets, Output out) {
+        List<TableWriter.Column<OffsetReset>> columns = out.columns().select(OffsetReset.columns(), TableWriter.Column::header);
+        try (CsvRows rows = new CsvRows(columns, out)) {
+            for (OffsetReset reset : resets) {
+                rows.write(columns.stream().map(column -> column.get(reset)).toArray(String[]::new));
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    @Override
+    public void describeLowWatermarks(List<LowWatermark> lowWatermarks, Output out) {
+        List<TableWriter.Column<LowWatermark>> columns = out.columns().select(LowWatermark.columns(), TableWriter.Column::header);
+        try (CsvRows rows = new CsvRows(columns, out)) {
+            for (LowWatermark lowWatermark : lowWatermarks) {
+                rows.write(columns.stream().map(column -> column.get(lowWatermark)).toArray(String[]::new));
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    /**
+     * Writes CSV rows to an {@link Output}, or adds them to it if it's collecting.
+     * Rows are either {@code String[]} or beans described by the schema.
+     */
+    private static class CsvRows implements AutoCloseable {
+        private final CsvMapper mapper;
+        private final Output out;
+        private final List<String> headers;
+        private final SequenceWriter writer;
+
+        CsvRows(List<? extends TableWriter.Column<?>> columns, Output out) throws IOException {
+            this(Holder.MAPPER, schema(columns), out);
+        }
+
+        CsvRows(CsvMapper mapper, CsvSchema schema, Output out) throws IOException {
+            this.mapper = mapper;
+            this.out = out;
+            this.headers = new ArrayList<>();
+            schema.forEach(column -> headers.add(column.getName()));
+            this.writer = out.context() != null ? null : mapper.writer(schema.withUseHeader(true))
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .with(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                    .writeValues(out.writer());
+        }
+
+        private static CsvSchema schema(List<? extends TableWriter.Column<?>> columns) {
+            CsvSchema.Builder schema = CsvSchema.builder();
+            columns.forEach(column -> schema.addColumn(column.header()));
+            return schema.build();
+        }
+
+        void write(Object row) throws IOException {
+            if (writer != null) {
+                writer.write(row);
+            } else if (row instanceof String[]) {
+                out.addRow(true, headers, (String[]) row);
+            } else {
+                Map<?, ?> values = mapper.convertValue(row, Map.class);
+                out.addRow(true, headers, headers.stream()
+                        .map(header -> values.get(header) == null ? null : values.get(header).toString())
+                        .toArray(String[]::new));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
     }
 
+    @RegisterForReflection
     @JsonPropertyOrder({"topicName", "topicId", "partitionId", "leader", "replicas", "isr"})
     public static class Partition {
 
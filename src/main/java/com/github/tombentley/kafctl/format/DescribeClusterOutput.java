@@ -21,19 +21,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
+import com.github.tombentley.kafctl.index.LogDirIndex;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.acl.AclOperation;
 
 public interface DescribeClusterOutput {
-    String describeBrokers(Collection<Node> liveBrokers);
-    String describeCluster(String clusterId, Node controller, Collection<Node> liveBrokers, List<AclOperation> authorizedOperations);
+    void describeBrokers(Collection<Node> liveBrokers, Output out);
+    void describeCluster(String clusterId, Node controller, Collection<Node> liveBrokers, List<AclOperation> authorizedOperations, Output out);
+
+    /** Writes the size and offset lag totals of the given {@code dirs} of the index. */
+    void describeLogDirs(LogDirIndex index, int[] dirs, Output out);
 
     class OutputFormatConverter extends AbstractEnumeratedOption<DescribeClusterOutput> {
         @Override
         protected Map<String, DescribeClusterOutput> map() {
             return Map.of(
-                    "json", new JsonFormat(),
-                    "yaml", new YamlFormat());
+                    "json", Formats.JSON,
+                    "ndjson", Formats.NDJSON,
+                    "yaml", Formats.YAML);
         }
     }
 }
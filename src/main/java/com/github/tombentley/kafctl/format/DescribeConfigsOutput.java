@@ -24,13 +24,14 @@ import org.apache.kafka.clients.admin.ConfigEntry;
 import static picocli.CommandLine.Help.Ansi;
 
 public interface DescribeConfigsOutput {
-    String describeConfigs(Collection<ConfigEntry> configs);
+    void describeConfigs(Collection<ConfigEntry> configs, Output out);
 
     class OutputFormatConverter extends AbstractEnumeratedOption<DescribeConfigsOutput> {
         @Override
         protected Map<String, DescribeConfigsOutput> map() {
-            return Map.of("plain", new PlainTextFormat(),
-                    "json", new JsonFormat());
+            return Map.of("plain", Formats.PLAIN_TEXT,
+                    "json", Formats.JSON,
+                    "ndjson", Formats.NDJSON);
         }
     }
 }
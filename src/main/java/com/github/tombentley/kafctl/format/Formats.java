@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.List;
+
+/**
+ * The shared instances of the formats, used by all the {@code OutputFormatConverter}s.
+ * The formats are stateless, apart from their Jackson mappers, schemas and writers, which they create
+ * on first use and then reuse, so repeated conversions (and commands, in the daemon) don't pay for them again.
+ * Creating a mapper and introspecting its serializers or schemas is costly, so each format keeps its mapper in
+ * a private static {@code Holder} class, which is only initialized when a command first writes in that format.
+ */
+public final class Formats {
+
+    static final JsonFormat JSON = new JsonFormat();
+    static final NdjsonFormat NDJSON = new NdjsonFormat();
+    static final YamlFormat YAML = new YamlFormat();
+    static final CsvFormat CSV = new CsvFormat();
+    static final TableFormat TABLE = new TableFormat();
+    static final PropertiesFormat PROPERTIES = new PropertiesFormat();
+    static final PlainTextFormat PLAIN_TEXT = new PlainTextFormat();
+    static final ArrowFormat ARROW = new ArrowFormat();
+
+    private Formats() {
+    }
+
+    /**
+     * Creates the mappers and resolves the serializers of the formats ahead of their first use.
+     * This is worthwhile for a long-lived process, such as the daemon, but not for a single command.
+     */
+    public static void prewarm() {
+        for (AbstractJsonFormat format : List.of(JSON, NDJSON, YAML)) {
+            format.prewarm();
+        }
+        CSV.prewarm();
+    }
+}
@@ -22,14 +22,16 @@ import org.apache.kafka.clients.admin.Config;
 import org.apache.kafka.common.config.ConfigResource;
 
 public interface GetConfigsOutput {
-    String getConfigs(Map<ConfigResource, Config> configs);
+    void getConfigs(Map<ConfigResource, Config> configs, Output out);
 
     class OutputFormatConverter extends AbstractEnumeratedOption<GetConfigsOutput> {
         @Override
         protected Map<String, GetConfigsOutput> map() {
-            return Map.of("json", new JsonFormat(),
-                    "yaml", new YamlFormat(),
-                    "properties", new PropertiesFormat());
+            return Map.of("json", Formats.JSON,
+                    "ndjson", Formats.NDJSON,
+                    "arrow", Formats.ARROW,
+                    "yaml", Formats.YAML,
+                    "properties", Formats.PROPERTIES);
         }
     }
 }
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * The lag of a consumer group, in total and broken down by topic and partition.
+ * A lag is null when it's not known, for example because the end offset of a partition couldn't be determined.
+ * Unknown partition lags are excluded from the topic and group totals.
+ */
+@RegisterForReflection
+@JsonFilter(Columns.FILTER_ID)
+@JsonPropertyOrder({"groupId", "lag", "topics"})
+public class GroupLag {
+
+    /** How much of the breakdown to include. */
+    public enum Detail {
+        GROUP,
+        TOPIC,
+        PARTITION
+    }
+
+    public static class DetailConverter extends AbstractEnumeratedOption<Detail> {
+        @Override
+        protected Map<String, Detail> map() {
+            return Map.of(
+                    "group", Detail.GROUP,
+                    "topic", Detail.TOPIC,
+                    "partition", Detail.PARTITION);
+        }
+    }
+
+    private final String groupId;
+    private final List<TopicLag> topics;
+    private final Detail detail;
+
+    GroupLag(String groupId, List<TopicLag> topics, Detail detail) {
+        this.groupId = groupId;
+        this.topics = topics;
+        this.detail = detail;
+    }
+
+    /**
+     * Computes the lag of each of the given groups.
+     * @param committed The committed offsets of each group.
+     * @param endOffsets The end offsets of the partitions.
+     * @param detail How much of the breakdown to include.
+     * @return The lags, sorted by group id.
+     */
+    public static List<GroupLag> of(Map<String, Map<TopicPartition, OffsetAndMetadata>> committed,
+                                    Map<TopicPartition, Long> endOffsets,
+                                    Detail detail) {
+        var result = new ArrayList<GroupLag>(committed.size());
+        new TreeMap<>(committed).forEach((groupId, offsets) -> {
+            var byTopic = new TreeMap<String, TreeMap<Integer, PartitionLag>>();
+            offsets.forEach((tp, offset) -> byTopic.computeIfAbsent(tp.topic(), t -> new TreeMap<>())
+                    .put(tp.partition(), new PartitionLag(tp.partition(), offset.offset(), endOffsets.get(tp))));
+            var topics = new ArrayList<TopicLag>(byTopic.size());
+            byTopic.forEach((topic, partitions) -> topics.add(new TopicLag(topic, new ArrayList<>(partitions.values()), detail)));
+            result.add(new GroupLag(groupId, topics, detail));
+        });
+        return result;
+    }
+
+    /**
+     * A row of tabular lag output, at the level of the given detail.
+     * The topic and partition are null when the detail doesn't include them.
+     */
+    static class Row {
+        final String groupId;
+        final String topicName;
+        final PartitionLag partition;
+        final Long lag;
+
+        Row(String groupId, String topicName, PartitionLag partition, Long lag) {
+            this.groupId = groupId;
+            this.topicName = topicName;
+            this.partition = partition;
+            this.lag = lag;
+        }
+    }
+
+    static void forEachRow(Collection<GroupLag> lags, Consumer<Row> action) {
+        for (GroupLag group : lags) {
+            if (group.detail == Detail.GROUP) {
+                action.accept(new Row(group.groupId, null, null, group.lag()));
+                continue;
+            }
+            for (TopicLag topic : group.topics) {
+                if (group.detail == Detail.TOPIC) {
+                    action.accept(new Row(group.groupId, topic.topicName, null, topic.lag()));
+                    continue;
+                }
+                for (PartitionLag partition : topic.partitions) {
+                    action.accept(new Row(group.groupId, topic.topicName, partition, partition.lag()));
+                }
+            }
+        }
+    }
+
+    /** The table columns for the given detail. */
+    static List<TableWriter.Column<Row>> columns(Detail detail) {
+        var columns = new ArrayList<TableWriter.Column<Row>>();
+        columns.add(new TableWriter.Column<>("GROUP ID", row -> row.groupId));
+        if (detail != Detail.GROUP) {
+            columns.add(new TableWriter.Column<>("TOPIC", row -> row.topicName));
+        }
+        if (detail == Detail.PARTITION) {
+            columns.add(new TableWriter.Column<>("PARTITION ID", row -> Integer.toString(row.partition.partitionId())));
+            columns.add(new TableWriter.Column<>("COMMITTED OFFSET", row -> Long.toString(row.partition.committedOffset())));
+            columns.add(new TableWriter.Column<>("END OFFSET", row -> Objects.toString(row.partition.endOffset(), "")));
+        }
+        columns.add(new TableWriter.Column<>("LAG", row -> Objects.toString(row.lag, "")));
+        return columns;
+    }
+
+    /** Sums lags, ignoring unknown lags. The sum is only unknown if both lags are unknown. */
+    static Long sum(Long a, Long b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return a + b;
+    }
+
+    public Detail detail() {
+        return detail;
+    }
+
+    @JsonProperty
+    public String groupId() {
+        return groupId;
+    }
+
+    @JsonProperty
+    public Long lag() {
+        Long lag = null;
+        for (TopicLag topic : topics) {
+            lag = sum(lag, topic.lag());
+        }
+        return lag;
+    }
+
+    /** The topics, or null if the detail doesn't include them. */
+    @JsonProperty
+    @JsonInclude(Include.NON_NULL)
+    public List<TopicLag> topics() {
+        return detail == Detail.GROUP ? null : topics;
+    }
+
+    /** All the topics, regardless of the detail. */
+    public List<TopicLag> allTopics() {
+        return topics;
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"topicName", "lag", "partitions"})
+    public static class TopicLag {
+        private final String topicName;
+        private final List<PartitionLag> partitions;
+        private final Detail detail;
+
+        TopicLag(String topicName, List<PartitionLag> partitions, Detail detail) {
+            this.topicName = topicName;
+            this.partitions = partitions;
+            this.detail = detail;
+        }
+
+        @JsonProperty
+        public String topicName() {
+            return topicName;
+        }
+
+        @JsonProperty
+        public Long lag() {
+            Long lag = null;
+            for (PartitionLag partition : partitions) {
+                lag = sum(lag, partition.lag());
+            }
+            return lag;
+        }
+
+        /** The partitions, or null if the detail doesn't include them. */
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public List<PartitionLag> partitions() {
+            return detail == Detail.PARTITION ? partitions : null;
+        }
+
+        /** All the partitions, regardless of the detail. */
+        public List<PartitionLag> allPartitions() {
+            return partitions;
+        }
+    }
+
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"partitionId", "committedOffset", "endOffset", "lag"})
+    public static class PartitionLag {
+        private final int partitionId;
+        private final long committedOffset;
+        private final Long endOffset;
+
+        PartitionLag(int partitionId, long committedOffset, Long endOffset) {
+            this.partitionId = partitionId;
+            this.committedOffset = committedOffset;
+            this.endOffset = endOffset;
+        }
+
+        @JsonProperty
+        public int partitionId() {
+            return partitionId;
+        }
+
+        @JsonProperty
+        public long committedOffset() {
+            return committedOffset;
+        }
+
+        @JsonProperty
+        public Long endOffset() {
+            return endOffset;
+        }
+
+        @JsonProperty
+        public Long lag() {
+            return endOffset == null ? null : Math.max(0, endOffset - committedOffset);
+        }
+    }
+}
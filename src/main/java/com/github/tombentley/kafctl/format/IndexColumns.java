@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+
+/**
+ * The columns used by the tabular formats for a {@link PartitionIndex}, {@link BrokerIndex} or {@link LogDirIndex}.
+ * Each row is a partition's row number, a broker id, or a topic's or partition's row number, respectively.
+ */
+final class IndexColumns {
+
+    private IndexColumns() {
+    }
+
+    static List<TableWriter.Column<Integer>> partitions(PartitionIndex index) {
+        return List.of(
+                new TableWriter.Column<>("TOPIC", index::topicName),
+                new TableWriter.Column<>("PARTITION ID", row -> Integer.toString(index.partition(row))),
+                new TableWriter.Column<>("LEADER", row -> index.leader(row) == PartitionIndex.NO_LEADER ? "none" : Integer.toString(index.leader(row))),
+                new TableWriter.Column<>("REPLICAS", row -> join(index.replicas(row))),
+                new TableWriter.Column<>("ISR", row -> join(index.isr(row))));
+    }
+
+    static List<TableWriter.Column<Integer>> brokers(BrokerIndex index) {
+        return List.of(
+                new TableWriter.Column<>("BROKER ID", brokerId -> Integer.toString(brokerId)),
+                new TableWriter.Column<>("RACK", brokerId -> Objects.toString(index.partitions().rack(brokerId), "")),
+                new TableWriter.Column<>("LIVE", brokerId -> Boolean.toString(index.isLive(brokerId))),
+                new TableWriter.Column<>("REPLICAS", brokerId -> Integer.toString(index.replicaCount(brokerId))),
+                new TableWriter.Column<>("LEADERS", brokerId -> Integer.toString(index.leadingCount(brokerId))),
+                new TableWriter.Column<>("PREFERRED LEADERS", brokerId -> Integer.toString(index.preferredLeaderCount(brokerId))),
+                new TableWriter.Column<>("FOLLOWERS", brokerId -> Integer.toString(index.followingCount(brokerId))),
+                new TableWriter.Column<>("LAGGING", brokerId -> Integer.toString(index.laggingCount(brokerId))),
+                new TableWriter.Column<>("LEADER SKEW", brokerId -> String.format("%+.1f%%", index.leaderSkew(brokerId))));
+    }
+
+    static List<TableWriter.Column<Integer>> topicSizes(LogDirIndex index) {
+        return List.of(
+                new TableWriter.Column<>("TOPIC", index::topicName),
+                new TableWriter.Column<>("PARTITIONS", row -> Integer.toString(index.topicPartitions(row))),
+                new TableWriter.Column<>("REPLICAS", row -> Integer.toString(index.topicReplicas(row))),
+                new TableWriter.Column<>("SIZE", row -> Long.toString(index.topicSize(row))),
+                new TableWriter.Column<>("OFFSET LAG", row -> Long.toString(index.topicOffsetLag(row))));
+    }
+
+    static List<TableWriter.Column<Integer>> partitionSizes(LogDirIndex index) {
+        return List.of(
+                new TableWriter.Column<>("TOPIC", index::partitionTopicName),
+                new TableWriter.Column<>("PARTITION ID", row -> Integer.toString(index.partition(row))),
+                new TableWriter.Column<>("REPLICAS", row -> Integer.toString(index.partitionReplicas(row))),
+                new TableWriter.Column<>("SIZE", row -> Long.toString(index.partitionSize(row))),
+                new TableWriter.Column<>("OFFSET LAG", row -> Long.toString(index.partitionOffsetLag(row))));
+    }
+
+    private static String join(int[] brokerIds) {
+        return Arrays.stream(brokerIds).mapToObj(Integer::toString).collect(Collectors.joining(","));
+    }
+}
@@ -24,12 +24,13 @@ import org.apache.kafka.clients.admin.ConsumerGroupListing;
 
 public class JsonFormat extends AbstractJsonFormat {
 
-    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-
+    private static class Holder {
+        static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    }
 
     @Override
     protected ObjectMapper mapper() {
-        return mapper;
+        return Holder.MAPPER;
     }
 }
 
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * The low watermark of a partition after deleting records from it, which is the offset of its oldest remaining record.
+ */
+@RegisterForReflection
+@JsonFilter(Columns.FILTER_ID)
+@JsonPropertyOrder({"topicName", "partitionId", "lowWatermark"})
+public class LowWatermark {
+
+    private final TopicPartition tp;
+    private final long lowWatermark;
+
+    public LowWatermark(TopicPartition tp, long lowWatermark) {
+        this.tp = tp;
+        this.lowWatermark = lowWatermark;
+    }
+
+    static List<TableWriter.Column<LowWatermark>> columns() {
+        return List.of(
+                new TableWriter.Column<>("TOPIC", LowWatermark::topicName),
+                new TableWriter.Column<>("PARTITION ID", lowWatermark -> Integer.toString(lowWatermark.partitionId())),
+                new TableWriter.Column<>("LOW WATERMARK", lowWatermark -> Long.toString(lowWatermark.lowWatermark())));
+    }
+
+    @JsonProperty
+    public String topicName() {
+        return tp.topic();
+    }
+
+    @JsonProperty
+    public int partitionId() {
+        return tp.partition();
+    }
+
+    @JsonProperty
+    public long lowWatermark() {
+        return lowWatermark;
+    }
+}
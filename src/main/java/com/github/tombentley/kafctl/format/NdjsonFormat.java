@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+
+/**
+ * Newline delimited JSON: one compact JSON object per line, rather than a single array.
+ * The records are flattened so that there's one per partition, config entry, group member, lag row or broker,
+ * and each is written as soon as it's serialized, so consumers can process the output as a stream.
+ */
+public class NdjsonFormat extends AbstractJsonFormat {
+
+    private static class Holder {
+        static final ObjectMapper MAPPER = new ObjectMapper();
+    }
+
+    @Override
+    protected ObjectMapper mapper() {
+        return Holder.MAPPER;
+    }
+
+    @Override
+    void prewarm() {
+        super.prewarm();
+        for (Class<?> type : List.of(Partition.class, Entry.class, Member.class, Lag.class)) {
+            writer().forType(type);
+        }
+    }
+
+    /**
+     * Writes each of the {@code items} on its own line. There's no enclosing array,
+     * so {@code unwrapSingle} makes no difference.
+     */
+    @Override
+    protected <T> void writeValues(Iterator<T> items, boolean unwrapSingle, Output out) {
+        try (Lines lines = new Lines(out)) {
+            while (items.hasNext()) {
+                lines.write(items.next());
+            }
+        }
+    }
+
+    /** Writes values one per line, or adds them to {@code out} if it's collecting. */
+    private class Lines implements AutoCloseable {
+        private final Output out;
+        private final ObjectWriter writer;
+        private final JsonGenerator gen;
+
+        Lines(Output out) {
+            this.out = out;
+            this.writer = writer(out);
+            if (out.context() != null) {
+                this.gen = null;
+                return;
+            }
+            try {
+                this.gen = writer.createGenerator(out.writer());
+            } catch (IOException e) {
+                throw new OutputException(e);
+            }
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        void write(Object value) {
+            if (gen == null) {
+                out.addObject(NdjsonFormat.this, tree(writer, value));
+                return;
+            }
+            try {
+                writer.writeValue(gen, value);
+            } catch (IOException e) {
+                throw new OutputException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (gen == null) {
+                return;
+            }
+            try {
+                boolean empty = gen.getOutputContext().getEntryCount() == 0;
+                gen.close();
+                if (!empty) {
+                    endDocument(out);
+                }
+            } catch (IOException e) {
+                throw new OutputException(e);
+            }
+        }
+    }
+
+    @RegisterForReflection
+    @JsonPropertyOrder({"topicName", "topicId", "partitionId", "leader", "replicas", "isr"})
+    static class Partition extends Pd {
+        private final TopicDescription td;
+
+        Partition(TopicDescription td, TopicPartitionInfo pd) {
+            super(pd);
+            this.td = td;
+        }
+
+        @JsonProperty
+        public String topicName() {
+            return td.name();
+        }
+
+        @JsonProperty
+        public String topicId() {
+            return td.topicId().toString();
+        }
+    }
+
+    @Override
+    public void describeTopics(Iterable<TopicDescription> tds, Output out) {
+        try (Lines lines = new Lines(out)) {
+            for (TopicDescription td : tds) {
+                for (TopicPartitionInfo pd : td.partitions()) {
+                    lines.write(new Partition(td, pd));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void listTopics(Collection<TopicListing> listing, Output out) {
+        try (Lines lines = new Lines(out)) {
+            for (TopicListing topic : listing) {
+                lines.write(Map.of("topicName", topic.name()));
+            }
+        }
+    }
+
+    @RegisterForReflection
+    @JsonPropertyOrder({"brokerName", "topicName", "name", "type", "value", "sensitive", "doc", "source", "default", "readOnly"})
+    static class Entry extends Cfg.E {
+        private final ConfigResource cr;
+
+        Entry(ConfigResource cr, ConfigEntry e) {
+            super(e);
+            this.cr = cr;
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String topicName() {
+            return cr.type() == ConfigResource.Type.TOPIC ? cr.name() : null;
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String brokerName() {
+            return cr.type() == ConfigResource.Type.BROKER || cr.type() == ConfigResource.Type.BROKER_LOGGER ? cr.name() : null;
+        }
+    }
+
+    @Override
+    public void getConfigs(Map<ConfigResource, Config> configs, Output out) {
+        try (Lines lines = new Lines(out)) {
+            configs.forEach((cr, config) -> config.entries().stream()
+                    .sorted(Comparator.comparing(ConfigEntry::name))
+                    .forEach(e -> lines.write(new Entry(cr, e))));
+        }
+    }
+
+    /**
+     * A member of a consumer group, along with the group's properties.
+     * A group without members has a single record, without the member's properties.
+     */
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"groupId", "simple", "state", "coordinator", "partitionAssignor",
+            "consumerId", "clientId", "host", "groupInstanceId", "assignments"})
+    static class Member {
+        private final ConsumerGroupDescription cg;
+        private final MemberDescription mem;
+
+        Member(ConsumerGroupDescription cg, MemberDescription mem) {
+            this.cg = cg;
+            this.mem = mem;
+        }
+
+        @JsonProperty
+        public String groupId() {
+            return cg.groupId();
+        }
+
+        @JsonProperty
+        public boolean simple() {
+            return cg.isSimpleConsumerGroup();
+        }
+
+        @JsonProperty
+        public String state() {
+            return cg.state().toString();
+        }
+
+        @JsonProperty
+        public int coordinator() {
+            return cg.coordinator().id();
+        }
+
+        @JsonProperty
+        public String partitionAssignor() {
+            return cg.partitionAssignor();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String consumerId() {
+            return mem == null ? null : mem.consumerId();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String clientId() {
+            return mem == null ? null : mem.clientId();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String host() {
+            return mem == null ? null : mem.host();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String groupInstanceId() {
+            return mem == null ? null : mem.groupInstanceId().orElse(null);
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public List<String> assignments() {
+            return mem == null ? null : mem.assignment().topicPartitions().stream()
+                    .map(tp -> tp.topic() + "/" + tp.partition()).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public void describeCGroups(Map<String, ConsumerGroupDescription> descriptions, Output out) {
+        try (Lines lines = new Lines(out)) {
+            for (ConsumerGroupDescription cg : descriptions.values()) {
+                if (cg.members().isEmpty()) {
+                    lines.write(new Member(cg, null));
+                }
+                for (MemberDescription mem : cg.members()) {
+                    lines.write(new Member(cg, mem));
+                }
+            }
+        }
+    }
+
+    /** A row of lag, at the level of the requested detail. */
+    @RegisterForReflection
+    @JsonFilter(Columns.FILTER_ID)
+    @JsonPropertyOrder({"groupId", "topicName", "partitionId", "committedOffset", "endOffset", "lag"})
+    static class Lag {
+        private final GroupLag.Row row;
+
+        Lag(GroupLag.Row row) {
+            this.row = row;
+        }
+
+        @JsonProperty
+        public String groupId() {
+            return row.groupId;
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public String topicName() {
+            return row.topicName;
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public Integer partitionId() {
+            return row.partition == null ? null : row.partition.partitionId();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public Long committedOffset() {
+            return row.partition == null ? null : row.partition.committedOffset();
+        }
+
+        @JsonProperty
+        @JsonInclude(Include.NON_NULL)
+        public Long endOffset() {
+            return row.partition == null ? null : row.partition.endOffset();
+        }
+
+        @JsonProperty
+        public Long lag() {
+            return row.lag;
+        }
+    }
+
+    @Override
+    public void describeLags(List<GroupLag> lags, Output out) {
+        try (Lines lines = new Lines(out)) {
+            GroupLag.forEachRow(lags, row -> lines.write(new Lag(row)));
+        }
+    }
+}
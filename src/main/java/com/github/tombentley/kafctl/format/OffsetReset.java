@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * A planned change to a consumer group's committed offset of one partition.
+ * The current offset is null when the group has no committed offset for the partition.
+ */
+@RegisterForReflection
+@JsonFilter(Columns.FILTER_ID)
+@JsonPropertyOrder({"groupId", "topicName", "partitionId", "currentOffset", "newOffset"})
+public class OffsetReset {
+
+    private final String groupId;
+    private final TopicPartition tp;
+    private final Long currentOffset;
+    private final long newOffset;
+
+    public OffsetReset(String groupId, TopicPartition tp, Long currentOffset, long newOffset) {
+        this.groupId = groupId;
+        this.tp = tp;
+        this.currentOffset = currentOffset;
+        this.newOffset = newOffset;
+    }
+
+    static List<TableWriter.Column<OffsetReset>> columns() {
+        return List.of(
+                new TableWriter.Column<>("GROUP ID", OffsetReset::groupId),
+                new TableWriter.Column<>("TOPIC", OffsetReset::topicName),
+                new TableWriter.Column<>("PARTITION ID", reset -> Integer.toString(reset.partitionId())),
+                new TableWriter.Column<>("CURRENT OFFSET", reset -> Objects.toString(reset.currentOffset(), "")),
+                new TableWriter.Column<>("NEW OFFSET", reset -> Long.toString(reset.newOffset())));
+    }
+
+    @JsonProperty
+    public String groupId() {
+        return groupId;
+    }
+
+    @JsonProperty
+    public String topicName() {
+        return tp.topic();
+    }
+
+    @JsonProperty
+    public int partitionId() {
+        return tp.partition();
+    }
+
+    public TopicPartition topicPartition() {
+        return tp;
+    }
+
+    @JsonProperty
+    public Long currentOffset() {
+        return currentOffset;
+    }
+
+    @JsonProperty
+    public long newOffset() {
+        return newOffset;
+    }
+}
@@ -16,11 +16,213 @@
  */
 package com.github.tombentley.kafctl.format;
 
-import java.util.Collection;
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-import org.apache.kafka.clients.admin.Config;
-import org.apache.kafka.clients.admin.TopicDescription;
-import org.apache.kafka.clients.admin.TopicListing;
-import org.apache.kafka.common.config.ConfigResource;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 
+/**
+ * The destination of a command's formatted output.
+ * Formats write to it incrementally, so that large results don't need to be held in memory.
+ * Closing an Output flushes it, but doesn't close the underlying writer.
+ *
+ * <p>When a command runs against several contexts each context gets a {@linkplain #collecting(String) collecting}
+ * Output. Rather than writing formatted text, formats add their records (objects or table rows) to it,
+ * labelled with the context name, and the Outputs are then {@linkplain #merge(List, Output) merged}
+ * into a single document in the same format.</p>
+ */
+public class Output implements AutoCloseable {
+
+    static final String CONTEXT_HEADER = "CONTEXT";
+    static final String CONTEXT_FIELD = "context";
+
+    private final PrintWriter writer;
+    private final OutputStream stream;
+    private final String context;
+    private final StringWriter text;
+    private final List<JsonNode> objects;
+    private final List<String[]> rows;
+    private AbstractJsonFormat objectFormat;
+    private List<String> rowHeaders;
+    private boolean csvRows;
+    private Columns columns = Columns.ALL;
+
+    public Output(Writer writer) {
+        this(writer, null);
+    }
+
+    private Output(Writer writer, OutputStream stream) {
+        this.writer = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+        this.stream = stream;
+        this.context = null;
+        this.text = null;
+        this.objects = null;
+        this.rows = null;
+    }
+
+    private Output(String context) {
+        this.text = new StringWriter();
+        this.writer = new PrintWriter(text);
+        this.stream = null;
+        this.context = context;
+        this.objects = new ArrayList<>();
+        this.rows = new ArrayList<>();
+    }
+
+    /** An Output which writes to the current {@link System#out}. */
+    public static Output stdout() {
+        return new Output(new BufferedWriter(new OutputStreamWriter(System.out)), System.out);
+    }
+
+    /** An Output which writes to the current {@link System#err}. */
+    public static Output stderr() {
+        return new Output(new BufferedWriter(new OutputStreamWriter(System.err)), System.err);
+    }
+
+    /**
+     * An Output which collects the records written to it for the context with the given name,
+     * for later {@linkplain #merge(List, Output) merging}.
+     * Plain text written to its {@link #writer()} is collected line by line.
+     */
+    public static Output collecting(String context) {
+        return new Output(context);
+    }
+
+    /** The name of the context whose records are being collected, or null if this Output isn't collecting. */
+    public String context() {
+        return context;
+    }
+
+    /** The columns (or fields) which formats should write. */
+    public Columns columns() {
+        return columns;
+    }
+
+    /** Sets the columns (or fields) which formats should write, returning this Output. */
+    public Output columns(Columns columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    public PrintWriter writer() {
+        return writer;
+    }
+
+    /**
+     * The byte stream underlying the {@link #writer()}, for binary formats, after flushing the writer.
+     * @throws OutputException If this Output has no byte stream, for example because it's collecting.
+     */
+    public OutputStream stream() {
+        if (stream == null) {
+            throw new OutputException(context != null
+                    ? "Binary output formats cannot be used with several contexts"
+                    : "Binary output formats cannot be used here");
+        }
+        writer.flush();
+        return stream;
+    }
+
+    /** Collects an object written by the given format, adding a {@value #CONTEXT_FIELD} field to it. */
+    void addObject(AbstractJsonFormat format, JsonNode value) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put(CONTEXT_FIELD, context);
+        if (value.isObject()) {
+            node.setAll((ObjectNode) value);
+        } else {
+            node.set("value", value);
+        }
+        objectFormat = format;
+        objects.add(node);
+    }
+
+    /** Collects a table (or, if {@code csv}, CSV) row, adding a {@value #CONTEXT_HEADER} cell to it. */
+    void addRow(boolean csv, List<String> headers, String[] cells) {
+        String[] row = new String[cells.length + 1];
+        row[0] = context;
+        System.arraycopy(cells, 0, row, 1, cells.length);
+        csvRows = csv;
+        rowHeaders = headers;
+        rows.add(row);
+    }
+
+    /**
+     * Writes the records collected by the given {@code parts}, in order, to {@code out}
+     * as a single document in the format which they were collected from.
+     */
+    public static void merge(List<Output> parts, Output out) {
+        for (Output part : parts) {
+            part.writer.flush();
+            try (BufferedReader reader = new BufferedReader(new StringReader(part.text.toString()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    out.writer().append(part.context).append(": ").println(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        parts.stream().filter(part -> part.rowHeaders != null).findFirst().ifPresent(first -> {
+            List<String> headers = new ArrayList<>();
+            headers.add(first.csvRows ? CONTEXT_FIELD : CONTEXT_HEADER);
+            headers.addAll(first.rowHeaders);
+            if (first.csvRows) {
+                mergeCsv(parts, headers, out);
+            } else {
+                mergeTable(parts, headers, out);
+            }
+        });
+        parts.stream().filter(part -> part.objectFormat != null).findFirst().ifPresent(first ->
+                first.objectFormat.writeValues(parts.stream().flatMap(part -> part.objects.stream()).iterator(), false, out));
+    }
+
+    private static void mergeTable(List<Output> parts, List<String> headers, Output out) {
+        List<TableWriter.Column<String[]>> columns = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i++) {
+            int column = i;
+            columns.add(new TableWriter.Column<>(headers.get(i), row -> column < row.length ? row[column] : null));
+        }
+        try (var table = new TableWriter<>(out, columns)) {
+            parts.forEach(part -> part.rows.forEach(table::add));
+        }
+    }
+
+    private static void mergeCsv(List<Output> parts, List<String> headers, Output out) {
+        CsvSchema.Builder schema = CsvSchema.builder().setUseHeader(true);
+        headers.forEach(schema::addColumn);
+        try (SequenceWriter writer = CsvFormat.mapper().writer(schema.build())
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(out.writer())) {
+            for (Output part : parts) {
+                for (String[] row : part.rows) {
+                    writer.write(Arrays.copyOf(row, headers.size()));
+                }
+            }
+        } catch (IOException e) {
+            throw new OutputException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.flush();
+        if (writer.checkError()) {
+            throw new OutputException("Error writing output");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.util.List;
+import java.util.Map;
+
+import com.github.tombentley.kafctl.index.PartitionIndex;
+
+public interface PartitionsOutput {
+
+    /**
+     * Writes the given {@code rows} of the {@code index} to {@code out}, in the given order.
+     */
+    void describePartitions(PartitionIndex index, int[] rows, Output out);
+
+    /** Writes the low watermarks of partitions which records were deleted from. */
+    void describeLowWatermarks(List<LowWatermark> lowWatermarks, Output out);
+
+    class OutputFormatConverter extends AbstractEnumeratedOption<PartitionsOutput> {
+        @Override
+        protected Map<String, PartitionsOutput> map() {
+            return Map.of(
+                    "json", Formats.JSON,
+                    "ndjson", Formats.NDJSON,
+                    "arrow", Formats.ARROW,
+                    "yaml", Formats.YAML,
+                    "csv", Formats.CSV,
+                    "table", Formats.TABLE
+            );
+        }
+    }
+}
@@ -16,8 +16,10 @@
  */
 package com.github.tombentley.kafctl.format;
 
+import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import org.apache.kafka.clients.admin.ConfigEntry;
@@ -26,13 +28,16 @@ import picocli.CommandLine.Help.Ansi;
 public class PlainTextFormat implements DescribeConfigsOutput {
 
     @Override
-    public String describeConfigs(Collection<ConfigEntry> configs) {
-        return configs.stream().sorted(Comparator.comparing(ConfigEntry::name))
-                .map(entry -> {
-                    return Ansi.AUTO.string("@|green " + entry.name() + "|@\n")
-                        + "  " + Ansi.AUTO.string("@|yellow " + (entry.isReadOnly() ? "read-only " : "read-write ") + entry.type() + "|@") + System.lineSeparator()
-                        + "    " + Ansi.AUTO.string(entry.documentation().replaceAll("\\<code\\>(.*?)</code>", "@|bold $1|@"));
-                })
-                .collect(Collectors.joining(System.lineSeparator() + System.lineSeparator()));
+    public void describeConfigs(Collection<ConfigEntry> configs, Output out) {
+        PrintWriter writer = out.writer();
+        List<ConfigEntry> sorted = configs.stream().sorted(Comparator.comparing(ConfigEntry::name)).collect(Collectors.toList());
+        for (ConfigEntry entry : sorted) {
+            if (entry != sorted.get(0)) {
+                writer.println();
+            }
+            writer.print(Ansi.AUTO.string("@|green " + entry.name() + "|@\n"));
+            writer.println("  " + Ansi.AUTO.string("@|yellow " + (entry.isReadOnly() ? "read-only " : "read-write ") + entry.type() + "|@"));
+            writer.println("    " + Ansi.AUTO.string(entry.documentation().replaceAll("\\<code\\>(.*?)</code>", "@|bold $1|@")));
+        }
     }
 }
@@ -70,7 +70,7 @@ public class PropertiesFormat implements GetConfigsOutput {
     }
 
     @Override
-    public String getConfigs(Map<ConfigResource, Config> configs) {
+    public void getConfigs(Map<ConfigResource, Config> configs, Output out) {
         if (configs.size() > 1) {
             throw new RuntimeException("Can't use properties output with multiple configs");
         }
@@ -78,7 +78,7 @@ public class PropertiesFormat implements GetConfigsOutput {
                 .map(e -> new FlatConfig(e.getKey().name(), e.getValue()))
                 .sorted(Comparator.comparing(FlatConfig::name))
                 .collect(Collectors.toList());
-        return collect.get(0).sortedProperties();
+        out.writer().println(collect.get(0).sortedProperties());
     }
 
 }
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compares two snapshots written by {@link SnapshotWriter}.
+ * Records are matched by kind and key, and compared using a 64-bit hash of their serialized form,
+ * so that only the hashes of the first snapshot, and the changed records of the second,
+ * need to be held in memory. The first snapshot is read a second time to print what changed in each changed record.
+ */
+public class SnapshotDiff {
+
+    // Fields which identify the elements of an array, so that arrays can be compared element-wise
+    private static final List<String> IDENTITY_FIELDS = List.of("name", "partitionId", "consumerId");
+
+    private final Path before;
+    private final Path after;
+
+    public SnapshotDiff(Path before, Path after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(String id, String line) throws IOException;
+    }
+
+    /**
+     * Writes the differences between the snapshots to {@code out}.
+     * @return The number of records which were added, removed or changed.
+     */
+    public int diff(Output out) throws IOException {
+        PrintWriter writer = out.writer();
+        Map<String, Long> beforeHashes = new HashMap<>();
+        read(before, (id, line) -> beforeHashes.put(id, hash(line)));
+        Map<String, JsonNode> changed = new LinkedHashMap<>();
+        int[] differences = new int[1];
+        read(after, (id, line) -> {
+            Long hash = beforeHashes.remove(id);
+            if (hash == null) {
+                writer.println("+ " + id);
+                differences[0]++;
+            } else if (hash != hash(line)) {
+                changed.put(id, SnapshotWriter.MAPPER.readTree(line).get("value"));
+            }
+        });
+        Set<String> removed = new LinkedHashSet<>(beforeHashes.keySet());
+        read(before, (id, line) -> {
+            if (removed.contains(id)) {
+                writer.println("- " + id);
+                differences[0]++;
+            } else {
+                JsonNode afterValue = changed.get(id);
+                if (afterValue != null) {
+                    JsonNode beforeValue = SnapshotWriter.MAPPER.readTree(line).get("value");
+                    // A hash collision is vanishingly unlikely, but a hash difference is always checked
+                    if (!beforeValue.equals(afterValue)) {
+                        writer.println("~ " + id);
+                        diff("", beforeValue, afterValue, writer);
+                        differences[0]++;
+                    }
+                }
+            }
+        });
+        return differences[0];
+    }
+
+    private static void read(Path path, RecordConsumer consumer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null || !SnapshotWriter.HEADER.equals(kindAndKey(line)[0])) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            while ((line = reader.readLine()) != null) {
+                String[] kindAndKey = kindAndKey(line);
+                consumer.accept(kindAndKey[0] + " " + kindAndKey[1], line);
+            }
+        }
+    }
+
+    /** Reads just the kind and key from the start of a record, without parsing its value. */
+    private static String[] kindAndKey(String line) throws IOException {
+        try (JsonParser parser = SnapshotWriter.MAPPER.getFactory().createParser(line)) {
+            String kind = null;
+            String key = null;
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Malformed snapshot record");
+            }
+            while ((kind == null || key == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("kind".equals(field)) {
+                    kind = parser.getText();
+                } else if ("key".equals(field)) {
+                    key = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (kind == null || key == null) {
+                throw new IOException("Malformed snapshot record");
+            }
+            return new String[] {kind, key};
+        }
+    }
+
+    /** 64-bit FNV-1a hash of the UTF-16 code units of the line. */
+    static long hash(String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static void diff(String path, JsonNode before, JsonNode after, PrintWriter writer) {
+        if (before.equals(after)) {
+            return;
+        }
+        if (before.isObject() && after.isObject()) {
+            Set<String> fields = new LinkedHashSet<>();
+            before.fieldNames().forEachRemaining(fields::add);
+            after.fieldNames().forEachRemaining(fields::add);
+            for (String field : fields) {
+                diff(path + "." + field, before.path(field), after.path(field), writer);
+            }
+            return;
+        }
+        if (before.isArray() && after.isArray()) {
+            String identity = identityField(before, after);
+            if (identity != null) {
+                Map<String, JsonNode> beforeById = byId(before, identity);
+                Map<String, JsonNode> afterById = byId(after, identity);
+                Set<String> ids = new LinkedHashSet<>(beforeById.keySet());
+                ids.addAll(afterById.keySet());
+                for (String id : ids) {
+                    diff(path + "[" + identity + "=" + id + "]",
+                            beforeById.getOrDefault(id, SnapshotWriter.MAPPER.missingNode()),
+                            afterById.getOrDefault(id, SnapshotWriter.MAPPER.missingNode()),
+                            writer);
+                }
+                return;
+            }
+        }
+        writer.println("    " + path + ": " + text(before) + " -> " + text(after));
+    }
+
+    private static String identityField(JsonNode before, JsonNode after) {
+        JsonNode first = before.size() > 0 ? before.get(0) : after.size() > 0 ? after.get(0) : null;
+        if (first == null || !first.isObject()) {
+            return null;
+        }
+        for (String field : IDENTITY_FIELDS) {
+            if (first.has(field)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, JsonNode> byId(JsonNode array, String identity) {
+        Map<String, JsonNode> result = new LinkedHashMap<>();
+        for (Iterator<JsonNode> it = array.elements(); it.hasNext(); ) {
+            JsonNode element = it.next();
+            result.put(element.path(identity).asText(), element);
+        }
+        return result;
+    }
+
+    private static String text(JsonNode node) {
+        return node.isMissingNode() ? "(none)" : node.toString();
+    }
+}
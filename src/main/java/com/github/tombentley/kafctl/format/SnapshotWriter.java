@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigResource;
+
+/**
+ * Writes a snapshot of a cluster's state as a gzipped stream of records, one JSON object per line.
+ * Each record has a {@code kind}, a {@code key} which is unique within its kind, and a {@code value}
+ * which is serialized using the same wrappers as the JSON output format.
+ * Records are written as they're added, so a snapshot never needs to be held in memory.
+ * They're written to a temporary file which only replaces the snapshot's path once it's {@linkplain #complete() complete},
+ * so a failure part way through never leaves a truncated snapshot.
+ * @see SnapshotDiff
+ */
+public class SnapshotWriter implements AutoCloseable {
+
+    public static final int VERSION = 1;
+
+    static final String HEADER = "snapshot";
+    static final String TOPIC = "topic";
+    static final String CONFIG = "config";
+    static final String GROUP = "group";
+    static final String OFFSETS = "offsets";
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .setFilterProvider(Columns.ALL.filterProvider())
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Path path;
+    private final Path tmp;
+    private final Writer writer;
+    private final JsonGenerator gen;
+    private boolean completed;
+
+    public SnapshotWriter(Path path, String contextName) throws IOException {
+        this.path = path;
+        this.tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.gen = MAPPER.getFactory().createGenerator(writer);
+        this.gen.setRootValueSeparator(new SerializedString("\n"));
+        write(HEADER, contextName, Map.of(
+                "version", VERSION,
+                "createdAt", System.currentTimeMillis()));
+    }
+
+    public void topic(TopicDescription td) throws IOException {
+        write(TOPIC, td.name(), new AbstractJsonFormat.Td(td));
+    }
+
+    public void config(ConfigResource resource, Config config) throws IOException {
+        write(CONFIG, resource.type().name().toLowerCase(Locale.ROOT) + "/" + resource.name(),
+                new AbstractJsonFormat.Cfg(resource, config));
+    }
+
+    public void group(ConsumerGroupDescription group) throws IOException {
+        write(GROUP, group.groupId(), new AbstractJsonFormat.Cgd(group));
+    }
+
+    public void offsets(String groupId, Map<TopicPartition, OffsetAndMetadata> offsets) throws IOException {
+        Map<String, Long> byPartition = new TreeMap<>();
+        offsets.forEach((tp, offset) -> byPartition.put(tp.topic() + "/" + tp.partition(), offset.offset()));
+        write(OFFSETS, groupId, byPartition);
+    }
+
+    private void write(String kind, String key, Object value) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("kind", kind);
+        gen.writeStringField("key", key);
+        gen.writeFieldName("value");
+        MAPPER.writeValue(gen, value);
+        gen.writeEndObject();
+    }
+
+    /** Finishes the snapshot, atomically replacing any existing file at its path. */
+    public void complete() throws IOException {
+        gen.writeRaw('\n');
+        gen.close();
+        writer.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        completed = true;
+    }
+
+    /** Discards the snapshot, unless it was completed. */
+    @Override
+    public void close() throws IOException {
+        if (!completed) {
+            try {
+                writer.close();
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+}
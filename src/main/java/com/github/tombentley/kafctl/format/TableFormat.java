@@ -23,9 +23,9 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.github.freva.asciitable.AsciiTable;
-import com.github.freva.asciitable.Column;
-import com.github.freva.asciitable.HorizontalAlign;
+import com.github.tombentley.kafctl.index.BrokerIndex;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.ConsumerGroupListing;
 import org.apache.kafka.clients.admin.TopicDescription;
@@ -33,34 +33,68 @@ import org.apache.kafka.clients.admin.TopicListing;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartitionInfo;
 
-public class TableFormat implements TopicsOutput, CGroupsOutput {
+public class TableFormat implements TopicsOutput, CGroupsOutput, PartitionsOutput, BrokerSummaryOutput {
     @Override
-    public String describeTopics(Collection<TopicDescription> tds) {
-        var topics = tds.stream()
-                .flatMap(t -> t.partitions().stream().map(p -> new Partition(t, p)))
-                .sorted(Comparator.comparing(Partition::topicName))
-                .collect(Collectors.toList());
-        return AsciiTable.getTable(
-                AsciiTable.NO_BORDERS,
-                topics,
-                List.of(
-                        new Column().header("TOPIC").dataAlign(HorizontalAlign.LEFT).with(Partition::topicName),
-                        new Column().header("TOPIC ID").dataAlign(HorizontalAlign.LEFT).with(Partition::topicId),
-                        new Column().header("PARTITION ID").dataAlign(HorizontalAlign.LEFT).with(Partition::partitionId),
-                        new Column().header("LEADER").dataAlign(HorizontalAlign.LEFT).with(Partition::leader),
-                        new Column().header("REPLIACS").dataAlign(HorizontalAlign.LEFT).with(Partition::replicas),
-                        new Column().header("ISR").dataAlign(HorizontalAlign.LEFT).with(Partition::isr)
-                ));
+    public void describeTopics(Iterable<TopicDescription> tds, Output out) {
+        try (var table = new TableWriter<Partition>(out, List.of(
+                new TableWriter.Column<>("TOPIC", Partition::topicName),
+                new TableWriter.Column<>("TOPIC ID", Partition::topicId),
+                new TableWriter.Column<>("PARTITION ID", Partition::partitionId),
+                new TableWriter.Column<>("LEADER", Partition::leader),
+                new TableWriter.Column<>("REPLICAS", Partition::replicas),
+                new TableWriter.Column<>("ISR", Partition::isr)))) {
+            for (TopicDescription td : tds) {
+                for (TopicPartitionInfo p : td.partitions()) {
+                    table.add(new Partition(td, p));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void describePartitions(PartitionIndex index, int[] rows, Output out) {
+        try (var table = new TableWriter<Integer>(out, IndexColumns.partitions(index))) {
+            for (int row : rows) {
+                table.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void describeTopicSizes(LogDirIndex index, int[] topics, Output out) {
+        try (var table = new TableWriter<Integer>(out, IndexColumns.topicSizes(index))) {
+            for (int row : topics) {
+                table.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void describePartitionSizes(LogDirIndex index, int[] partitions, Output out) {
+        try (var table = new TableWriter<Integer>(out, IndexColumns.partitionSizes(index))) {
+            for (int row : partitions) {
+                table.add(row);
+            }
+        }
     }
 
     @Override
-    public String listTopics(Collection<TopicListing> listing) {
-        return listing.stream().map(TopicListing::name).collect(Collectors.joining(System.lineSeparator()));
+    public void describeBrokerSummaries(BrokerIndex index, int[] brokerIds, Output out) {
+        try (var table = new TableWriter<Integer>(out, IndexColumns.brokers(index))) {
+            for (int brokerId : brokerIds) {
+                table.add(brokerId);
+            }
+        }
     }
 
     @Override
-    public String listCGroups(Collection<ConsumerGroupListing> listing) {
-        return listing.stream().map(ConsumerGroupListing::groupId).collect(Collectors.joining(System.lineSeparator()));
+    public void listTopics(Collection<TopicListing> listing, Output out) {
+        listing.forEach(topic -> out.writer().println(topic.name()));
+    }
+
+    @Override
+    public void listCGroups(Collection<ConsumerGroupListing> listing, Output out) {
+        listing.forEach(group -> out.writer().println(group.groupId()));
     }
 
     static class Group {
@@ -83,18 +117,39 @@ public class TableFormat implements TopicsOutput, CGroupsOutput {
     }
 
     @Override
-    public String describeCGroups(Map<String, ConsumerGroupDescription> descriptions) {
-        var topics = descriptions.values().stream()
-                .map(Group::new)
-                .sorted(Comparator.comparing(Group::groupId))
-                .collect(Collectors.toList());
-        return AsciiTable.getTable(
-                AsciiTable.NO_BORDERS,
-                topics,
-                List.of(
-                        new Column().header("GROUP ID").dataAlign(HorizontalAlign.LEFT).with(Group::groupId),
-                        new Column().header("COORDINATOR").dataAlign(HorizontalAlign.LEFT).with(Group::coordinator)
-                ));
+    public void describeCGroups(Map<String, ConsumerGroupDescription> descriptions, Output out) {
+        try (var table = new TableWriter<Group>(out, List.of(
+                new TableWriter.Column<>("GROUP ID", Group::groupId),
+                new TableWriter.Column<>("COORDINATOR", Group::coordinator)))) {
+            descriptions.values().stream()
+                    .map(Group::new)
+                    .sorted(Comparator.comparing(Group::groupId))
+                    .forEach(table::add);
+        }
+    }
+
+    @Override
+    public void describeLags(List<GroupLag> lags, Output out) {
+        if (lags.isEmpty()) {
+            return;
+        }
+        try (var table = new TableWriter<GroupLag.Row>(out, GroupLag.columns(lags.get(0).detail()))) {
+            GroupLag.forEachRow(lags, table::add);
+        }
+    }
+
+    @Override
+    public void describeOffsetResets(List<OffsetReset> resets, Output out) {
+        try (var table = new TableWriter<OffsetReset>(out, OffsetReset.columns())) {
+            resets.forEach(table::add);
+        }
+    }
+
+    @Override
+    public void describeLowWatermarks(List<LowWatermark> lowWatermarks, Output out) {
+        try (var table = new TableWriter<LowWatermark>(out, LowWatermark.columns())) {
+            lowWatermarks.forEach(table::add);
+        }
     }
 
     public static class Partition {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes a table, laid out like {@code AsciiTable.NO_BORDERS}, a page of rows at a time,
+ * so that large tables don't need to be held in memory.
+ * Column widths are computed from the first page and only ever grow,
+ * so a wide value in a later page can shift the alignment of the rows after it.
+ * Only the {@linkplain Output#columns() selected columns} are computed and written.
+ * When the {@link Output} is {@linkplain Output#collecting(String) collecting} the rows are added to it
+ * rather than written.
+ * @param <T> The type of the rows.
+ */
+class TableWriter<T> implements AutoCloseable {
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
+    static class Column<T> {
+        private final String header;
+        private final Function<T, String> getter;
+
+        Column(String header, Function<T, String> getter) {
+            this.header = header;
+            this.getter = getter;
+        }
+
+        String header() {
+            return header;
+        }
+
+        String get(T row) {
+            return getter.apply(row);
+        }
+    }
+
+    private final Output out;
+    private final PrintWriter writer;
+    private final List<Column<T>> columns;
+    private final List<String> headers;
+    private final int pageSize;
+    private final int[] widths;
+    private final List<String[]> page;
+    private boolean headerWritten;
+
+    TableWriter(Output out, List<Column<T>> columns) {
+        this(out, columns, DEFAULT_PAGE_SIZE);
+    }
+
+    TableWriter(Output out, List<Column<T>> columns, int pageSize) {
+        this.out = out;
+        this.writer = out.writer();
+        this.columns = out.columns().select(columns, Column::header);
+        this.headers = new ArrayList<>(this.columns.size());
+        this.pageSize = pageSize;
+        this.widths = new int[this.columns.size()];
+        this.page = new ArrayList<>(pageSize);
+        for (int i = 0; i < this.columns.size(); i++) {
+            headers.add(this.columns.get(i).header);
+            widths[i] = this.columns.get(i).header.length();
+        }
+    }
+
+    void add(T row) {
+        String[] cells = new String[columns.size()];
+        for (int i = 0; i < cells.length; i++) {
+            String cell = columns.get(i).getter.apply(row);
+            cells[i] = cell == null ? "" : cell;
+        }
+        if (out.context() != null) {
+            out.addRow(false, headers, cells);
+            return;
+        }
+        page.add(cells);
+        if (page.size() >= pageSize) {
+            flushPage();
+        }
+    }
+
+    private void flushPage() {
+        for (String[] cells : page) {
+            for (int i = 0; i < cells.length; i++) {
+                widths[i] = Math.max(widths[i], cells[i].length());
+            }
+        }
+        if (!headerWritten) {
+            writeLine(headers.toArray(new String[0]));
+            headerWritten = true;
+        }
+        for (String[] cells : page) {
+            writeLine(cells);
+        }
+        page.clear();
+    }
+
+    private void writeLine(String[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            writer.append(' ').append(cells[i]);
+            for (int pad = cells[i].length(); pad < widths[i]; pad++) {
+                writer.append(' ');
+            }
+            writer.append(' ');
+        }
+        writer.println();
+    }
+
+    @Override
+    public void close() {
+        if (out.context() != null) {
+            return;
+        }
+        if (!page.isEmpty() || !headerWritten) {
+            flushPage();
+        }
+    }
+}
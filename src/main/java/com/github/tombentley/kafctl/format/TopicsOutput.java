@@ -19,23 +19,36 @@ package com.github.tombentley.kafctl.format;
 import java.util.Collection;
 import java.util.Map;
 
+import com.github.tombentley.kafctl.index.LogDirIndex;
 import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.clients.admin.TopicListing;
 
 public interface TopicsOutput {
 
-    String describeTopics(Collection<TopicDescription> tds);
+    /**
+     * Writes the given topic descriptions to {@code out} as they're iterated.
+     * The {@code tds} may be lazily fetched, so formats should not need to iterate them more than once.
+     */
+    void describeTopics(Iterable<TopicDescription> tds, Output out);
 
-    String listTopics(Collection<TopicListing> listing);
+    void listTopics(Collection<TopicListing> listing, Output out);
+
+    /** Writes the size and offset lag totals of the given {@code topics} of the index. */
+    void describeTopicSizes(LogDirIndex index, int[] topics, Output out);
+
+    /** Writes the size and offset lag totals of the given {@code partitions} of the index. */
+    void describePartitionSizes(LogDirIndex index, int[] partitions, Output out);
 
     class OutputFormatConverter extends AbstractEnumeratedOption<TopicsOutput> {
         @Override
         protected Map<String, TopicsOutput> map() {
             return Map.of(
-                    "json", new JsonFormat(),
-                    "yaml", new YamlFormat(),
-                    "csv", new CsvFormat(),
-                    "table", new TableFormat()
+                    "json", Formats.JSON,
+                    "ndjson", Formats.NDJSON,
+                    "arrow", Formats.ARROW,
+                    "yaml", Formats.YAML,
+                    "csv", Formats.CSV,
+                    "table", Formats.TABLE
             );
         }
     }
@@ -20,10 +20,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 
 public class YamlFormat extends AbstractJsonFormat {
-    ObjectMapper mapper = new YAMLMapper();
+    private static class Holder {
+        static final ObjectMapper MAPPER = new YAMLMapper();
+    }
 
     @Override
     protected ObjectMapper mapper() {
-        return mapper;
+        return Holder.MAPPER;
+    }
+
+    @Override
+    protected void endDocument(Output out) {
+        // The YAML generator already terminates the document with a line separator
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.kafka.common.Node;
+
+/**
+ * A reverse index over a {@link PartitionIndex}, from each broker to the partitions it leads,
+ * follows and is lagging on (i.e. is a replica of, but not in the ISR of).
+ * The index includes brokers which are replicas of some partition but are not live,
+ * which is often the case of most interest.
+ */
+public class BrokerIndex {
+
+    private final PartitionIndex partitions;
+    private final int[] brokerIds;
+    private final boolean[] live;
+    private final int[] preferredLeaders;
+    // A broker's rows are leading[leadingStart[slot]] to leading[leadingStart[slot + 1] - 1], and likewise for the others
+    private final int[] leadingStart;
+    private final int[] leading;
+    private final int[] followingStart;
+    private final int[] following;
+    private final int[] laggingStart;
+    private final int[] lagging;
+
+    private BrokerIndex(PartitionIndex partitions, int[] brokerIds) {
+        this.partitions = partitions;
+        this.brokerIds = brokerIds;
+        this.live = new boolean[brokerIds.length];
+        this.preferredLeaders = new int[brokerIds.length];
+        this.leadingStart = new int[brokerIds.length + 1];
+        this.followingStart = new int[brokerIds.length + 1];
+        this.laggingStart = new int[brokerIds.length + 1];
+        int replicaCount = 0;
+        for (int row = 0; row < partitions.size(); row++) {
+            replicaCount += partitions.replicationFactor(row);
+        }
+        this.leading = new int[partitions.size()];
+        this.following = new int[replicaCount];
+        this.lagging = new int[replicaCount];
+    }
+
+    /**
+     * Builds the reverse index of the given partitions.
+     * @param partitions The partitions.
+     * @param nodes The live brokers.
+     */
+    public static BrokerIndex build(PartitionIndex partitions, Collection<Node> nodes) {
+        int[] ids = nodes.stream().mapToInt(Node::id).sorted().distinct().toArray();
+        for (int row = 0; row < partitions.size(); row++) {
+            for (int i = 0; i < partitions.replicationFactor(row); i++) {
+                int brokerId = partitions.replica(row, i);
+                int slot = Arrays.binarySearch(ids, brokerId);
+                if (slot < 0) {
+                    // A replica on a broker which isn't live: rare, so just insert it
+                    int insertAt = -slot - 1;
+                    int[] grown = new int[ids.length + 1];
+                    System.arraycopy(ids, 0, grown, 0, insertAt);
+                    grown[insertAt] = brokerId;
+                    System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+                    ids = grown;
+                }
+            }
+        }
+        BrokerIndex index = new BrokerIndex(partitions, ids);
+        for (Node node : nodes) {
+            index.live[index.slot(node.id())] = true;
+        }
+        index.fill();
+        return index;
+    }
+
+    private void fill() {
+        // Count, then compute the start offsets, then place each row; like a counting sort
+        int[] leadingCount = new int[brokerIds.length];
+        int[] followingCount = new int[brokerIds.length];
+        int[] laggingCount = new int[brokerIds.length];
+        for (int row = 0; row < partitions.size(); row++) {
+            int leader = partitions.leader(row);
+            for (int i = 0; i < partitions.replicationFactor(row); i++) {
+                int brokerId = partitions.replica(row, i);
+                int slot = slot(brokerId);
+                if (i == 0) {
+                    preferredLeaders[slot]++;
+                }
+                if (brokerId == leader) {
+                    leadingCount[slot]++;
+                } else {
+                    followingCount[slot]++;
+                }
+                if (!partitions.isInIsr(row, brokerId)) {
+                    laggingCount[slot]++;
+                }
+            }
+        }
+        prefixSum(leadingCount, leadingStart);
+        prefixSum(followingCount, followingStart);
+        prefixSum(laggingCount, laggingStart);
+        int[] leadingNext = Arrays.copyOf(leadingStart, brokerIds.length);
+        int[] followingNext = Arrays.copyOf(followingStart, brokerIds.length);
+        int[] laggingNext = Arrays.copyOf(laggingStart, brokerIds.length);
+        for (int row = 0; row < partitions.size(); row++) {
+            int leader = partitions.leader(row);
+            for (int i = 0; i < partitions.replicationFactor(row); i++) {
+                int brokerId = partitions.replica(row, i);
+                int slot = slot(brokerId);
+                if (brokerId == leader) {
+                    leading[leadingNext[slot]++] = row;
+                } else {
+                    following[followingNext[slot]++] = row;
+                }
+                if (!partitions.isInIsr(row, brokerId)) {
+                    lagging[laggingNext[slot]++] = row;
+                }
+            }
+        }
+    }
+
+    private static void prefixSum(int[] counts, int[] starts) {
+        for (int slot = 0; slot < counts.length; slot++) {
+            starts[slot + 1] = starts[slot] + counts[slot];
+        }
+    }
+
+    private int slot(int brokerId) {
+        int slot = Arrays.binarySearch(brokerIds, brokerId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown broker " + brokerId);
+        }
+        return slot;
+    }
+
+    /** The partitions which were indexed. */
+    public PartitionIndex partitions() {
+        return partitions;
+    }
+
+    /** The ids of the brokers in the index, in ascending order. */
+    public int[] brokerIds() {
+        return brokerIds.clone();
+    }
+
+    public boolean contains(int brokerId) {
+        return Arrays.binarySearch(brokerIds, brokerId) >= 0;
+    }
+
+    /** Whether the broker was live when the index was built. */
+    public boolean isLive(int brokerId) {
+        return live[slot(brokerId)];
+    }
+
+    /** The rows of the partitions the given broker leads. */
+    public int[] leading(int brokerId) {
+        int slot = slot(brokerId);
+        return Arrays.copyOfRange(leading, leadingStart[slot], leadingStart[slot + 1]);
+    }
+
+    /** The rows of the partitions the given broker is a replica of, but not the leader of. */
+    public int[] following(int brokerId) {
+        int slot = slot(brokerId);
+        return Arrays.copyOfRange(following, followingStart[slot], followingStart[slot + 1]);
+    }
+
+    /** The rows of the partitions the given broker is a replica of, but not in the ISR of. */
+    public int[] lagging(int brokerId) {
+        int slot = slot(brokerId);
+        return Arrays.copyOfRange(lagging, laggingStart[slot], laggingStart[slot + 1]);
+    }
+
+    public int leadingCount(int brokerId) {
+        int slot = slot(brokerId);
+        return leadingStart[slot + 1] - leadingStart[slot];
+    }
+
+    public int followingCount(int brokerId) {
+        int slot = slot(brokerId);
+        return followingStart[slot + 1] - followingStart[slot];
+    }
+
+    public int laggingCount(int brokerId) {
+        int slot = slot(brokerId);
+        return laggingStart[slot + 1] - laggingStart[slot];
+    }
+
+    public int replicaCount(int brokerId) {
+        return leadingCount(brokerId) + followingCount(brokerId);
+    }
+
+    /** The number of partitions for which the given broker is the preferred (i.e. first) replica. */
+    public int preferredLeaderCount(int brokerId) {
+        return preferredLeaders[slot(brokerId)];
+    }
+
+    /**
+     * The leader skew of the given broker, as a percentage: How many more (or, when negative, fewer)
+     * partitions the broker leads than it is the preferred leader of.
+     * This is 0 for a broker which is the preferred leader of no partitions.
+     */
+    public double leaderSkew(int brokerId) {
+        int preferred = preferredLeaderCount(brokerId);
+        if (preferred == 0) {
+            return 0.0;
+        }
+        return 100.0 * (leadingCount(brokerId) - preferred) / preferred;
+    }
+}
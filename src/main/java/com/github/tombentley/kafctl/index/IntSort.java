@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+/**
+ * A stable merge sort of an {@code int[]} using an {@link IntComparator},
+ * avoiding the boxing that sorting with a {@link java.util.Comparator} would need.
+ */
+public final class IntSort {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private IntSort() {
+    }
+
+    public static void sort(int[] values, IntComparator comparator) {
+        int[] buffer = values.clone();
+        mergeSort(buffer, values, 0, values.length, comparator);
+    }
+
+    // Sorts src[from, to) into dst[from, to), using src as scratch space
+    private static void mergeSort(int[] src, int[] dst, int from, int to, IntComparator comparator) {
+        int length = to - from;
+        if (length <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = dst[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(dst[j], value) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+                dst[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dst, src, from, mid, comparator);
+        mergeSort(dst, src, mid, to, comparator);
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dst, from, length);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || (p < mid && comparator.compare(src[p], src[q]) <= 0)) {
+                dst[i] = src[p++];
+            } else {
+                dst[i] = src[q++];
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.ReplicaInfo;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * The sizes and offset lags of the replicas in brokers' log dirs, as returned by {@code describeLogDirs},
+ * aggregated per log dir, per topic and per partition as each broker's log dirs are {@linkplain #add(int, Map) added}.
+ * The individual replicas are not retained, apart from the dir each is in, and the per-partition totals are held
+ * in primitive arrays indexed via {@link LongIntMap}s, so that clusters with millions of replicas can be indexed
+ * in a small heap.
+ * Dirs, topics and partitions are each identified by a row number.
+ */
+public class LogDirIndex {
+
+    private final Set<String> topicFilter;
+    private final Map<Integer, String> brokerErrors = new TreeMap<>();
+
+    // Dirs
+    private int dirCount;
+    private int[] dirBroker = new int[16];
+    private final List<String> dirPath = new ArrayList<>();
+    private final List<String> dirError = new ArrayList<>();
+    private int[] dirReplicas = new int[16];
+    private long[] dirSize = new long[16];
+    private long[] dirOffsetLag = new long[16];
+
+    // Topics
+    private final List<String> topicNames = new ArrayList<>();
+    private final Map<String, Integer> topicRows = new HashMap<>();
+    private int[] topicPartitions = new int[16];
+    private int[] topicReplicas = new int[16];
+    private long[] topicSize = new long[16];
+    private long[] topicOffsetLag = new long[16];
+
+    // Partitions, keyed by topic row (high 32 bits) and partition id (low 32 bits)
+    private final LongIntMap partitionRows = new LongIntMap(1024);
+    private int partitionCount;
+    private int[] partitionTopic = new int[1024];
+    private int[] partitionId = new int[1024];
+    private int[] partitionReplicas = new int[1024];
+    private long[] partitionSize = new long[1024];
+    private long[] partitionOffsetLag = new long[1024];
+    private long[] partitionMaxSize = new long[1024];
+    // The dir row of each replica, keyed by partition row (high 32 bits) and broker id (low 32 bits)
+    private final LongIntMap replicaDirs = new LongIntMap(1024);
+
+    /**
+     * @param topicFilter The names of the topics whose replicas should be aggregated, or null for all topics.
+     *                    The dir totals always include every replica.
+     */
+    public LogDirIndex(Set<String> topicFilter) {
+        this.topicFilter = topicFilter;
+    }
+
+    /** Adds the given broker's log dirs to the index. */
+    public void add(int brokerId, Map<String, LogDirDescription> dirs) {
+        for (Map.Entry<String, LogDirDescription> entry : dirs.entrySet()) {
+            LogDirDescription dir = entry.getValue();
+            int dirRow = addDir(brokerId, entry.getKey(), dir.error() == null ? null : dir.error().getMessage());
+            for (Map.Entry<TopicPartition, ReplicaInfo> replica : dir.replicaInfos().entrySet()) {
+                long size = replica.getValue().size();
+                long offsetLag = replica.getValue().offsetLag();
+                dirReplicas[dirRow]++;
+                dirSize[dirRow] += size;
+                dirOffsetLag[dirRow] += offsetLag;
+                TopicPartition tp = replica.getKey();
+                if (topicFilter == null || topicFilter.contains(tp.topic())) {
+                    int topicRow = topicRow(tp.topic());
+                    topicReplicas[topicRow]++;
+                    topicSize[topicRow] += size;
+                    topicOffsetLag[topicRow] += offsetLag;
+                    int partitionRow = partitionRow(topicRow, tp.partition());
+                    partitionReplicas[partitionRow]++;
+                    partitionSize[partitionRow] += size;
+                    partitionOffsetLag[partitionRow] += offsetLag;
+                    partitionMaxSize[partitionRow] = Math.max(partitionMaxSize[partitionRow], size);
+                    if (!replica.getValue().isFuture()) {
+                        replicaDirs.put(key(partitionRow, brokerId), dirRow);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Records that the given broker's log dirs couldn't be described. */
+    public void addError(int brokerId, String error) {
+        brokerErrors.put(brokerId, error);
+    }
+
+    /** The errors of the brokers whose log dirs couldn't be described, by broker id. */
+    public Map<Integer, String> brokerErrors() {
+        return brokerErrors;
+    }
+
+    private int addDir(int brokerId, String path, String error) {
+        if (dirCount == dirBroker.length) {
+            int capacity = dirCount * 2;
+            dirBroker = Arrays.copyOf(dirBroker, capacity);
+            dirReplicas = Arrays.copyOf(dirReplicas, capacity);
+            dirSize = Arrays.copyOf(dirSize, capacity);
+            dirOffsetLag = Arrays.copyOf(dirOffsetLag, capacity);
+        }
+        dirBroker[dirCount] = brokerId;
+        dirPath.add(path);
+        dirError.add(error);
+        return dirCount++;
+    }
+
+    private int topicRow(String topicName) {
+        Integer row = topicRows.get(topicName);
+        if (row != null) {
+            return row;
+        }
+        int topicRow = topicNames.size();
+        if (topicRow == topicSize.length) {
+            int capacity = topicRow * 2;
+            topicPartitions = Arrays.copyOf(topicPartitions, capacity);
+            topicReplicas = Arrays.copyOf(topicReplicas, capacity);
+            topicSize = Arrays.copyOf(topicSize, capacity);
+            topicOffsetLag = Arrays.copyOf(topicOffsetLag, capacity);
+        }
+        topicNames.add(topicName);
+        topicRows.put(topicName, topicRow);
+        return topicRow;
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    private int partitionRow(int topicRow, int partition) {
+        long key = key(topicRow, partition);
+        int row = partitionRows.get(key);
+        if (row != LongIntMap.MISSING) {
+            return row;
+        }
+        if (partitionCount == partitionTopic.length) {
+            int capacity = partitionCount * 2;
+            partitionTopic = Arrays.copyOf(partitionTopic, capacity);
+            partitionId = Arrays.copyOf(partitionId, capacity);
+            partitionReplicas = Arrays.copyOf(partitionReplicas, capacity);
+            partitionSize = Arrays.copyOf(partitionSize, capacity);
+            partitionOffsetLag = Arrays.copyOf(partitionOffsetLag, capacity);
+            partitionMaxSize = Arrays.copyOf(partitionMaxSize, capacity);
+        }
+        partitionTopic[partitionCount] = topicRow;
+        partitionId[partitionCount] = partition;
+        partitionRows.put(key, partitionCount);
+        topicPartitions[topicRow]++;
+        return partitionCount++;
+    }
+
+    // Dirs
+
+    /** The rows of the dirs of the given brokers, in the given broker order, or of all brokers if null. */
+    public int[] dirs(Collection<Integer> brokerIds) {
+        int[] rows = new int[dirCount];
+        int n = 0;
+        if (brokerIds == null) {
+            for (int row = 0; row < dirCount; row++) {
+                rows[n++] = row;
+            }
+        } else {
+            for (int brokerId : brokerIds) {
+                for (int row = 0; row < dirCount; row++) {
+                    if (dirBroker[row] == brokerId) {
+                        rows[n++] = row;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    public int dirBroker(int dirRow) {
+        return dirBroker[dirRow];
+    }
+
+    public String dirPath(int dirRow) {
+        return dirPath.get(dirRow);
+    }
+
+    /** The error describing the dir, for example because it's offline, or null. */
+    public String dirError(int dirRow) {
+        return dirError.get(dirRow);
+    }
+
+    public int dirReplicas(int dirRow) {
+        return dirReplicas[dirRow];
+    }
+
+    /** The total size in bytes of the replicas in the dir. */
+    public long dirSize(int dirRow) {
+        return dirSize[dirRow];
+    }
+
+    /** The total offset lag of the replicas in the dir. */
+    public long dirOffsetLag(int dirRow) {
+        return dirOffsetLag[dirRow];
+    }
+
+    // Topics
+
+    /** The rows of all the topics, sorted by name. */
+    public int[] topics() {
+        int[] rows = new int[topicNames.size()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        IntSort.sort(rows, (a, b) -> topicNames.get(a).compareTo(topicNames.get(b)));
+        return rows;
+    }
+
+    public String topicName(int topicRow) {
+        return topicNames.get(topicRow);
+    }
+
+    /** The number of the topic's partitions which have a replica in any of the log dirs. */
+    public int topicPartitions(int topicRow) {
+        return topicPartitions[topicRow];
+    }
+
+    public int topicReplicas(int topicRow) {
+        return topicReplicas[topicRow];
+    }
+
+    /** The total size in bytes of all the topic's replicas. */
+    public long topicSize(int topicRow) {
+        return topicSize[topicRow];
+    }
+
+    /** The total offset lag of all the topic's replicas. */
+    public long topicOffsetLag(int topicRow) {
+        return topicOffsetLag[topicRow];
+    }
+
+    // Partitions
+
+    /** The rows of all the partitions, sorted by topic name and then partition id. */
+    public int[] partitions() {
+        int[] topicRank = new int[topicNames.size()];
+        int[] byName = topics();
+        for (int rank = 0; rank < byName.length; rank++) {
+            topicRank[byName[rank]] = rank;
+        }
+        int[] rows = new int[partitionCount];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        IntSort.sort(rows, (a, b) -> {
+            int cmp = Integer.compare(topicRank[partitionTopic[a]], topicRank[partitionTopic[b]]);
+            return cmp != 0 ? cmp : Integer.compare(partitionId[a], partitionId[b]);
+        });
+        return rows;
+    }
+
+    /** The row of the given partition, or -1 if none of its replicas were in the log dirs. */
+    public int partitionRow(String topicName, int partition) {
+        Integer topicRow = topicRows.get(topicName);
+        return topicRow == null ? -1 : partitionRows.get(key(topicRow, partition));
+    }
+
+    public String partitionTopicName(int partitionRow) {
+        return topicNames.get(partitionTopic[partitionRow]);
+    }
+
+    public int partition(int partitionRow) {
+        return partitionId[partitionRow];
+    }
+
+    public int partitionReplicas(int partitionRow) {
+        return partitionReplicas[partitionRow];
+    }
+
+    /** The total size in bytes of all the partition's replicas. */
+    public long partitionSize(int partitionRow) {
+        return partitionSize[partitionRow];
+    }
+
+    /** The total offset lag of all the partition's replicas. */
+    public long partitionOffsetLag(int partitionRow) {
+        return partitionOffsetLag[partitionRow];
+    }
+
+    /** The size in bytes of the partition's largest replica, which is roughly how much moving a replica copies. */
+    public long partitionMaxSize(int partitionRow) {
+        return partitionMaxSize[partitionRow];
+    }
+
+    /** The row of the dir holding the partition's replica on the given broker, or -1 if it's not known. */
+    public int replicaDir(int partitionRow, int brokerId) {
+        return replicaDirs.get(key(partitionRow, brokerId));
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+/**
+ * A column-oriented, in-memory index of the partitions of a cluster.
+ * Each partition is a row, identified by its position in the index.
+ * Columns are held in primitive arrays, with the replicas and ISR of all partitions concatenated
+ * into single arrays, so that filters (which produce {@link BitSet}s of rows) and sorts can be
+ * evaluated over hundreds of thousands of partitions without allocating per-partition objects.
+ */
+public class PartitionIndex {
+
+    /** The broker id used when a partition has no leader. */
+    public static final int NO_LEADER = -1;
+
+    private final List<String> topicNames;
+    private final Map<Integer, String> racks;
+    private int size;
+    private int[] topic;
+    private int[] partition;
+    private int[] leader;
+    // Row i's replicas are replicas[replicasStart[i]] to replicas[replicasStart[i + 1] - 1], and likewise for isr
+    private int[] replicasStart;
+    private int[] replicas;
+    private int[] isrStart;
+    private int[] isr;
+
+    private PartitionIndex(int capacity) {
+        this.topicNames = new ArrayList<>();
+        this.racks = new HashMap<>();
+        this.topic = new int[capacity];
+        this.partition = new int[capacity];
+        this.leader = new int[capacity];
+        this.replicasStart = new int[capacity + 1];
+        this.replicas = new int[capacity * 3];
+        this.isrStart = new int[capacity + 1];
+        this.isr = new int[capacity * 3];
+    }
+
+    /**
+     * Builds an index in a single pass over the given topic descriptions.
+     * @param tds The topics to index.
+     * @param nodes The brokers in the cluster, used to determine the rack of each broker.
+     */
+    public static PartitionIndex build(Iterable<TopicDescription> tds, Collection<Node> nodes) {
+        PartitionIndex index = new PartitionIndex(1024);
+        for (Node node : nodes) {
+            if (node.hasRack()) {
+                index.racks.put(node.id(), node.rack());
+            }
+        }
+        for (TopicDescription td : tds) {
+            int topicIdx = index.topicNames.size();
+            index.topicNames.add(td.name());
+            for (TopicPartitionInfo p : td.partitions()) {
+                index.add(topicIdx, p);
+            }
+        }
+        return index;
+    }
+
+    private void add(int topicIdx, TopicPartitionInfo p) {
+        if (size == topic.length) {
+            int capacity = size * 2;
+            topic = Arrays.copyOf(topic, capacity);
+            partition = Arrays.copyOf(partition, capacity);
+            leader = Arrays.copyOf(leader, capacity);
+            replicasStart = Arrays.copyOf(replicasStart, capacity + 1);
+            isrStart = Arrays.copyOf(isrStart, capacity + 1);
+        }
+        topic[size] = topicIdx;
+        partition[size] = p.partition();
+        leader[size] = p.leader() == null || p.leader().isEmpty() ? NO_LEADER : p.leader().id();
+        replicas = append(replicas, replicasStart, p.replicas());
+        isr = append(isr, isrStart, p.isr());
+        size++;
+    }
+
+    private int[] append(int[] values, int[] starts, List<Node> nodes) {
+        int start = starts[size];
+        int end = start + nodes.size();
+        if (end > values.length) {
+            values = Arrays.copyOf(values, Math.max(end, values.length * 2));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            values[start + i] = nodes.get(i).id();
+        }
+        starts[size + 1] = end;
+        return values;
+    }
+
+    /** The number of partitions in the index. */
+    public int size() {
+        return size;
+    }
+
+    /** All the rows of the index. */
+    public BitSet all() {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        return result;
+    }
+
+    /** The row of the given partition, or -1 if it's not in the index. */
+    public int row(String topicName, int partition) {
+        int topicIdx = topicNames.indexOf(topicName);
+        if (topicIdx != -1) {
+            for (int row = 0; row < size; row++) {
+                if (topic[row] == topicIdx && this.partition[row] == partition) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public String topicName(int row) {
+        return topicNames.get(topic[row]);
+    }
+
+    public int partition(int row) {
+        return partition[row];
+    }
+
+    /** The leader of the partition, or {@link #NO_LEADER}. */
+    public int leader(int row) {
+        return leader[row];
+    }
+
+    public int[] replicas(int row) {
+        return Arrays.copyOfRange(replicas, replicasStart[row], replicasStart[row + 1]);
+    }
+
+    public int[] isr(int row) {
+        return Arrays.copyOfRange(isr, isrStart[row], isrStart[row + 1]);
+    }
+
+    /** The {@code i}th replica of the partition, where the 0th replica is the preferred leader. */
+    public int replica(int row, int i) {
+        return replicas[replicasStart[row] + i];
+    }
+
+    public int replicationFactor(int row) {
+        return replicasStart[row + 1] - replicasStart[row];
+    }
+
+    public int isrSize(int row) {
+        return isrStart[row + 1] - isrStart[row];
+    }
+
+    /** The rack of the partition's leader, or null if it has no leader, or the leader has no rack. */
+    public String leaderRack(int row) {
+        return rack(leader[row]);
+    }
+
+    /** The rack of the given broker, or null if it's not known. */
+    public String rack(int brokerId) {
+        return racks.get(brokerId);
+    }
+
+    public boolean isUnderReplicated(int row) {
+        return isrSize(row) < replicationFactor(row);
+    }
+
+    public boolean isReplica(int row, int brokerId) {
+        return contains(replicas, replicasStart[row], replicasStart[row + 1], brokerId);
+    }
+
+    public boolean isInIsr(int row, int brokerId) {
+        return contains(isr, isrStart[row], isrStart[row + 1], brokerId);
+    }
+
+    private static boolean contains(int[] values, int start, int end, int value) {
+        for (int i = start; i < end; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Filters
+
+    /** The rows of the partitions of the given topics. */
+    public BitSet whereTopic(Set<String> names) {
+        BitSet topics = new BitSet(topicNames.size());
+        for (int i = 0; i < topicNames.size(); i++) {
+            if (names.contains(topicNames.get(i))) {
+                topics.set(i);
+            }
+        }
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (topics.get(topic[row])) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /** The rows of the partitions led by the given broker. */
+    public BitSet whereLeader(int brokerId) {
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (leader[row] == brokerId) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /** The rows of the partitions without a leader. */
+    public BitSet whereNoLeader() {
+        return whereLeader(NO_LEADER);
+    }
+
+    /** The rows of the partitions which aren't led by their preferred leader, including those without a leader. */
+    public BitSet whereNotPreferredLeader() {
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (replicationFactor(row) > 0 && leader[row] != replica(row, 0)) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /** The rows of the partitions which have the given broker as a replica. */
+    public BitSet whereReplica(int brokerId) {
+        return whereContains(replicas, replicasStart, brokerId);
+    }
+
+    /** The rows of the partitions which have the given broker as a replica, but not as the leader. */
+    public BitSet whereFollower(int brokerId) {
+        BitSet result = whereReplica(brokerId);
+        result.andNot(whereLeader(brokerId));
+        return result;
+    }
+
+    /** The rows of the partitions which have the given broker in their ISR. */
+    public BitSet whereInIsr(int brokerId) {
+        return whereContains(isr, isrStart, brokerId);
+    }
+
+    /** The rows of the partitions which have the given broker as a replica, but not in their ISR. */
+    public BitSet whereLagging(int brokerId) {
+        BitSet result = whereReplica(brokerId);
+        result.andNot(whereInIsr(brokerId));
+        return result;
+    }
+
+    /** The rows of the partitions whose ISR is smaller than their replicas. */
+    public BitSet whereUnderReplicated() {
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (isUnderReplicated(row)) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /** The rows of the partitions whose leader is in the given rack. */
+    public BitSet whereLeaderRack(String rack) {
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (rack.equals(racks.get(leader[row]))) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    private BitSet whereContains(int[] values, int[] starts, int brokerId) {
+        BitSet result = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (contains(values, starts[row], starts[row + 1], brokerId)) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    // Sorting
+
+    /** A column which rows can be sorted by. */
+    public enum SortKey {
+        TOPIC,
+        PARTITION,
+        LEADER,
+        REPLICATION_FACTOR,
+        ISR_SIZE,
+        LEADER_RACK
+    }
+
+    /** A sort key, and its direction. */
+    public static class Sort {
+        private final SortKey key;
+        private final boolean descending;
+
+        public Sort(SortKey key, boolean descending) {
+            this.key = key;
+            this.descending = descending;
+        }
+    }
+
+    /**
+     * Sorts the given rows by the given sorts, in order of precedence.
+     * @return The sorted row numbers.
+     */
+    public int[] sort(BitSet rows, List<Sort> sorts) {
+        int[] result = rows.stream().toArray();
+        if (sorts.isEmpty()) {
+            return result;
+        }
+        // Rank the topic names once, so comparing topics is an int comparison
+        int[] topicRank = new int[topicNames.size()];
+        Integer[] byName = new Integer[topicNames.size()];
+        for (int i = 0; i < byName.length; i++) {
+            byName[i] = i;
+        }
+        Arrays.sort(byName, (a, b) -> topicNames.get(a).compareTo(topicNames.get(b)));
+        for (int rank = 0; rank < byName.length; rank++) {
+            topicRank[byName[rank]] = rank;
+        }
+        IntComparator comparator = (a, b) -> {
+            for (Sort sort : sorts) {
+                int cmp = compare(sort.key, topicRank, a, b);
+                if (cmp != 0) {
+                    return sort.descending ? -cmp : cmp;
+                }
+            }
+            return Integer.compare(a, b);
+        };
+        IntSort.sort(result, comparator);
+        return result;
+    }
+
+    private int compare(SortKey key, int[] topicRank, int a, int b) {
+        switch (key) {
+            case TOPIC:
+                return Integer.compare(topicRank[topic[a]], topicRank[topic[b]]);
+            case PARTITION:
+                return Integer.compare(partition[a], partition[b]);
+            case LEADER:
+                return Integer.compare(leader[a], leader[b]);
+            case REPLICATION_FACTOR:
+                return Integer.compare(replicationFactor(a), replicationFactor(b));
+            case ISR_SIZE:
+                return Integer.compare(isrSize(a), isrSize(b));
+            case LEADER_RACK:
+                String rackA = leaderRack(a);
+                String rackB = leaderRack(b);
+                if (rackA == null || rackB == null) {
+                    return rackA == null ? (rackB == null ? 0 : -1) : 1;
+                }
+                return rackA.compareTo(rackB);
+            default:
+                throw new IllegalStateException("Unknown sort key " + key);
+        }
+    }
+}
@@ -16,27 +16,114 @@
  */
 package com.github.tombentley.kafctl.util;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.common.KafkaException;
 
+/**
+ * Provides access to an {@link Admin} for the current context, or for several contexts at once.
+ * Admin instances are cached per context, so that a long-lived process (such as the daemon)
+ * doesn't pay for the connection and metadata bootstrap on each command.
+ * A cached Admin is replaced when its context's properties file is modified.
+ */
 @ApplicationScoped
 public class AdminClient {
 
+    static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
     @FunctionalInterface
     public interface AdminConsumer<T> {
         T apply(Admin admin) throws Exception;
     }
 
+    /** Creates the Admin for a context. */
+    @FunctionalInterface
+    public interface AdminFactory {
+        Admin create(ContextDb.Context ctx);
+    }
+
+    @FunctionalInterface
+    public interface ContextAdminConsumer<T> {
+        T apply(String contextName, Admin admin) throws Exception;
+    }
+
+    /** The outcome of applying a {@link ContextAdminConsumer} for one context. */
+    public static class Outcome<T> {
+        private final String contextName;
+        private final T value;
+        private final RuntimeException error;
+        private final boolean timedOut;
+
+        Outcome(String contextName, T value, RuntimeException error, boolean timedOut) {
+            this.contextName = contextName;
+            this.value = value;
+            this.error = error;
+            this.timedOut = timedOut;
+        }
+
+        public String contextName() {
+            return contextName;
+        }
+
+        /** The consumer's result, or null if it failed or timed out. */
+        public T value() {
+            return value;
+        }
+
+        /** The consumer's failure, or null if it succeeded. A timed out consumer has a failure too. */
+        public RuntimeException error() {
+            return error;
+        }
+
+        /** Whether the consumer was interrupted because it didn't complete in time. */
+        public boolean timedOut() {
+            return timedOut;
+        }
+    }
+
+    static class CachedAdmin {
+        private final Admin admin;
+        private final FileTime propsModified;
+        private volatile long lastUsedMs;
+
+        CachedAdmin(Admin admin, FileTime propsModified) {
+            this.admin = admin;
+            this.propsModified = propsModified;
+            this.lastUsedMs = System.currentTimeMillis();
+        }
+
+        void close() {
+            admin.close(CLOSE_TIMEOUT);
+        }
+    }
+
+    private final Map<String, CachedAdmin> admins = new ConcurrentHashMap<>();
+
+    private volatile AdminFactory adminFactory = ctx -> Admin.create(ctx.properties());
+
     @Inject
     ContextDb context;
 
     public <T> T withAdmin(AdminConsumer<T> consumer) {
-        Admin admin = Admin.create(context.current().properties());
+        Admin admin = admin(context.current());
         try {
             return consumer.apply(admin);
         } catch (ExecutionException e) {
@@ -55,4 +142,147 @@ public class AdminClient {
         }
 
     }
+
+    /**
+     * Applies the {@code consumer} to the Admin of each of the named contexts, concurrently.
+     * At most {@code parallelism} contexts are in progress at once, and each runs on a thread where
+     * its context is the {@linkplain ContextDb#using(String) current} one, so per-context state such as the
+     * metadata cache follows it.
+     * A context which hasn't completed within {@code timeout} of starting is interrupted and reported as timed out.
+     * @return The outcomes, in the same order as {@code contextNames}.
+     */
+    public <T> List<Outcome<T>> withAdmins(List<String> contextNames, int parallelism, Duration timeout,
+                                           ContextAdminConsumer<T> consumer) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The context parallelism must be positive");
+        }
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, contextNames.size())), runnable -> {
+            Thread thread = new Thread(runnable, "kafctl-context-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<ContextTask<T>> tasks = new ArrayList<>(contextNames.size());
+            for (String contextName : contextNames) {
+                ContextTask<T> task = new ContextTask<>(contextName, consumer);
+                task.future = executor.submit(task);
+                tasks.add(task);
+            }
+            List<Outcome<T>> outcomes = new ArrayList<>(tasks.size());
+            for (ContextTask<T> task : tasks) {
+                outcomes.add(await(task, timeout));
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private class ContextTask<T> implements Callable<T> {
+        private final String contextName;
+        private final ContextAdminConsumer<T> consumer;
+        private volatile long startedMs;
+        private Future<T> future;
+
+        ContextTask(String contextName, ContextAdminConsumer<T> consumer) {
+            this.contextName = contextName;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public T call() {
+            startedMs = System.currentTimeMillis();
+            ContextDb.Scope scope = context.using(contextName);
+            try {
+                return withAdmin(admin -> consumer.apply(contextName, admin));
+            } finally {
+                scope.close();
+            }
+        }
+    }
+
+    private static <T> Outcome<T> await(ContextTask<T> task, Duration timeout) {
+        while (true) {
+            long startedMs = task.startedMs;
+            // Until the task has started we don't know its deadline, so check back periodically
+            long waitMs = startedMs == 0 ? 100 : startedMs + timeout.toMillis() - System.currentTimeMillis();
+            try {
+                if (waitMs <= 0) {
+                    throw new TimeoutException();
+                }
+                return new Outcome<>(task.contextName, task.future.get(waitMs, TimeUnit.MILLISECONDS), null, false);
+            } catch (TimeoutException e) {
+                if (startedMs != 0) {
+                    task.future.cancel(true);
+                    return new Outcome<>(task.contextName, null,
+                            new RuntimeException("Timed out after " + timeout.toSeconds() + "s"), true);
+                }
+            } catch (ExecutionException e) {
+                RuntimeException error = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                return new Outcome<>(task.contextName, null, error, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /** The names of the known contexts, sorted. */
+    public List<String> contextNames() {
+        return context.names();
+    }
+
+    /**
+     * Gets the cached Admin for the given context, creating it if there is no cached Admin
+     * or the context's properties have changed since it was created.
+     */
+    private Admin admin(ContextDb.Context ctx) {
+        FileTime modified = context.lastModified(ctx.name());
+        CachedAdmin cached = admins.compute(ctx.name(), (name, existing) -> {
+            if (existing != null) {
+                if (existing.propsModified.equals(modified)) {
+                    return existing;
+                }
+                existing.close();
+            }
+            return new CachedAdmin(adminFactory.create(ctx), modified);
+        });
+        cached.lastUsedMs = System.currentTimeMillis();
+        return cached.admin;
+    }
+
+    /**
+     * Replaces how Admins are created, closing any cached Admins.
+     * This allows commands to be run in-process against a fake cluster (see the tests and benchmarks).
+     */
+    public void adminFactory(AdminFactory adminFactory) {
+        this.adminFactory = adminFactory;
+        closeAll();
+    }
+
+    /**
+     * Closes and removes any cached Admins which have not been used for at least {@code idleTimeout}.
+     * @return The number of Admins evicted.
+     */
+    public int evictIdle(Duration idleTimeout) {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        int evicted = 0;
+        for (Iterator<CachedAdmin> it = admins.values().iterator(); it.hasNext(); ) {
+            CachedAdmin cached = it.next();
+            if (cached.lastUsedMs < cutoff) {
+                it.remove();
+                cached.close();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @PreDestroy
+    void closeAll() {
+        admins.values().forEach(CachedAdmin::close);
+        admins.clear();
+    }
 }
@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 
 import com.github.tombentley.kafctl.Constants;
 import com.github.tombentley.kafctl.format.DescribeConfigsOutput;
+import com.github.tombentley.kafctl.format.Output;
 import org.apache.kafka.clients.admin.AlterConfigOp;
 import org.apache.kafka.clients.admin.AlterConfigsOptions;
 import org.apache.kafka.clients.admin.Config;
@@ -141,6 +142,8 @@ public class ConfigService {
                 new DescribeConfigsOptions()
                         .includeDocumentation(true)
                         .includeSynonyms(true)).values().get(prototypeConfigResource).get());
-        System.out.println(output.describeConfigs(config.entries()));
+        try (Output out = Output.stdout()) {
+            output.describeConfigs(config.entries(), out);
+        }
     }
 }
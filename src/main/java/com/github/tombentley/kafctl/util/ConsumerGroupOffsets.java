@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Fetches and alters the committed offsets of consumer groups.
+ * Committed offsets are fetched (or altered) for up to {@code maxInFlight} groups concurrently,
+ * and the end (or earliest, etc) offsets of all the groups' partitions are fetched using a single {@code listOffsets}
+ * call, which the Admin client batches into one request per partition leader.
+ * A group whose committed offsets can't be fetched is reported on standard error and recorded in {@link #errors()},
+ * rather than failing the remaining groups.
+ */
+public class ConsumerGroupOffsets {
+
+    private final Admin admin;
+    private final int maxInFlight;
+    private final Map<String, Throwable> errors = new TreeMap<>();
+
+    public ConsumerGroupOffsets(Admin admin, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight requests must be positive");
+        }
+        this.admin = admin;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** The groups whose committed offsets could not be fetched, and why. */
+    public Map<String, Throwable> errors() {
+        return errors;
+    }
+
+    /**
+     * Gets the committed offsets of each of the given groups.
+     * Partitions without a committed offset are omitted, as are groups whose offsets couldn't be fetched.
+     * @return The committed offsets, keyed and sorted by group id.
+     */
+    public Map<String, Map<TopicPartition, OffsetAndMetadata>> committedOffsets(Collection<String> groupIds) throws InterruptedException {
+        var result = new TreeMap<String, Map<TopicPartition, OffsetAndMetadata>>();
+        Deque<Map.Entry<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>>> inFlight = new ArrayDeque<>(maxInFlight);
+        for (String groupId : groupIds) {
+            if (inFlight.size() >= maxInFlight) {
+                awaitOldest(inFlight, result);
+            }
+            inFlight.add(Map.entry(groupId, admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata()));
+        }
+        while (!inFlight.isEmpty()) {
+            awaitOldest(inFlight, result);
+        }
+        return result;
+    }
+
+    private void awaitOldest(Deque<Map.Entry<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>>> inFlight,
+                             Map<String, Map<TopicPartition, OffsetAndMetadata>> result) throws InterruptedException {
+        var entry = inFlight.poll();
+        Map<TopicPartition, OffsetAndMetadata> offsets;
+        try {
+            offsets = new HashMap<>(entry.getValue().get());
+        } catch (ExecutionException e) {
+            System.err.println("Unable to get the committed offsets of group " + entry.getKey() + ": " + e.getCause().getMessage());
+            errors.put(entry.getKey(), e.getCause());
+            return;
+        }
+        offsets.values().removeIf(offset -> offset == null);
+        result.put(entry.getKey(), offsets);
+    }
+
+    /**
+     * Gets the end offsets of the given partitions.
+     * Partitions whose end offset can't be determined, for example because the topic has been deleted, are omitted.
+     */
+    public Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) throws InterruptedException {
+        return offsets(partitions, OffsetSpec.latest());
+    }
+
+    /**
+     * Gets the offsets of the given partitions which match the given spec, using a single {@code listOffsets} call.
+     * Partitions whose offset can't be determined are omitted.
+     * For a {@link OffsetSpec#forTimestamp(long) timestamp} spec the offset is -1 when there's no
+     * message with a later timestamp.
+     */
+    public Map<TopicPartition, Long> offsets(Collection<TopicPartition> partitions, OffsetSpec spec) throws InterruptedException {
+        if (partitions.isEmpty()) {
+            return Map.of();
+        }
+        Map<TopicPartition, OffsetSpec> specs = partitions.stream()
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), tp -> spec));
+        ListOffsetsResult offsets = admin.listOffsets(specs);
+        var result = new HashMap<TopicPartition, Long>();
+        for (TopicPartition tp : specs.keySet()) {
+            try {
+                result.put(tp, offsets.partitionResult(tp).get().offset());
+            } catch (ExecutionException e) {
+                // The offset of this partition is unknown
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alters the committed offsets of each of the given groups, which must have no active members.
+     * @return The groups whose offsets couldn't be altered, and why.
+     */
+    public Map<String, Throwable> alterCommittedOffsets(Map<String, Map<TopicPartition, OffsetAndMetadata>> offsets) throws InterruptedException {
+        var failures = new TreeMap<String, Throwable>();
+        Deque<Map.Entry<String, KafkaFuture<Void>>> inFlight = new ArrayDeque<>(maxInFlight);
+        for (var entry : offsets.entrySet()) {
+            if (inFlight.size() >= maxInFlight) {
+                awaitAlter(inFlight, failures);
+            }
+            inFlight.add(Map.entry(entry.getKey(), admin.alterConsumerGroupOffsets(entry.getKey(), entry.getValue()).all()));
+        }
+        while (!inFlight.isEmpty()) {
+            awaitAlter(inFlight, failures);
+        }
+        return failures;
+    }
+
+    private static void awaitAlter(Deque<Map.Entry<String, KafkaFuture<Void>>> inFlight,
+                                   Map<String, Throwable> failures) throws InterruptedException {
+        var entry = inFlight.poll();
+        try {
+            entry.getValue().get();
+        } catch (ExecutionException e) {
+            failures.put(entry.getKey(), e.getCause());
+        }
+    }
+}
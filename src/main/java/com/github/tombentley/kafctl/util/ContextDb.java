@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
@@ -59,6 +60,15 @@ public class ContextDb {
         }
     }
 
+    /** A thread's temporary choice of current context, see {@link #using(String)}. */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final ThreadLocal<String> overridden = new ThreadLocal<>();
+
     /** Lists the known contexts */
     public List<Context> list() {
         Path propsPath = Path.of(System.getProperty("user.home"), DOT_DIR_NAME);
@@ -79,6 +89,24 @@ public class ContextDb {
         }
     }
 
+    /** The names of the known contexts, sorted. */
+    public List<String> names() {
+        return list().stream().map(Context::name).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Makes the context with the given {@code contextName} the current context for the calling thread only,
+     * until the returned scope is closed.
+     * This is how a command runs against several contexts concurrently.
+     */
+    public Scope using(String contextName) {
+        if (!Files.exists(propsPath(contextName))) {
+            throw new ContextException("Context does not exist: " + contextName);
+        }
+        overridden.set(contextName);
+        return overridden::remove;
+    }
+
     /** Creates a context with the given {@code contextName} using properties from the give {@code file}. */
     public void create(String contextName, File file) {
         Path propsPath = propsPath(contextName);
@@ -136,6 +164,11 @@ public class ContextDb {
                 Files.delete(contextPath);
             }
             // TODO delete all the context-NAME.* files
+            try (var cacheFiles = Files.newDirectoryStream(propsPath.getParent(), "context-" + contextName + ".*.{cache,names}")) {
+                for (Path cacheFile : cacheFiles) {
+                    Files.delete(cacheFile);
+                }
+            }
 
             Files.delete(propsPath);
         } catch (IOException e) {
@@ -144,11 +177,17 @@ public class ContextDb {
 
     }
 
+    /** The path of a file with the given {@code fileName} in the {@value #DOT_DIR_NAME} directory. */
+    public Path dotDirPath(String fileName) {
+        return Path.of(System.getProperty("user.home"), DOT_DIR_NAME, fileName);
+    }
+
     private Path contextPath() {
         return Path.of(System.getProperty("user.home"), DOT_DIR_NAME, "context");
     }
 
-    private Path propsPath(String contextName) {
+    /** The path of the admin client properties file for the context with the given {@code contextName}. */
+    public Path propsPath(String contextName) {
         return Path.of(System.getProperty("user.home"), DOT_DIR_NAME, "context-" + contextName + ".properties");
     }
 
@@ -158,6 +197,15 @@ public class ContextDb {
         return context(contextName);
     }
 
+    /** The last modification time of the properties of the context with the given {@code contextName}. */
+    public FileTime lastModified(String contextName) {
+        try {
+            return Files.getLastModifiedTime(propsPath(contextName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Context context(String contextName) {
         try {
             Path propsPath = propsPath(contextName);
@@ -172,6 +220,10 @@ public class ContextDb {
     }
 
     private String currentName() {
+        String overriddenName = overridden.get();
+        if (overriddenName != null) {
+            return overriddenName;
+        }
         Path contextPath = contextPath();
         if (!Files.exists(contextPath)) {
             throw new ContextException("Current context is unset");
@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import com.github.tombentley.kafctl.index.IntSort;
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionReplica;
+
+/**
+ * Plans moving replicas between brokers so that each broker's log dirs hold about the same number of bytes.
+ *
+ * <p>This is a greedy search: repeatedly, the most loaded broker gives the least loaded broker the replica whose
+ * size comes closest to evening them out without overshooting, so that few bytes are moved for each step towards
+ * the mean. Each replica is moved at most once, a move may not reduce the number of racks a partition spans,
+ * and the moved replica goes in the destination's emptiest log dir. The search stops when every broker is within
+ * {@code tolerance} of the mean, or no move improves the balance.</p>
+ *
+ * <p>Replicas are held in primitive arrays, with each broker's replicas sorted by size so that the best
+ * replica to move can be binary searched, so that hundreds of thousands of replicas can be planned in seconds.
+ * The size of a replica is taken to be that of its partition's largest replica.</p>
+ */
+public class DiskBalancer {
+
+    /** How many replicas to consider on either side of the ideal size before giving up on a broker pair. */
+    private static final int SCAN_LIMIT = 1000;
+
+    private final PartitionIndex partitions;
+    private final LogDirIndex logDirs;
+    private final int[] brokerIds;
+    private final String[] racks;
+    private final long[] before;
+    private final long[] after;
+    private final long[] dirBytes;
+    // Partition row p's replicas are replicas[start[p]] to replicas[start[p + 1] - 1], as broker positions
+    private final int[] start;
+    private final int[] replicas;
+    private final long[] replicaSize;
+    private final int[] replicaRow;
+    // Broker position b's replicas, sorted by size
+    private final int[][] onBroker;
+    private final BitSet moved;
+    private final String[] movedDir;
+    private long movedBytes;
+    private int moves;
+
+    /**
+     * @param partitions The partitions of all topics.
+     * @param logDirs The log dirs of all the brokers.
+     * @param brokers The live brokers, which replicas may be moved between.
+     */
+    public DiskBalancer(PartitionIndex partitions, LogDirIndex logDirs, Collection<Node> brokers) {
+        this.partitions = partitions;
+        this.logDirs = logDirs;
+        this.brokerIds = brokers.stream().mapToInt(Node::id).sorted().toArray();
+        this.racks = new String[brokerIds.length];
+        for (int b = 0; b < brokerIds.length; b++) {
+            racks[b] = partitions.rack(brokerIds[b]);
+        }
+        int[] dirs = logDirs.dirs(null);
+        this.dirBytes = new long[dirs.length];
+        this.before = new long[brokerIds.length];
+        for (int dir : dirs) {
+            dirBytes[dir] = logDirs.dirSize(dir);
+            int b = Arrays.binarySearch(brokerIds, logDirs.dirBroker(dir));
+            if (b >= 0) {
+                before[b] += logDirs.dirSize(dir);
+            }
+        }
+        this.after = before.clone();
+
+        int size = partitions.size();
+        this.start = new int[size + 1];
+        for (int row = 0; row < size; row++) {
+            start[row + 1] = start[row] + partitions.replicationFactor(row);
+        }
+        this.replicas = new int[start[size]];
+        this.replicaSize = new long[replicas.length];
+        this.replicaRow = new int[replicas.length];
+        int[] counts = new int[brokerIds.length];
+        for (int row = 0; row < size; row++) {
+            int logDirRow = logDirs.partitionRow(partitions.topicName(row), partitions.partition(row));
+            long partitionSize = logDirRow < 0 ? 0 : logDirs.partitionMaxSize(logDirRow);
+            for (int r = start[row]; r < start[row + 1]; r++) {
+                int b = Arrays.binarySearch(brokerIds, partitions.replica(row, r - start[row]));
+                replicas[r] = b;
+                replicaSize[r] = partitionSize;
+                replicaRow[r] = row;
+                if (b >= 0) {
+                    counts[b]++;
+                }
+            }
+        }
+        this.onBroker = new int[brokerIds.length][];
+        for (int b = 0; b < brokerIds.length; b++) {
+            onBroker[b] = new int[counts[b]];
+            counts[b] = 0;
+        }
+        for (int r = 0; r < replicas.length; r++) {
+            int b = replicas[r];
+            if (b >= 0) {
+                onBroker[b][counts[b]++] = r;
+            }
+        }
+        for (int[] rs : onBroker) {
+            IntSort.sort(rs, (x, y) -> Long.compare(replicaSize[x], replicaSize[y]));
+        }
+        this.moved = new BitSet(replicas.length);
+        this.movedDir = new String[replicas.length];
+    }
+
+    /**
+     * Plans the moves.
+     * @param tolerance How far, as a fraction of the mean, each broker's bytes may be from the mean.
+     * @param maxMoves The maximum number of replicas to move.
+     */
+    public ReassignmentPlan plan(double tolerance, int maxMoves) {
+        if (brokerIds.length < 2) {
+            return new ReassignmentPlan();
+        }
+        double mean = (double) Arrays.stream(after).sum() / brokerIds.length;
+        double upper = mean * (1 + tolerance);
+        double lower = mean * (1 - tolerance);
+        int[] order = new int[brokerIds.length];
+        while (moves < maxMoves) {
+            for (int b = 0; b < order.length; b++) {
+                order[b] = b;
+            }
+            IntSort.sort(order, (x, y) -> Long.compare(after[x], after[y]));
+            boolean improved = false;
+            for (int i = order.length - 1; i > 0 && !improved && after[order[i]] > mean; i--) {
+                int src = order[i];
+                for (int j = 0; j < i && !improved && after[order[j]] < mean; j++) {
+                    int dst = order[j];
+                    if (after[src] <= upper && after[dst] >= lower) {
+                        continue;
+                    }
+                    long gap = after[src] - after[dst];
+                    long ideal = (long) Math.min(after[src] - mean, mean - after[dst]);
+                    int r = findReplica(src, dst, ideal, gap);
+                    if (r >= 0) {
+                        move(r, src, dst);
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+        return toPlan();
+    }
+
+    /**
+     * Finds the unmoved replica on {@code src} which can move to {@code dst} whose size is closest to,
+     * but no more than, {@code ideal}, or failing that the smallest one which is still less than {@code gap},
+     * since moving any replica smaller than the gap between the brokers reduces the imbalance.
+     */
+    private int findReplica(int src, int dst, long ideal, long gap) {
+        int[] rs = onBroker[src];
+        int lo = 0;
+        int hi = rs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (replicaSize[rs[mid]] <= ideal) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int k = lo - 1, n = 0; k >= 0 && n < SCAN_LIMIT && replicaSize[rs[k]] > 0; k--) {
+            if (!moved.get(rs[k])) {
+                n++;
+                if (canMove(rs[k], src, dst)) {
+                    return rs[k];
+                }
+            }
+        }
+        for (int k = lo, n = 0; k < rs.length && n < SCAN_LIMIT && replicaSize[rs[k]] < gap; k++) {
+            if (!moved.get(rs[k]) && replicaSize[rs[k]] > 0) {
+                n++;
+                if (canMove(rs[k], src, dst)) {
+                    return rs[k];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Whether the replica can move without the partition having two replicas on {@code dst}, or spanning fewer racks. */
+    private boolean canMove(int r, int src, int dst) {
+        int row = replicaRow[r];
+        boolean srcRackShared = false;
+        boolean dstRackShared = false;
+        for (int other = start[row]; other < start[row + 1]; other++) {
+            if (other == r) {
+                continue;
+            }
+            int b = replicas[other];
+            if (b == dst) {
+                return false;
+            }
+            String rack = b >= 0 ? racks[b] : partitions.rack(partitions.replica(row, other - start[row]));
+            srcRackShared |= Objects.equals(rack, racks[src]);
+            dstRackShared |= Objects.equals(rack, racks[dst]);
+        }
+        return !dstRackShared || srcRackShared;
+    }
+
+    private void move(int r, int src, int dst) {
+        int row = replicaRow[r];
+        long size = replicaSize[r];
+        int logDirRow = logDirs.partitionRow(partitions.topicName(row), partitions.partition(row));
+        int srcDir = logDirRow < 0 ? -1 : logDirs.replicaDir(logDirRow, brokerIds[src]);
+        if (srcDir >= 0) {
+            dirBytes[srcDir] -= size;
+        }
+        int dstDir = emptiestDir(brokerIds[dst]);
+        if (dstDir >= 0) {
+            dirBytes[dstDir] += size;
+            movedDir[r] = logDirs.dirPath(dstDir);
+        }
+        replicas[r] = dst;
+        after[src] -= size;
+        after[dst] += size;
+        moved.set(r);
+        movedBytes += size;
+        moves++;
+    }
+
+    /** The online dir of the broker with the fewest bytes, or -1 if the broker has only one dir, so any will do. */
+    private int emptiestDir(int brokerId) {
+        int best = -1;
+        int online = 0;
+        for (int dir : logDirs.dirs(List.of(brokerId))) {
+            if (logDirs.dirError(dir) == null) {
+                online++;
+                if (best < 0 || dirBytes[dir] < dirBytes[best]) {
+                    best = dir;
+                }
+            }
+        }
+        return online > 1 ? best : -1;
+    }
+
+    private ReassignmentPlan toPlan() {
+        ReassignmentPlan plan = new ReassignmentPlan();
+        int row = -1;
+        for (int r = moved.nextSetBit(0); r >= 0; r = moved.nextSetBit(r + 1)) {
+            if (replicaRow[r] == row) {
+                continue;
+            }
+            row = replicaRow[r];
+            TopicPartition tp = new TopicPartition(partitions.topicName(row), partitions.partition(row));
+            List<Integer> current = new ArrayList<>();
+            List<Integer> target = new ArrayList<>();
+            for (int i = start[row]; i < start[row + 1]; i++) {
+                int original = partitions.replica(row, i - start[row]);
+                current.add(original);
+                target.add(replicas[i] >= 0 ? brokerIds[replicas[i]] : original);
+                if (movedDir[i] != null) {
+                    plan.logDirs().put(new TopicPartitionReplica(tp.topic(), tp.partition(), brokerIds[replicas[i]]), movedDir[i]);
+                }
+            }
+            plan.put(tp, current, target);
+        }
+        return plan;
+    }
+
+    /** The live brokers, in id order. */
+    public int[] brokerIds() {
+        return brokerIds.clone();
+    }
+
+    public String rack(int brokerId) {
+        return partitions.rack(brokerId);
+    }
+
+    /** The bytes in the broker's log dirs before the moves. */
+    public long bytesBefore(int brokerId) {
+        return before[Arrays.binarySearch(brokerIds, brokerId)];
+    }
+
+    /** The bytes expected in the broker's log dirs after the moves. */
+    public long bytesAfter(int brokerId) {
+        return after[Arrays.binarySearch(brokerIds, brokerId)];
+    }
+
+    /** The number of replicas moved. */
+    public int moves() {
+        return moves;
+    }
+
+    /** The total bytes of the replicas moved. */
+    public long movedBytes() {
+        return movedBytes;
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.Uuid;
+
+/**
+ * A per-context, on-disk cache of cluster metadata, used by read-only commands to avoid going back
+ * to the cluster for data which was fetched recently.
+ * Each kind of metadata is stored in a {@code context-NAME.KIND.cache} file in the {@code ~/.kafctl} directory,
+ * using a compact binary encoding.
+ */
+@ApplicationScoped
+public class MetadataCache {
+
+    private static final int MAGIC = 0x6b666331;
+    private static final int VERSION = 1;
+
+    /** How the cache should be used by a command. */
+    public static class Policy {
+        /** Don't read or write the cache. */
+        public static final Policy BYPASS = new Policy(Duration.ZERO, false, false);
+
+        private final Duration ttl;
+        private final boolean read;
+        private final boolean write;
+
+        private Policy(Duration ttl, boolean read, boolean write) {
+            this.ttl = ttl;
+            this.read = read;
+            this.write = write;
+        }
+
+        /** Use cached data which is younger than the given {@code ttl}, and cache freshly fetched data. */
+        public static Policy ttl(Duration ttl) {
+            return new Policy(ttl, !ttl.isZero(), !ttl.isZero());
+        }
+
+        /** Don't use cached data, but cache freshly fetched data. */
+        public static Policy refresh() {
+            return new Policy(Duration.ZERO, false, true);
+        }
+
+        boolean isFresh(long fetchedAtMs) {
+            return read && System.currentTimeMillis() - fetchedAtMs < ttl.toMillis();
+        }
+    }
+
+    @FunctionalInterface
+    interface Writer<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @Inject
+    ContextDb context;
+
+    @Inject
+    NameIndex nameIndex;
+
+    /** Lists all the topics, including internal ones. */
+    public Collection<TopicListing> listTopics(Admin admin, Policy policy) throws ExecutionException, InterruptedException {
+        Path path = cachePath("topics");
+        List<TopicListing> cached = readIfFresh(path, policy, in -> readList(in, MetadataCache::readTopicListing));
+        if (cached != null) {
+            return cached;
+        }
+        Collection<TopicListing> listings = admin.listTopics(new ListTopicsOptions().listInternal(true)).listings().get();
+        nameIndex.write(NameIndex.TOPICS, listings.stream().map(TopicListing::name).collect(Collectors.toList()));
+        if (policy.write) {
+            write(path, out -> writeList(out, listings, MetadataCache::writeTopicListing));
+        }
+        return listings;
+    }
+
+    /** Lists the consumer groups. */
+    public Collection<ConsumerGroupListing> listConsumerGroups(Admin admin, Policy policy) throws ExecutionException, InterruptedException {
+        Path path = cachePath("groups");
+        List<ConsumerGroupListing> cached = readIfFresh(path, policy, in -> readList(in, MetadataCache::readGroupListing));
+        if (cached != null) {
+            return cached;
+        }
+        Collection<ConsumerGroupListing> listings = admin.listConsumerGroups().all().get();
+        nameIndex.write(NameIndex.GROUPS, listings.stream().map(ConsumerGroupListing::groupId).collect(Collectors.toList()));
+        if (policy.write) {
+            write(path, out -> writeList(out, listings, MetadataCache::writeGroupListing));
+        }
+        return listings;
+    }
+
+    /** Describes the brokers in the cluster. */
+    public Collection<Node> describeClusterNodes(Admin admin, Policy policy) throws ExecutionException, InterruptedException {
+        Path path = cachePath("nodes");
+        List<Node> cached = readIfFresh(path, policy, in -> readList(in, MetadataCache::readNode));
+        if (cached != null) {
+            return cached;
+        }
+        Collection<Node> nodes = admin.describeCluster().nodes().get();
+        nameIndex.write(NameIndex.BROKERS, nodes.stream().map(Node::idString).collect(Collectors.toList()));
+        if (policy.write) {
+            write(path, out -> writeList(out, nodes, MetadataCache::writeNode));
+        }
+        return nodes;
+    }
+
+    /**
+     * Describes the topics with the given {@code topicNames}.
+     * Only those topics which are not cached, or whose cache entry is stale, are described using the {@code describer}.
+     * The descriptions are returned lazily, in the same order as the given {@code topicNames},
+     * omitting any topics which the describer failed to describe.
+     * Fetched descriptions are cached once the returned iterable has been fully iterated.
+     */
+    public Iterable<TopicDescription> describeTopics(PagedTopicDescriber describer, Policy policy, Collection<String> topicNames) {
+        Path path = cachePath("descriptions");
+        Map<String, CachedDescription> cached = policy.read || policy.write ? readDescriptions(path) : new HashMap<>();
+        List<String> toFetch = topicNames.stream()
+                .filter(name -> {
+                    CachedDescription entry = cached.get(name);
+                    return entry == null || !policy.isFresh(entry.fetchedAtMs);
+                })
+                .collect(Collectors.toList());
+        Iterator<TopicDescription> fetched = describer.describe(toFetch);
+        return () -> new Iterator<>() {
+            private final Iterator<String> names = topicNames.iterator();
+            private final long now = System.currentTimeMillis();
+            private TopicDescription nextFetched;
+            private TopicDescription next;
+            private boolean dirty;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && names.hasNext()) {
+                    String name = names.next();
+                    CachedDescription entry = cached.get(name);
+                    if (entry != null && policy.isFresh(entry.fetchedAtMs)) {
+                        next = entry.description;
+                        continue;
+                    }
+                    if (nextFetched == null && fetched.hasNext()) {
+                        nextFetched = fetched.next();
+                    }
+                    // Topics which couldn't be described are absent from the fetched descriptions
+                    if (nextFetched != null && nextFetched.name().equals(name)) {
+                        next = nextFetched;
+                        nextFetched = null;
+                        if (policy.write) {
+                            cached.put(name, new CachedDescription(now, next));
+                            dirty = true;
+                        }
+                    }
+                }
+                if (next == null && dirty) {
+                    writeDescriptions(path, cached.values());
+                    dirty = false;
+                }
+                return next != null;
+            }
+
+            @Override
+            public TopicDescription next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TopicDescription result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private Path cachePath(String kind) {
+        return context.dotDirPath("context-" + context.current().name() + "." + kind + ".cache");
+    }
+
+    static class CachedDescription {
+        final long fetchedAtMs;
+        final TopicDescription description;
+
+        CachedDescription(long fetchedAtMs, TopicDescription description) {
+            this.fetchedAtMs = fetchedAtMs;
+            this.description = description;
+        }
+    }
+
+    private Map<String, CachedDescription> readDescriptions(Path path) {
+        var result = new HashMap<String, CachedDescription>();
+        List<CachedDescription> entries = read(path, in -> {
+            in.readLong();
+            // Nodes are stored once, and referenced by id from the partitions
+            Map<Integer, Node> nodes = readList(in, MetadataCache::readNode).stream()
+                    .collect(Collectors.toMap(Node::id, node -> node));
+            return readList(in, i -> readCachedDescription(i, nodes));
+        });
+        if (entries != null) {
+            entries.forEach(entry -> result.put(entry.description.name(), entry));
+        }
+        return result;
+    }
+
+    private void writeDescriptions(Path path, Collection<CachedDescription> entries) {
+        Map<Integer, Node> nodes = new HashMap<>();
+        for (CachedDescription entry : entries) {
+            for (TopicPartitionInfo p : entry.description.partitions()) {
+                if (p.leader() != null) {
+                    nodes.putIfAbsent(p.leader().id(), p.leader());
+                }
+                p.replicas().forEach(node -> nodes.putIfAbsent(node.id(), node));
+            }
+        }
+        write(path, out -> {
+            writeList(out, nodes.values(), MetadataCache::writeNode);
+            writeList(out, entries, MetadataCache::writeCachedDescription);
+        });
+    }
+
+    // The file is a header (magic, version, fetch time) followed by the body
+
+    private static <T> T readIfFresh(Path path, Policy policy, Reader<T> body) {
+        if (!policy.read) {
+            return null;
+        }
+        return read(path, in -> policy.isFresh(in.readLong()) ? body.read(in) : null);
+    }
+
+    private static <T> T read(Path path, Reader<T> body) {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            return body.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // A corrupt or truncated cache is treated like a miss
+            return null;
+        }
+    }
+
+    private static void write(Path path, Body body) {
+        try {
+            Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                body.write(out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Failing to cache is not fatal to the command
+            System.err.println("Unable to write cache " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static <T> void writeList(DataOutputStream out, Collection<T> values, Writer<T> writer) throws IOException {
+        out.writeInt(values.size());
+        for (T value : values) {
+            writer.write(out, value);
+        }
+    }
+
+    private static <T> List<T> readList(DataInputStream in, Reader<T> reader) throws IOException {
+        int size = in.readInt();
+        var result = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(reader.read(in));
+        }
+        return result;
+    }
+
+    private static void writeTopicListing(DataOutputStream out, TopicListing listing) throws IOException {
+        out.writeUTF(listing.name());
+        out.writeBoolean(listing.isInternal());
+    }
+
+    private static TopicListing readTopicListing(DataInputStream in) throws IOException {
+        return new TopicListing(in.readUTF(), in.readBoolean());
+    }
+
+    private static void writeGroupListing(DataOutputStream out, ConsumerGroupListing listing) throws IOException {
+        out.writeUTF(listing.groupId());
+        out.writeBoolean(listing.isSimpleConsumerGroup());
+        out.writeUTF(listing.state().map(ConsumerGroupState::name).orElse(""));
+    }
+
+    private static ConsumerGroupListing readGroupListing(DataInputStream in) throws IOException {
+        String groupId = in.readUTF();
+        boolean simple = in.readBoolean();
+        String state = in.readUTF();
+        return new ConsumerGroupListing(groupId, simple,
+                state.isEmpty() ? Optional.empty() : Optional.of(ConsumerGroupState.valueOf(state)));
+    }
+
+    private static void writeNode(DataOutputStream out, Node node) throws IOException {
+        out.writeInt(node.id());
+        out.writeUTF(node.host());
+        out.writeInt(node.port());
+        out.writeBoolean(node.hasRack());
+        if (node.hasRack()) {
+            out.writeUTF(node.rack());
+        }
+    }
+
+    private static Node readNode(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String host = in.readUTF();
+        int port = in.readInt();
+        String rack = in.readBoolean() ? in.readUTF() : null;
+        return new Node(id, host, port, rack);
+    }
+
+    private static Node node(Map<Integer, Node> nodes, int id) {
+        return nodes.computeIfAbsent(id, i -> new Node(i, "", -1));
+    }
+
+    private static void writeCachedDescription(DataOutputStream out, CachedDescription entry) throws IOException {
+        TopicDescription td = entry.description;
+        out.writeLong(entry.fetchedAtMs);
+        out.writeUTF(td.name());
+        out.writeBoolean(td.isInternal());
+        out.writeLong(td.topicId().getMostSignificantBits());
+        out.writeLong(td.topicId().getLeastSignificantBits());
+        writeList(out, td.partitions(), (o, p) -> {
+            o.writeInt(p.partition());
+            o.writeInt(p.leader() != null ? p.leader().id() : Node.noNode().id());
+            writeList(o, p.replicas(), (o2, node) -> o2.writeInt(node.id()));
+            writeList(o, p.isr(), (o2, node) -> o2.writeInt(node.id()));
+        });
+    }
+
+    private static CachedDescription readCachedDescription(DataInputStream in, Map<Integer, Node> nodes) throws IOException {
+        long fetchedAtMs = in.readLong();
+        String name = in.readUTF();
+        boolean internal = in.readBoolean();
+        Uuid topicId = new Uuid(in.readLong(), in.readLong());
+        List<TopicPartitionInfo> partitions = readList(in, i -> {
+            int partition = i.readInt();
+            int leaderId = i.readInt();
+            Node leader = leaderId == Node.noNode().id() ? null : node(nodes, leaderId);
+            List<Node> replicas = readList(i, i2 -> node(nodes, i2.readInt()));
+            List<Node> isr = readList(i, i2 -> node(nodes, i2.readInt()));
+            return new TopicPartitionInfo(partition, leader, replicas, isr);
+        });
+        return new CachedDescription(fetchedAtMs,
+                new TopicDescription(name, internal, partitions, null, topicId));
+    }
+}
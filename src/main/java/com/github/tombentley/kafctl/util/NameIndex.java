@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Maintains the sorted files of topic names, group ids and broker ids which shell completion searches.
+ * Each file has one name per line, sorted by their UTF-8 bytes, so that it can be binary searched
+ * by {@code LC_ALL=C look PREFIX FILE}, which memory-maps the file.
+ * The files are rewritten whenever the names are fetched from the cluster, and by
+ * {@code kafctl completion --refresh-names}, which the completion script runs in the background when they're stale.
+ */
+@ApplicationScoped
+public class NameIndex {
+
+    public static final String TOPICS = "topics";
+    public static final String GROUPS = "groups";
+    public static final String BROKERS = "brokers";
+
+    @Inject
+    ContextDb context;
+
+    /** Replaces the names of the given {@code kind} for the current context. */
+    public void write(String kind, Collection<String> names) {
+        byte[][] sorted = names.stream()
+                .map(name -> name.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        Arrays.sort(sorted, Arrays::compareUnsigned);
+        Path path = context.dotDirPath("context-" + context.current().name() + "." + kind + ".names");
+        try {
+            Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                for (byte[] name : sorted) {
+                    out.write(name);
+                    out.write('\n');
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Failing to update the completions is not fatal to the command
+            System.err.println("Unable to write name index " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+
+/**
+ * Describes topics using requests for at most {@code pageSize} topics at a time,
+ * with at most {@code maxInFlight} requests outstanding.
+ * Descriptions are returned in the order of the requested names, as each page completes,
+ * so that callers can render them without waiting for every page.
+ * A topic which can't be described is reported on standard error and recorded in {@link #errors()},
+ * rather than failing the remaining topics.
+ */
+public class PagedTopicDescriber {
+
+    private final Admin admin;
+    private final int pageSize;
+    private final int maxInFlight;
+    private final Map<String, Throwable> errors = new LinkedHashMap<>();
+
+    public PagedTopicDescriber(Admin admin, int pageSize, int maxInFlight) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight requests must be positive");
+        }
+        this.admin = admin;
+        this.pageSize = pageSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** The topics which could not be described, and why. */
+    public Map<String, Throwable> errors() {
+        return errors;
+    }
+
+    /** Lazily describes the given topics, in order. */
+    public Iterator<TopicDescription> describe(List<String> topicNames) {
+        return new Iterator<>() {
+            private final Deque<Map<String, KafkaFuture<TopicDescription>>> inFlight = new ArrayDeque<>(maxInFlight);
+            private int nextPageStart = 0;
+            private Iterator<TopicDescription> page = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext()) {
+                    sendPages();
+                    if (inFlight.isEmpty()) {
+                        return false;
+                    }
+                    page = await(inFlight.poll());
+                }
+                return true;
+            }
+
+            @Override
+            public TopicDescription next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+
+            private void sendPages() {
+                while (inFlight.size() < maxInFlight && nextPageStart < topicNames.size()) {
+                    List<String> names = topicNames.subList(nextPageStart, Math.min(nextPageStart + pageSize, topicNames.size()));
+                    Map<String, KafkaFuture<TopicDescription>> futures = admin.describeTopics(names).values();
+                    // The returned map is unordered, so reorder it by the requested names
+                    var ordered = new LinkedHashMap<String, KafkaFuture<TopicDescription>>();
+                    names.forEach(name -> ordered.put(name, futures.get(name)));
+                    inFlight.add(ordered);
+                    nextPageStart += names.size();
+                }
+            }
+        };
+    }
+
+    private Iterator<TopicDescription> await(Map<String, KafkaFuture<TopicDescription>> futures) {
+        List<TopicDescription> result = new ArrayList<>(futures.size());
+        for (var entry : futures.entrySet()) {
+            try {
+                result.add(entry.getValue().get());
+            } catch (ExecutionException e) {
+                errors.put(entry.getKey(), e.getCause());
+                System.err.println("Unable to describe topic " + entry.getKey() + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        return result.iterator();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.ElectionType;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.ElectionNotNeededException;
+
+/**
+ * Elects the preferred leaders of partitions in batches of at most {@code batchSize} partitions,
+ * with at most {@code maxInFlight} requests outstanding and a pause before sending each batch after the first,
+ * so that electing many partitions doesn't overload the controller.
+ */
+public class PreferredLeaderElector {
+
+    private final Admin admin;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Duration pause;
+
+    public PreferredLeaderElector(Admin admin, int batchSize, int maxInFlight, Duration pause) {
+        if (batchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and max in-flight requests must be positive");
+        }
+        if (pause.isNegative()) {
+            throw new IllegalArgumentException("The pause between batches can't be negative");
+        }
+        this.admin = admin;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.pause = pause;
+    }
+
+    private static class Batch {
+        final Set<TopicPartition> partitions;
+        final KafkaFuture<Map<TopicPartition, Optional<Throwable>>> result;
+
+        Batch(Set<TopicPartition> partitions, KafkaFuture<Map<TopicPartition, Optional<Throwable>>> result) {
+            this.partitions = partitions;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Elects the preferred leaders of the given partitions, printing progress to {@code progress} as each batch completes.
+     * A partition which is already led by its preferred leader counts as elected.
+     * @return The partitions whose preferred leader couldn't be elected, and why.
+     */
+    public Map<TopicPartition, Throwable> elect(List<TopicPartition> partitions, PrintWriter progress) throws InterruptedException {
+        Map<TopicPartition, Throwable> failures = new LinkedHashMap<>();
+        Deque<Batch> inFlight = new ArrayDeque<>(maxInFlight);
+        int completed = 0;
+        for (int start = 0; start < partitions.size(); start += batchSize) {
+            if (start > 0 && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+            if (inFlight.size() >= maxInFlight) {
+                completed += awaitOldest(inFlight, failures);
+                printProgress(progress, completed, partitions.size(), failures.size());
+            }
+            Set<TopicPartition> batch = new HashSet<>(partitions.subList(start, Math.min(start + batchSize, partitions.size())));
+            inFlight.add(new Batch(batch, admin.electLeaders(ElectionType.PREFERRED, batch).partitions()));
+        }
+        while (!inFlight.isEmpty()) {
+            completed += awaitOldest(inFlight, failures);
+            printProgress(progress, completed, partitions.size(), failures.size());
+        }
+        return failures;
+    }
+
+    private static void printProgress(PrintWriter progress, int completed, int total, int failed) {
+        progress.printf("Elected %d of %d partitions (%d failed)%n", completed - failed, total, failed);
+        progress.flush();
+    }
+
+    /** Waits for the oldest batch to complete, recording its failures and returning its size. */
+    private static int awaitOldest(Deque<Batch> inFlight, Map<TopicPartition, Throwable> failures) throws InterruptedException {
+        Batch batch = inFlight.poll();
+        try {
+            batch.result.get().forEach((tp, error) -> {
+                if (error.isPresent() && !(error.get() instanceof ElectionNotNeededException)) {
+                    failures.put(tp, error.get());
+                }
+            });
+        } catch (ExecutionException e) {
+            batch.partitions.forEach(tp -> failures.put(tp, e.getCause()));
+        }
+        return batch.partitions.size();
+    }
+}
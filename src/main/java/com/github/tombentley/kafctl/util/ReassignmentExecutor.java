@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionReplica;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.ReplicaNotAvailableException;
+
+/**
+ * Executes a {@link ReassignmentPlan} in batches of at most {@code batchSize} partitions,
+ * waiting for each batch to finish (according to {@code listPartitionReassignments}) before starting the next,
+ * so that reassigning many partitions doesn't saturate the inter-broker network.
+ * When a {@code throttle} is given the brokers' {@code leader.replication.throttled.rate} and
+ * {@code follower.replication.throttled.rate} are set to it while the plan is executing, and the
+ * {@code leader.replication.throttled.replicas} and {@code follower.replication.throttled.replicas} of each batch's
+ * topics are set to the moving replicas. The throttles are removed once every batch has finished.
+ * New replicas with a {@linkplain ReassignmentPlan#logDirs() log dir} are created in it.
+ */
+public class ReassignmentExecutor {
+
+    static final String LEADER_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_RATE = "follower.replication.throttled.rate";
+    static final String LEADER_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_REPLICAS = "follower.replication.throttled.replicas";
+
+    private final Admin admin;
+    private final int batchSize;
+    private final long throttle;
+    private final Duration pollInterval;
+
+    /**
+     * @param admin The admin client.
+     * @param batchSize The maximum number of partitions to reassign at once.
+     * @param throttle The replication throttle in bytes per second, or a negative number for no throttle.
+     * @param pollInterval How often to check whether a batch has finished.
+     */
+    public ReassignmentExecutor(Admin admin, int batchSize, long throttle, Duration pollInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (throttle == 0) {
+            throw new IllegalArgumentException("The throttle must be positive, or negative for no throttle");
+        }
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("The poll interval must be positive");
+        }
+        this.admin = admin;
+        this.batchSize = batchSize;
+        this.throttle = throttle;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Executes the given plan, printing progress to {@code progress}.
+     * If this throws, any throttles are left in place, since a batch may still be moving.
+     * @return The partitions which couldn't be reassigned, and why.
+     */
+    public Map<TopicPartition, Throwable> execute(ReassignmentPlan plan, PrintWriter progress) throws ExecutionException, InterruptedException {
+        Map<TopicPartition, Throwable> failures = new LinkedHashMap<>();
+        List<TopicPartition> partitions = new ArrayList<>(plan.target().keySet());
+        Set<Integer> brokers = new TreeSet<>();
+        plan.current().values().forEach(brokers::addAll);
+        plan.target().values().forEach(brokers::addAll);
+        Set<String> throttledTopics = new TreeSet<>();
+        if (throttle > 0) {
+            alterBrokerThrottles(brokers, AlterConfigOp.OpType.SET);
+        }
+        int completed = 0;
+        for (int start = 0; start < partitions.size(); start += batchSize) {
+            List<TopicPartition> batch = partitions.subList(start, Math.min(start + batchSize, partitions.size()));
+            if (throttle > 0) {
+                throttledTopics.addAll(throttleReplicas(plan, batch));
+            }
+            placeReplicas(plan, batch, progress);
+            Map<TopicPartition, Optional<NewPartitionReassignment>> reassignments = new HashMap<>();
+            for (TopicPartition tp : batch) {
+                reassignments.put(tp, Optional.of(new NewPartitionReassignment(plan.target().get(tp))));
+            }
+            Set<TopicPartition> moving = new TreeSet<>(ReassignmentPlan.ORDER);
+            for (var entry : admin.alterPartitionReassignments(reassignments).values().entrySet()) {
+                try {
+                    entry.getValue().get();
+                    moving.add(entry.getKey());
+                } catch (ExecutionException e) {
+                    failures.put(entry.getKey(), e.getCause());
+                }
+            }
+            int remaining = moving.size();
+            printProgress(progress, completed + batch.size() - remaining, partitions.size(), remaining, failures.size());
+            while (!moving.isEmpty()) {
+                Thread.sleep(pollInterval.toMillis());
+                moving.retainAll(admin.listPartitionReassignments(moving).reassignments().get().keySet());
+                if (moving.size() != remaining) {
+                    remaining = moving.size();
+                    printProgress(progress, completed + batch.size() - remaining, partitions.size(), remaining, failures.size());
+                }
+            }
+            completed += batch.size();
+        }
+        if (throttle > 0) {
+            alterBrokerThrottles(brokers, AlterConfigOp.OpType.DELETE);
+            alterConfigs(throttledTopics.stream().collect(Collectors.toMap(
+                    name -> new ConfigResource(ConfigResource.Type.TOPIC, name),
+                    name -> List.of(new AlterConfigOp(new ConfigEntry(LEADER_REPLICAS, ""), AlterConfigOp.OpType.DELETE),
+                            new AlterConfigOp(new ConfigEntry(FOLLOWER_REPLICAS, ""), AlterConfigOp.OpType.DELETE)))));
+        }
+        return failures;
+    }
+
+    private static void printProgress(PrintWriter progress, int done, int total, int inProgress, int failed) {
+        progress.printf("Reassigned %d of %d partitions (%d in progress, %d failed)%n", done - failed, total, inProgress, failed);
+        progress.flush();
+    }
+
+    /** Tells the brokers which log dirs to create the batch's new replicas in, where the plan says. */
+    private void placeReplicas(ReassignmentPlan plan, List<TopicPartition> batch, PrintWriter progress) throws InterruptedException {
+        Map<TopicPartitionReplica, String> dirs = new HashMap<>();
+        for (TopicPartition tp : batch) {
+            for (int replica : plan.target().get(tp)) {
+                var tpr = new TopicPartitionReplica(tp.topic(), tp.partition(), replica);
+                String dir = plan.logDirs().get(tpr);
+                if (dir != null) {
+                    dirs.put(tpr, dir);
+                }
+            }
+        }
+        if (dirs.isEmpty()) {
+            return;
+        }
+        for (var entry : admin.alterReplicaLogDirs(dirs).values().entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                // The broker remembers the dir of a replica which doesn't exist yet, and creates it there
+                if (!(e.getCause() instanceof ReplicaNotAvailableException)) {
+                    TopicPartitionReplica tpr = entry.getKey();
+                    progress.printf("Unable to put the replica of %s/%d on broker %d in log dir %s: %s%n",
+                            tpr.topic(), tpr.partition(), tpr.brokerId(), dirs.get(tpr), e.getCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void alterBrokerThrottles(Collection<Integer> brokers, AlterConfigOp.OpType op) throws ExecutionException, InterruptedException {
+        String rate = Long.toString(throttle);
+        alterConfigs(brokers.stream().collect(Collectors.toMap(
+                id -> new ConfigResource(ConfigResource.Type.BROKER, id.toString()),
+                id -> List.of(new AlterConfigOp(new ConfigEntry(LEADER_RATE, rate), op),
+                        new AlterConfigOp(new ConfigEntry(FOLLOWER_RATE, rate), op)))));
+    }
+
+    /**
+     * Throttles replication from the current replicas to the new replicas of the partitions in the batch,
+     * returning the names of the topics throttled.
+     */
+    private Set<String> throttleReplicas(ReassignmentPlan plan, List<TopicPartition> batch) throws ExecutionException, InterruptedException {
+        Map<String, List<String>> leaders = new TreeMap<>();
+        Map<String, List<String>> followers = new TreeMap<>();
+        for (TopicPartition tp : batch) {
+            List<Integer> current = plan.current().get(tp);
+            boolean moving = false;
+            for (int replica : plan.target().get(tp)) {
+                if (!current.contains(replica)) {
+                    followers.computeIfAbsent(tp.topic(), t -> new ArrayList<>()).add(tp.partition() + ":" + replica);
+                    moving = true;
+                }
+            }
+            if (moving) {
+                for (int replica : current) {
+                    leaders.computeIfAbsent(tp.topic(), t -> new ArrayList<>()).add(tp.partition() + ":" + replica);
+                }
+            }
+        }
+        alterConfigs(followers.keySet().stream().collect(Collectors.toMap(
+                name -> new ConfigResource(ConfigResource.Type.TOPIC, name),
+                name -> List.of(
+                        new AlterConfigOp(new ConfigEntry(LEADER_REPLICAS, String.join(",", leaders.get(name))), AlterConfigOp.OpType.SET),
+                        new AlterConfigOp(new ConfigEntry(FOLLOWER_REPLICAS, String.join(",", followers.get(name))), AlterConfigOp.OpType.SET)))));
+        return followers.keySet();
+    }
+
+    private void alterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> configs) throws ExecutionException, InterruptedException {
+        if (!configs.isEmpty()) {
+            admin.incrementalAlterConfigs(configs).all().get();
+        }
+    }
+}
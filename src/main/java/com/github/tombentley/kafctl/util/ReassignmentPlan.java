@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionReplica;
+
+/**
+ * A change to the replicas of some partitions, which can be read from and written to the JSON format used by
+ * {@code kafka-reassign-partitions.sh}:
+ * <pre><code>
+ * {"version":1,"partitions":[{"topic":"my-topic","partition":0,"replicas":[1,2,3]}]}
+ * </code></pre>
+ * Only partitions whose replicas actually change are included.
+ * The optional {@code log_dirs} give the log dir of each of the partition's replicas on its broker, or {@code any}.
+ */
+public class ReassignmentPlan {
+
+    /** The log dir used in reassignment JSON for a replica which can go in any of its broker's log dirs. */
+    static final String ANY_LOG_DIR = "any";
+
+    static final Comparator<TopicPartition> ORDER = Comparator.comparing(TopicPartition::topic)
+            .thenComparingInt(TopicPartition::partition);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Map<TopicPartition, List<Integer>> current = new TreeMap<>(ORDER);
+    private final Map<TopicPartition, List<Integer>> target = new TreeMap<>(ORDER);
+    private final Map<TopicPartitionReplica, String> logDirs = new HashMap<>();
+
+    ReassignmentPlan() {
+    }
+
+    void put(TopicPartition tp, List<Integer> currentReplicas, List<Integer> targetReplicas) {
+        if (!currentReplicas.equals(targetReplicas)) {
+            current.put(tp, currentReplicas);
+            target.put(tp, targetReplicas);
+        }
+    }
+
+    /**
+     * Plans changing the replication factor of the given partitions.
+     * Existing replicas are kept where possible, so the only data which moves is that of new replicas.
+     * New replicas are placed on the broker in the fewest of the partition's racks, and then on the broker
+     * with the fewest replicas in the index.
+     * When decreasing the replication factor the preferred leader is always kept, and the replicas removed are
+     * those out of the ISR first, then those sharing a rack with another replica, then those on the busiest brokers.
+     * @param partitions The index of the partitions.
+     * @param rows The rows of the partitions to change.
+     * @param replicationFactor The new replication factor.
+     * @param brokers The brokers in the cluster.
+     */
+    public static ReassignmentPlan changeReplicationFactor(PartitionIndex partitions, BitSet rows,
+                                                           int replicationFactor, Collection<Node> brokers) {
+        checkReplicationFactor(replicationFactor, brokers);
+        Loads loads = new Loads(partitions, brokers);
+        ReassignmentPlan plan = new ReassignmentPlan();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            plan.changeReplicationFactor(partitions, loads, row, replicationFactor);
+        }
+        return plan;
+    }
+
+    /**
+     * Plans changing the replication factor of the partitions of several topics, as
+     * {@link #changeReplicationFactor(PartitionIndex, BitSet, int, Collection)} does, but spreading the new replicas
+     * of all the topics evenly between the brokers.
+     * @param partitions The index of the partitions.
+     * @param replicationFactors The new replication factor of each topic.
+     * @param brokers The brokers in the cluster.
+     */
+    public static ReassignmentPlan changeReplicationFactors(PartitionIndex partitions, Map<String, Integer> replicationFactors,
+                                                            Collection<Node> brokers) {
+        for (int replicationFactor : replicationFactors.values()) {
+            checkReplicationFactor(replicationFactor, brokers);
+        }
+        Loads loads = new Loads(partitions, brokers);
+        ReassignmentPlan plan = new ReassignmentPlan();
+        for (int row = 0; row < partitions.size(); row++) {
+            Integer replicationFactor = replicationFactors.get(partitions.topicName(row));
+            if (replicationFactor != null) {
+                plan.changeReplicationFactor(partitions, loads, row, replicationFactor);
+            }
+        }
+        return plan;
+    }
+
+    private static void checkReplicationFactor(int replicationFactor, Collection<Node> brokers) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("The replication factor must be positive");
+        }
+        if (replicationFactor > brokers.size()) {
+            throw new IllegalArgumentException("The replication factor " + replicationFactor
+                    + " is larger than the number of brokers " + brokers.size());
+        }
+    }
+
+    private void changeReplicationFactor(PartitionIndex partitions, Loads loads, int row, int replicationFactor) {
+        List<Integer> replicas = new ArrayList<>(partitions.replicationFactor(row));
+        for (int replica : partitions.replicas(row)) {
+            replicas.add(replica);
+        }
+        List<Integer> result = new ArrayList<>(replicas);
+        while (result.size() < replicationFactor) {
+            int broker = loads.leastLoaded(result);
+            result.add(broker);
+            loads.add(broker, 1);
+        }
+        while (result.size() > replicationFactor) {
+            int victim = 1;
+            for (int i = 2; i < result.size(); i++) {
+                if (loads.compareVictims(partitions, row, result, result.get(i), result.get(victim)) >= 0) {
+                    victim = i;
+                }
+            }
+            loads.add(result.remove(victim), -1);
+        }
+        put(new TopicPartition(partitions.topicName(row), partitions.partition(row)), replicas, result);
+    }
+
+    /** The number of replicas on each broker, used to spread new replicas evenly. */
+    private static class Loads {
+        private final int[] brokerIds;
+        private final String[] racks;
+        private final int[] counts;
+
+        Loads(PartitionIndex partitions, Collection<Node> brokers) {
+            brokerIds = brokers.stream().mapToInt(Node::id).sorted().toArray();
+            racks = new String[brokerIds.length];
+            counts = new int[brokerIds.length];
+            for (int i = 0; i < brokerIds.length; i++) {
+                racks[i] = partitions.rack(brokerIds[i]);
+            }
+            for (int row = 0; row < partitions.size(); row++) {
+                for (int replica : partitions.replicas(row)) {
+                    add(replica, 1);
+                }
+            }
+        }
+
+        void add(int brokerId, int delta) {
+            int i = Arrays.binarySearch(brokerIds, brokerId);
+            if (i >= 0) {
+                counts[i] += delta;
+            }
+        }
+
+        int count(int brokerId) {
+            int i = Arrays.binarySearch(brokerIds, brokerId);
+            return i >= 0 ? counts[i] : 0;
+        }
+
+        private int rackCount(List<Integer> replicas, String rack, int exclude) {
+            int n = 0;
+            for (int replica : replicas) {
+                int i = Arrays.binarySearch(brokerIds, replica);
+                if (replica != exclude && i >= 0 && Objects.equals(racks[i], rack)) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        /** The broker which is not already a replica, and is in the least used rack and has the fewest replicas. */
+        int leastLoaded(List<Integer> replicas) {
+            int best = -1;
+            int bestRackCount = 0;
+            for (int i = 0; i < brokerIds.length; i++) {
+                if (replicas.contains(brokerIds[i])) {
+                    continue;
+                }
+                int rackCount = rackCount(replicas, racks[i], -1);
+                if (best < 0 || rackCount < bestRackCount
+                        || rackCount == bestRackCount && counts[i] < counts[best]) {
+                    best = i;
+                    bestRackCount = rackCount;
+                }
+            }
+            return brokerIds[best];
+        }
+
+        /** Positive if broker {@code a} is a better replica to remove than broker {@code b}. */
+        int compareVictims(PartitionIndex partitions, int row, List<Integer> replicas, int a, int b) {
+            int cmp = Boolean.compare(!partitions.isInIsr(row, a), !partitions.isInIsr(row, b));
+            if (cmp == 0) {
+                cmp = Integer.compare(rackCount(replicas, partitions.rack(a), a), rackCount(replicas, partitions.rack(b), b));
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(count(a), count(b));
+            }
+            return cmp;
+        }
+    }
+
+    /**
+     * Reads the target replicas, and any log dirs, from a reassignment JSON file.
+     * The result has no current replicas until it's {@linkplain #resolve(PartitionIndex) resolved}.
+     */
+    public static ReassignmentPlan read(InputStream in) {
+        Json json;
+        try {
+            json = MAPPER.readValue(in, Json.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid reassignment: " + e.getMessage(), e);
+        }
+        ReassignmentPlan plan = new ReassignmentPlan();
+        for (Json.Partition p : json.partitions) {
+            if (p.topic == null || p.replicas == null) {
+                throw new RuntimeException("Invalid reassignment: each partition needs a topic, partition and replicas");
+            }
+            TopicPartition tp = new TopicPartition(p.topic, p.partition);
+            if (p.replicas.isEmpty() || new HashSet<>(p.replicas).size() != p.replicas.size()) {
+                throw new RuntimeException("Invalid reassignment: partition " + tp + " must have distinct replicas");
+            }
+            if (p.logDirs != null && p.logDirs.size() != p.replicas.size()) {
+                throw new RuntimeException("Invalid reassignment: partition " + tp + " must have a log dir for each replica");
+            }
+            if (plan.target.put(tp, List.copyOf(p.replicas)) != null) {
+                throw new RuntimeException("Invalid reassignment: partition " + tp + " is given more than once");
+            }
+            for (int i = 0; p.logDirs != null && i < p.logDirs.size(); i++) {
+                if (!ANY_LOG_DIR.equals(p.logDirs.get(i))) {
+                    plan.logDirs.put(new TopicPartitionReplica(p.topic, p.partition, p.replicas.get(i)), p.logDirs.get(i));
+                }
+            }
+        }
+        return plan;
+    }
+
+    /** The names of the topics in the plan. */
+    public Set<String> topicNames() {
+        Set<String> names = new TreeSet<>();
+        target.keySet().forEach(tp -> names.add(tp.topic()));
+        return names;
+    }
+
+    /**
+     * The plan for moving from the current replicas in the given index to this plan's target replicas.
+     * Partitions whose replicas wouldn't change are omitted, as are the log dirs of replicas which aren't moving.
+     * @param partitions The index of the current replicas, which must include all the partitions in this plan.
+     */
+    public ReassignmentPlan resolve(PartitionIndex partitions) {
+        Map<TopicPartition, List<Integer>> currents = new HashMap<>();
+        for (int row = 0; row < partitions.size(); row++) {
+            List<Integer> replicas = new ArrayList<>(partitions.replicationFactor(row));
+            for (int replica : partitions.replicas(row)) {
+                replicas.add(replica);
+            }
+            currents.put(new TopicPartition(partitions.topicName(row), partitions.partition(row)), replicas);
+        }
+        ReassignmentPlan plan = new ReassignmentPlan();
+        target.forEach((tp, replicas) -> {
+            List<Integer> current = currents.get(tp);
+            if (current == null) {
+                throw new RuntimeException("Invalid reassignment: partition " + tp + " does not exist");
+            }
+            plan.put(tp, current, replicas);
+        });
+        logDirs.forEach((replica, dir) -> {
+            TopicPartition tp = new TopicPartition(replica.topic(), replica.partition());
+            if (plan.target.containsKey(tp) && !plan.current.get(tp).contains(replica.brokerId())) {
+                plan.logDirs.put(replica, dir);
+            }
+        });
+        return plan;
+    }
+
+    /** Writes the target replicas as reassignment JSON, leaving the stream open. */
+    public void write(OutputStream out) throws IOException {
+        Json json = new Json();
+        target.forEach((tp, replicas) -> {
+            Json.Partition p = new Json.Partition();
+            p.topic = tp.topic();
+            p.partition = tp.partition();
+            p.replicas = replicas;
+            for (int i = 0; i < replicas.size(); i++) {
+                String dir = logDirs.get(new TopicPartitionReplica(tp.topic(), tp.partition(), replicas.get(i)));
+                if (dir != null && p.logDirs == null) {
+                    p.logDirs = new ArrayList<>(Collections.nCopies(replicas.size(), ANY_LOG_DIR));
+                }
+                if (dir != null) {
+                    p.logDirs.set(i, dir);
+                }
+            }
+            json.partitions.add(p);
+        });
+        MAPPER.writeValue(out, json);
+    }
+
+    @RegisterForReflection
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Json {
+        @JsonProperty
+        int version = 1;
+        @JsonProperty(required = true)
+        List<Partition> partitions = new ArrayList<>();
+
+        @RegisterForReflection
+        @JsonIgnoreProperties(ignoreUnknown = true)
+        static class Partition {
+            @JsonProperty(required = true)
+            String topic;
+            @JsonProperty(required = true)
+            int partition;
+            @JsonProperty(required = true)
+            List<Integer> replicas;
+            @JsonProperty("log_dirs")
+            @JsonInclude(JsonInclude.Include.NON_NULL)
+            List<String> logDirs;
+        }
+    }
+
+    public boolean isEmpty() {
+        return target.isEmpty();
+    }
+
+    /** The current replicas of the partitions which are changing. */
+    public Map<TopicPartition, List<Integer>> current() {
+        return current;
+    }
+
+    /** The target replicas of the partitions which are changing. */
+    public Map<TopicPartition, List<Integer>> target() {
+        return target;
+    }
+
+    /** The log dirs of the replicas which will be created, where they're not {@code any}. */
+    public Map<TopicPartitionReplica, String> logDirs() {
+        return logDirs;
+    }
+
+    /** The number of replicas which will be created, and so need their data copying. */
+    public int addedReplicas() {
+        int added = 0;
+        for (var entry : target.entrySet()) {
+            for (int replica : entry.getValue()) {
+                if (!current.get(entry.getKey()).contains(replica)) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+}
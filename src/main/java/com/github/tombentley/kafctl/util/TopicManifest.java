@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * The desired state of some topics, as read from a YAML file like:
+ * <pre><code>
+ * topics:
+ *   - name: my-topic
+ *     partitions: 12
+ *     replicationFactor: 3
+ *     configs:
+ *       retention.ms: "86400000"
+ * </code></pre>
+ * The {@code partitions}, {@code replicationFactor} and {@code configs} are optional.
+ * When {@code configs} is given it is the complete set of the topic's config overrides,
+ * so any other overrides the topic has will be removed.
+ * When it's omitted the topic's configs are left alone.
+ */
+@RegisterForReflection
+public class TopicManifest {
+
+    @RegisterForReflection
+    public static class TopicSpec {
+        @JsonProperty(required = true)
+        String name;
+        @JsonProperty
+        Integer partitions;
+        @JsonProperty
+        Short replicationFactor;
+        @JsonProperty
+        Map<String, String> configs;
+
+        public String name() {
+            return name;
+        }
+
+        public Integer partitions() {
+            return partitions;
+        }
+
+        public Short replicationFactor() {
+            return replicationFactor;
+        }
+
+        public Map<String, String> configs() {
+            return configs;
+        }
+    }
+
+    @JsonProperty
+    List<TopicSpec> topics = List.of();
+
+    public List<TopicSpec> topics() {
+        return topics;
+    }
+
+    public static TopicManifest read(InputStream in) {
+        TopicManifest manifest;
+        try {
+            manifest = new YAMLMapper()
+                    .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(in, TopicManifest.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid manifest: " + e.getMessage(), e);
+        }
+        Set<String> names = new HashSet<>();
+        for (TopicSpec spec : manifest.topics) {
+            if (!names.add(spec.name)) {
+                throw new RuntimeException("Invalid manifest: topic " + spec.name + " is given more than once");
+            }
+        }
+        return manifest;
+    }
+}
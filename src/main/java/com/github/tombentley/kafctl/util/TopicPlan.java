@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+
+/**
+ * The changes needed to bring a cluster's topics into line with a {@link TopicManifest}.
+ * The current state is read using a single {@code describeTopics} and a single {@code describeConfigs} call,
+ * and only the topics, partition counts and config overrides which differ are changed.
+ * Replication factors which differ are changed by reassigning the topic's partitions,
+ * using {@link ReassignmentPlan#changeReplicationFactors(PartitionIndex, Map, Collection)}.
+ */
+public class TopicPlan {
+
+    private final Map<String, NewTopic> creates = new TreeMap<>();
+    private final Map<String, NewPartitions> partitionIncreases = new TreeMap<>();
+    private final Map<String, Integer> currentPartitions = new HashMap<>();
+    private final Map<String, List<AlterConfigOp>> configChanges = new TreeMap<>();
+    private final Map<String, String> currentConfigs = new HashMap<>();
+    private final Map<String, Integer> replicationFactors = new TreeMap<>();
+    private final Map<String, Integer> currentReplicationFactors = new HashMap<>();
+    private final Map<String, String> problems = new TreeMap<>();
+
+    private TopicPlan() {
+    }
+
+    /**
+     * Computes the plan for the given manifest.
+     */
+    public static TopicPlan compute(Admin admin, TopicManifest manifest) throws ExecutionException, InterruptedException {
+        TopicPlan plan = new TopicPlan();
+        List<String> names = manifest.topics().stream().map(TopicManifest.TopicSpec::name).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return plan;
+        }
+        Map<String, KafkaFuture<TopicDescription>> descriptions = admin.describeTopics(names).values();
+        Map<String, TopicDescription> existing = new HashMap<>();
+        for (String name : names) {
+            try {
+                existing.put(name, descriptions.get(name).get());
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                    throw e;
+                }
+            }
+        }
+        Map<ConfigResource, Config> configs = existing.isEmpty() ? Map.of() : admin.describeConfigs(existing.keySet().stream()
+                .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name))
+                .collect(Collectors.toList())).all().get();
+        for (TopicManifest.TopicSpec spec : manifest.topics()) {
+            TopicDescription td = existing.get(spec.name());
+            if (td == null) {
+                plan.creates.put(spec.name(), new NewTopic(spec.name(),
+                        Optional.ofNullable(spec.partitions()),
+                        Optional.ofNullable(spec.replicationFactor()))
+                        .configs(spec.configs()));
+            } else {
+                plan.diff(spec, td, configs.get(new ConfigResource(ConfigResource.Type.TOPIC, spec.name())));
+            }
+        }
+        if (!plan.replicationFactors.isEmpty()) {
+            int brokers = admin.describeCluster().nodes().get().size();
+            plan.replicationFactors.forEach((name, replicationFactor) -> {
+                if (replicationFactor > brokers) {
+                    plan.problem(name, "cannot change replication factor to " + replicationFactor
+                            + ", which is larger than the number of brokers " + brokers);
+                }
+            });
+        }
+        return plan;
+    }
+
+    private void diff(TopicManifest.TopicSpec spec, TopicDescription td, Config config) {
+        int partitions = td.partitions().size();
+        if (spec.partitions() != null && spec.partitions() != partitions) {
+            if (spec.partitions() < partitions) {
+                problem(spec.name(), "cannot decrease partitions from " + partitions + " to " + spec.partitions());
+            } else {
+                partitionIncreases.put(spec.name(), NewPartitions.increaseTo(spec.partitions()));
+                currentPartitions.put(spec.name(), partitions);
+            }
+        }
+        if (spec.replicationFactor() != null) {
+            if (spec.replicationFactor() < 1) {
+                problem(spec.name(), "cannot change replication factor to " + spec.replicationFactor());
+            } else if (td.partitions().stream().anyMatch(p -> p.replicas().size() != spec.replicationFactor())) {
+                replicationFactors.put(spec.name(), (int) spec.replicationFactor());
+                currentReplicationFactors.put(spec.name(), td.partitions().get(0).replicas().size());
+            }
+        }
+        if (spec.configs() != null) {
+            List<AlterConfigOp> ops = new ArrayList<>();
+            for (Map.Entry<String, String> desired : new TreeMap<>(spec.configs()).entrySet()) {
+                ConfigEntry current = config.get(desired.getKey());
+                if (current == null || current.isSensitive() || !Objects.equals(current.value(), desired.getValue())) {
+                    ops.add(new AlterConfigOp(new ConfigEntry(desired.getKey(), desired.getValue()), AlterConfigOp.OpType.SET));
+                    if (current != null && !current.isSensitive()) {
+                        currentConfigs.put(spec.name() + "/" + desired.getKey(), current.value());
+                    }
+                }
+            }
+            for (ConfigEntry current : config.entries()) {
+                if (current.source() == ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG
+                        && !spec.configs().containsKey(current.name())) {
+                    ops.add(new AlterConfigOp(new ConfigEntry(current.name(), null), AlterConfigOp.OpType.DELETE));
+                    currentConfigs.put(spec.name() + "/" + current.name(), current.value());
+                }
+            }
+            if (!ops.isEmpty()) {
+                configChanges.put(spec.name(), ops);
+            }
+        }
+    }
+
+    private void problem(String name, String problem) {
+        problems.merge(name, problem, (a, b) -> a + "; " + b);
+    }
+
+    /** Whether the plan has no changes to make. */
+    public boolean isEmpty() {
+        return creates.isEmpty() && partitionIncreases.isEmpty() && configChanges.isEmpty() && replicationFactors.isEmpty();
+    }
+
+    /** Changes the manifest asks for which can't be made, keyed by topic name. */
+    public Map<String, String> problems() {
+        return problems;
+    }
+
+    /**
+     * Writes a human readable description of the plan.
+     */
+    public void print(PrintWriter out) {
+        creates.values().forEach(topic -> out.println("+ create topic " + topic.name()
+                + " (partitions=" + topic.numPartitions()
+                + ", replication factor=" + topic.replicationFactor()
+                + (topic.configs() != null ? ", " + topic.configs().size() + " config(s)" : "") + ")"));
+        partitionIncreases.forEach((name, newPartitions) -> out.println("~ alter topic " + name
+                + " partitions " + currentPartitions.get(name) + " -> " + newPartitions.totalCount()));
+        replicationFactors.forEach((name, replicationFactor) -> out.println("~ alter topic " + name
+                + " replication factor " + currentReplicationFactors.get(name) + " -> " + replicationFactor));
+        configChanges.forEach((name, ops) -> ops.forEach(op -> {
+            String current = currentConfigs.get(name + "/" + op.configEntry().name());
+            if (op.opType() == AlterConfigOp.OpType.DELETE) {
+                out.println("- alter topic " + name + " delete config " + op.configEntry().name() + " (was " + current + ")");
+            } else {
+                out.println("~ alter topic " + name + " set config " + op.configEntry().name() + "=" + op.configEntry().value()
+                        + (current != null ? " (was " + current + ")" : ""));
+            }
+        }));
+        problems.forEach((name, problem) -> out.println("! topic " + name + ": " + problem));
+    }
+
+    /**
+     * Makes the changes: Creating topics, then increasing partitions, then altering configs.
+     * Replication factors are not changed by this method; see {@link #reassignment(PartitionIndex, Collection)}.
+     * Each kind of change is sent in batches of up to {@code batchSize} topics, with
+     * up to {@code maxInFlight} batches outstanding at once.
+     * @return The topics which could not be changed, and why.
+     */
+    public Map<String, Throwable> execute(Admin admin, int batchSize, int maxInFlight) throws InterruptedException {
+        if (batchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and max in-flight requests must be positive");
+        }
+        Map<String, Throwable> failures = new TreeMap<>();
+        inBatches(new ArrayList<>(creates.values()), batchSize, maxInFlight,
+                batch -> admin.createTopics(batch).values(), failures);
+        inBatches(new ArrayList<>(partitionIncreases.entrySet()), batchSize, maxInFlight,
+                batch -> admin.createPartitions(toMap(batch)).values(), failures);
+        inBatches(new ArrayList<>(configChanges.entrySet()), batchSize, maxInFlight,
+                batch -> admin.incrementalAlterConfigs(batch.stream().collect(Collectors.toMap(
+                        entry -> new ConfigResource(ConfigResource.Type.TOPIC, entry.getKey()),
+                        entry -> (Collection<AlterConfigOp>) entry.getValue()))).values().entrySet().stream()
+                        .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue)),
+                failures);
+        return failures;
+    }
+
+    /** The topics whose replication factor needs changing. */
+    public Set<String> replicationFactorChanges() {
+        return replicationFactors.keySet();
+    }
+
+    /**
+     * Plans the reassignment which changes the replication factors.
+     * This should be called after {@link #execute(Admin, int, int)}, with an index describing the topics in
+     * {@link #replicationFactorChanges()}, so that any partitions added by the plan get the new replication factor too.
+     * @param partitions The index of the topics.
+     * @param brokers The brokers in the cluster.
+     */
+    public ReassignmentPlan reassignment(PartitionIndex partitions, Collection<Node> brokers) {
+        return ReassignmentPlan.changeReplicationFactors(partitions, replicationFactors, brokers);
+    }
+
+    private static <V> Map<String, V> toMap(List<Map.Entry<String, V>> entries) {
+        return entries.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static <T> void inBatches(List<T> items, int batchSize, int maxInFlight,
+                                      Function<List<T>, Map<String, KafkaFuture<Void>>> submit,
+                                      Map<String, Throwable> failures) throws InterruptedException {
+        Deque<Map<String, KafkaFuture<Void>>> inFlight = new ArrayDeque<>(maxInFlight);
+        for (int start = 0; start < items.size(); start += batchSize) {
+            if (inFlight.size() >= maxInFlight) {
+                awaitOldest(inFlight, failures);
+            }
+            inFlight.add(submit.apply(items.subList(start, Math.min(start + batchSize, items.size()))));
+        }
+        while (!inFlight.isEmpty()) {
+            awaitOldest(inFlight, failures);
+        }
+    }
+
+    private static void awaitOldest(Deque<Map<String, KafkaFuture<Void>>> inFlight,
+                                    Map<String, Throwable> failures) throws InterruptedException {
+        for (Map.Entry<String, KafkaFuture<Void>> entry : inFlight.poll().entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                failures.putIfAbsent(entry.getKey(), e.getCause());
+            }
+        }
+    }
+}
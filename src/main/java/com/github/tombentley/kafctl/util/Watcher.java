@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Repeatedly polls for some state, printing only the rows which were added, removed or changed since the
+ * previous poll. Each row is identified by a key and has some named fields.
+ * Rows are compared using a hash of their field values, so unchanged rows cost a single comparison.
+ */
+public class Watcher {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ISO_LOCAL_TIME;
+
+    /** Adds the current rows to {@code rows}. */
+    @FunctionalInterface
+    public interface Poll {
+        void poll(Rows rows) throws Exception;
+    }
+
+    /** The rows obtained by a single poll. */
+    public static class Rows {
+        private final Map<String, Row> rows = new LinkedHashMap<>();
+        private final List<Predicate<String>> kept = new ArrayList<>();
+
+        /**
+         * Adds a row.
+         * @param key The key which identifies the row between polls.
+         * @param fields Alternating field names and values.
+         */
+        public void add(String key, String... fields) {
+            if (fields.length % 2 != 0) {
+                throw new IllegalArgumentException("Expected field names and values");
+            }
+            rows.put(key, new Row(fields));
+        }
+
+        /**
+         * Carries forward the previous poll's rows whose keys match, rather than reporting them as removed.
+         * Use this for an entity which could not be described by this poll, so that a transient failure
+         * is not reported as the entity being removed and then added again.
+         * @param keys Matches the keys of the rows to keep.
+         */
+        public void keep(Predicate<String> keys) {
+            kept.add(keys);
+        }
+    }
+
+    private static class Row {
+        private final String[] fields;
+        private final long hash;
+
+        Row(String[] fields) {
+            this.fields = fields;
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 1; i < fields.length; i += 2) {
+                String value = String.valueOf(fields[i]);
+                for (int j = 0; j < value.length(); j++) {
+                    hash ^= value.charAt(j);
+                    hash *= 0x100000001b3L;
+                }
+                // Separate the values, so that ("ab", "c") and ("a", "bc") differ
+                hash ^= 0x1f;
+                hash *= 0x100000001b3L;
+            }
+            this.hash = hash;
+        }
+    }
+
+    private final Duration interval;
+    private final PrintWriter out;
+    private Map<String, Row> previous = new HashMap<>();
+
+    public Watcher(Duration interval, PrintWriter out) {
+        this.interval = interval;
+        this.out = out;
+    }
+
+    /**
+     * Sets the rows which the first poll will be compared with.
+     * This is the state which the caller has already output.
+     */
+    public void baseline(Rows rows) {
+        previous = rows.rows;
+    }
+
+    /**
+     * Polls every interval until the thread is interrupted or a poll fails.
+     * Each poll is made on a scheduled executor, with the given interval between the end of one poll and the
+     * start of the next.
+     */
+    public void watch(Poll poll) throws ExecutionException, InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
+                Rows rows = new Rows();
+                try {
+                    poll.poll(rows);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                compare(rows);
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+            future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void compare(Rows rows) {
+        Map<String, Row> current = rows.rows;
+        for (Map.Entry<String, Row> entry : previous.entrySet()) {
+            for (Predicate<String> keys : rows.kept) {
+                if (keys.test(entry.getKey())) {
+                    current.putIfAbsent(entry.getKey(), entry.getValue());
+                    break;
+                }
+            }
+        }
+        String now = LocalTime.now().truncatedTo(ChronoUnit.SECONDS).format(TIME);
+        for (Map.Entry<String, Row> entry : current.entrySet()) {
+            Row before = previous.remove(entry.getKey());
+            Row after = entry.getValue();
+            if (before == null) {
+                StringBuilder line = new StringBuilder(now).append(" + ").append(entry.getKey());
+                for (int i = 0; i < after.fields.length; i += 2) {
+                    line.append(i == 0 ? " " : ", ").append(after.fields[i]).append(": ").append(after.fields[i + 1]);
+                }
+                out.println(line);
+            } else if (before.hash != after.hash) {
+                StringBuilder line = new StringBuilder(now).append(" ~ ").append(entry.getKey());
+                String separator = " ";
+                for (int i = 0; i < after.fields.length; i += 2) {
+                    String was = i + 1 < before.fields.length ? before.fields[i + 1] : null;
+                    if (!String.valueOf(was).equals(String.valueOf(after.fields[i + 1]))) {
+                        line.append(separator).append(after.fields[i]).append(": ").append(was).append(" -> ").append(after.fields[i + 1]);
+                        separator = ", ";
+                    }
+                }
+                out.println(line);
+            }
+        }
+        for (String key : previous.keySet()) {
+            out.println(now + " - " + key);
+        }
+        out.flush();
+        previous = current;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.github.tombentley.kafctl.command.KcCtlCommand;
+import com.github.tombentley.kafctl.util.AdminClient;
+import com.github.tombentley.kafctl.util.ContextDb;
+import org.apache.kafka.clients.admin.Admin;
+import picocli.CommandLine;
+
+/**
+ * Runs kafctl commands in-process against a given {@link Admin}, rather than a real cluster.
+ * It stands in for the CDI container with a minimal field injector, in which the application scoped
+ * services are singletons, and uses a temporary home directory holding a single context.
+ * Because it sets the {@code user.home} system property only one should be open at a time.
+ * It's used by the command tests, and by the command benchmarks, which depend on the test jar.
+ */
+public final class Kafctl implements CommandLine.IFactory, AutoCloseable {
+
+    public static final String CONTEXT_NAME = "synthetic";
+
+    private final Path home;
+    private final String originalHome;
+    private final Map<Class<?>, Object> beans = new LinkedHashMap<>();
+
+    public Kafctl(Admin admin) throws IOException, ReflectiveOperationException {
+        home = Files.createTempDirectory("kafctl");
+        originalHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+        Path dotDir = Files.createDirectories(home.resolve(ContextDb.DOT_DIR_NAME));
+        Files.writeString(dotDir.resolve("context-" + CONTEXT_NAME + ".properties"), "bootstrap.servers=synthetic:9092\n");
+        Files.writeString(dotDir.resolve("context"), CONTEXT_NAME);
+        beans.put(CommandLine.IFactory.class, this);
+        bean(AdminClient.class).adminFactory(ctx -> admin);
+    }
+
+    /** The home directory, for files which commands read. */
+    public Path home() {
+        return home;
+    }
+
+    /**
+     * Runs the command with the given arguments, discarding its standard output.
+     * @return The number of bytes of standard output.
+     * @throws IllegalStateException If the command failed.
+     */
+    public long run(String... args) {
+        var counter = new CountingStream();
+        execute(counter, System.err, args);
+        return counter.count;
+    }
+
+    /**
+     * Runs the command with the given arguments.
+     * @return The command's standard output.
+     * @throws IllegalStateException If the command failed, with its standard error as the message.
+     */
+    public String output(String... args) {
+        var stdout = new ByteArrayOutputStream();
+        var stderr = new ByteArrayOutputStream();
+        try {
+            execute(stdout, stderr, args);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException(e.getMessage() + ":\n" + stderr.toString(StandardCharsets.UTF_8), e);
+        }
+        return stdout.toString(StandardCharsets.UTF_8);
+    }
+
+    private void execute(OutputStream stdout, OutputStream stderr, String... args) {
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        System.setOut(new PrintStream(stdout, false, StandardCharsets.UTF_8));
+        if (stderr != originalErr) {
+            System.setErr(new PrintStream(stderr, true, StandardCharsets.UTF_8));
+        }
+        int exitCode;
+        try {
+            exitCode = new CommandLine(KcCtlCommand.class, this).execute(args);
+        } finally {
+            System.out.flush();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+        if (exitCode != 0) {
+            throw new IllegalStateException("kafctl " + String.join(" ", args) + " exited with " + exitCode);
+        }
+    }
+
+    @Override
+    public <K> K create(Class<K> cls) throws Exception {
+        K instance = CommandLine.defaultFactory().create(cls);
+        inject(instance);
+        return instance;
+    }
+
+    private <T> T bean(Class<T> type) throws ReflectiveOperationException {
+        Object bean = beans.get(type);
+        if (bean == null) {
+            bean = type.getDeclaredConstructor().newInstance();
+            beans.put(type, bean);
+            inject(bean);
+        }
+        return type.cast(bean);
+    }
+
+    private void inject(Object instance) throws ReflectiveOperationException {
+        for (Class<?> cls = instance.getClass(); cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Inject.class)) {
+                    field.setAccessible(true);
+                    field.set(instance, bean(field.getType()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Object bean : beans.values()) {
+            for (Method method : bean.getClass().getDeclaredMethods()) {
+                if (method.isAnnotationPresent(PreDestroy.class)) {
+                    try {
+                        method.setAccessible(true);
+                        method.invoke(bean);
+                    } catch (IllegalAccessException | InvocationTargetException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        System.setProperty("user.home", originalHome);
+        try (Stream<Path> paths = Files.walk(home)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.github.tombentley.kafctl.Kafctl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplyTest {
+
+    private Kafctl kafctl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kafctl = new Kafctl(TestCluster.create());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        kafctl.close();
+    }
+
+    private String manifest(String yaml) throws Exception {
+        Path path = kafctl.home().resolve("topics.yaml");
+        Files.writeString(path, yaml);
+        return path.toString();
+    }
+
+    private String partitions(String topic) {
+        return kafctl.output("get", "topic", "state", topic, "--no-cache", "-o", "csv",
+                "--columns", "partitionId,replicas");
+    }
+
+    @Test
+    void dryRunPrintsThePlanWithoutChangingAnything() throws Exception {
+        String file = manifest("topics:\n"
+                + "- name: orders\n"
+                + "  partitions: 3\n"
+                + "  replicationFactor: 3\n"
+                + "  configs:\n"
+                + "    retention.ms: \"86400000\"\n"
+                + "- name: payments\n"
+                + "  partitions: 1\n"
+                + "- name: refunds\n"
+                + "  partitions: 2\n"
+                + "  replicationFactor: 1\n");
+        assertEquals("+ create topic refunds (partitions=2, replication factor=1)\n"
+                        + "~ alter topic orders partitions 2 -> 3\n"
+                        + "~ alter topic orders replication factor 2 -> 3\n"
+                        + "~ alter topic orders set config retention.ms=86400000 (was 604800000)\n",
+                kafctl.output("apply", "-f", file, "--dry-run"));
+        assertEquals("partitionId,replicas\n0,\"0,2\"\n1,\"1,2\"\n", partitions("orders"));
+    }
+
+    @Test
+    void appliesTheChanges() throws Exception {
+        String file = manifest("topics:\n"
+                + "- name: orders\n"
+                + "  partitions: 2\n"
+                + "  configs:\n"
+                + "    retention.ms: \"86400000\"\n"
+                + "- name: refunds\n"
+                + "  partitions: 2\n"
+                + "  replicationFactor: 1\n");
+        kafctl.output("apply", "-f", file);
+        assertEquals("", kafctl.output("apply", "-f", file, "--dry-run"));
+        assertEquals(2, partitions("refunds").split("\n").length - 1);
+    }
+
+    @Test
+    void refusesToDecreasePartitions() throws Exception {
+        String file = manifest("topics:\n"
+                + "- name: orders\n"
+                + "  partitions: 1\n");
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> kafctl.output("apply", "-f", file));
+        assertTrue(e.getMessage().contains("no changes were made"), e.getMessage());
+    }
+}
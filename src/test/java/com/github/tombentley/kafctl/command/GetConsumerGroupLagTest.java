@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import com.github.tombentley.kafctl.Kafctl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GetConsumerGroupLagTest {
+
+    private Kafctl kafctl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kafctl = new Kafctl(TestCluster.create());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        kafctl.close();
+    }
+
+    @Test
+    void reportsTheLagOfEachPartition() {
+        assertEquals(" GROUP ID  TOPIC   PARTITION ID  COMMITTED OFFSET  END OFFSET  LAG \n"
+                        + " billing   orders  0             5                 10          5   \n"
+                        + " billing   orders  1             7                 7           0   \n",
+                kafctl.output("get", "consumer-group", "lag", "--no-cache"));
+    }
+
+    @Test
+    void totalsTheLagOfEachGroup() {
+        assertEquals("---\n"
+                        + "- groupId: \"billing\"\n"
+                        + "  lag: 5\n",
+                kafctl.output("get", "consumer-group", "lag", "billing", "--by", "group", "-o", "yaml"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import com.github.tombentley.kafctl.Kafctl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GetTopicStateTest {
+
+    private Kafctl kafctl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kafctl = new Kafctl(TestCluster.create());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        kafctl.close();
+    }
+
+    @Test
+    void describesThePartitionsOfTheTopics() {
+        assertEquals("topicName,partitionId,leader,replicas,isr\n"
+                        + "orders,0,0,\"0,2\",\"0,2\"\n"
+                        + "orders,1,1,\"1,2\",\"1,2\"\n"
+                        + "payments,0,1,1,1\n",
+                kafctl.output("get", "topic", "state", "payments", "orders", "--no-cache", "-o", "csv",
+                        "--columns", "topicName,partitionId,leader,replicas,isr"));
+    }
+
+    @Test
+    void failsForAnUnknownTopic() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> kafctl.output("get", "topic", "state", "orders", "missing", "--no-cache"));
+        assertTrue(e.getMessage().contains("Unable to describe topic missing"), e.getMessage());
+    }
+}
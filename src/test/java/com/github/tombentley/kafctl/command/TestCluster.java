@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.SyntheticAdminClient;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+/**
+ * A small cluster for the command tests, of three brokers in two racks, with topics {@code orders}
+ * (2 partitions, replication factor 2) and {@code payments} (1 partition, replication factor 1),
+ * and an empty consumer group {@code billing} with offsets committed for {@code orders}.
+ */
+final class TestCluster {
+
+    static final List<Node> BROKERS = List.of(
+            new Node(0, "host0", 9092, "a"),
+            new Node(1, "host1", 9092, "a"),
+            new Node(2, "host2", 9092, "b"));
+
+    private TestCluster() {
+    }
+
+    static TopicPartitionInfo partition(int partition, int... replicas) {
+        List<Node> nodes = Arrays.stream(replicas).mapToObj(BROKERS::get).collect(Collectors.toList());
+        return new TopicPartitionInfo(partition, nodes.get(0), nodes, nodes);
+    }
+
+    static SyntheticAdminClient create() {
+        SyntheticAdminClient admin = new SyntheticAdminClient(BROKERS, Duration.ZERO, Duration.ZERO);
+        admin.addTopic(false, "orders", List.of(partition(0, 0, 2), partition(1, 1, 2)), Map.of("retention.ms", "604800000"));
+        admin.addTopic(false, "payments", List.of(partition(0, 1)), Map.of());
+        TopicPartition orders0 = new TopicPartition("orders", 0);
+        TopicPartition orders1 = new TopicPartition("orders", 1);
+        TopicPartition payments0 = new TopicPartition("payments", 0);
+        admin.updateBeginningOffsets(Map.of(orders0, 0L, orders1, 0L, payments0, 0L));
+        admin.updateEndOffsets(Map.of(orders0, 10L, orders1, 7L, payments0, 3L));
+        admin.addGroup(new ConsumerGroupDescription("billing", false, List.of(), "range", ConsumerGroupState.EMPTY, BROKERS.get(0)),
+                Map.of(orders0, new OffsetAndMetadata(5L), orders1, new OffsetAndMetadata(7L)));
+        return admin;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.command;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatchOptionsTest {
+
+    private static GetBrokerState parse(String... args) {
+        GetBrokerState command = new GetBrokerState();
+        new CommandLine(command).parseArgs(args);
+        return command;
+    }
+
+    @Test
+    void numericParametersAfterWatchAreNotTheInterval() {
+        GetBrokerState command = parse("--watch", "1", "2");
+        assertTrue(command.watch.enabled());
+        assertEquals(Duration.ofSeconds(2), command.watch.interval());
+        assertEquals(List.of(1, 2), command.brokerIds);
+    }
+
+    @Test
+    void theIntervalIsASeparateOption() {
+        GetBrokerState command = parse("-w", "--watch-interval", "5", "1");
+        assertTrue(command.watch.enabled());
+        assertEquals(Duration.ofSeconds(5), command.watch.interval());
+        assertEquals(List.of(1), command.brokerIds);
+    }
+
+    @Test
+    void watchingIsOffByDefault() {
+        assertFalse(parse("1").watch.enabled());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that what {@link ArrowWriter} writes can be read back by Arrow's own {@link ArrowStreamReader}.
+ */
+class ArrowWriterTest {
+
+    static class Row {
+        final String topic;
+        final String name;
+        final Integer partition;
+        final Long size;
+        final boolean internal;
+        final int[] replicas;
+
+        Row(String topic, String name, Integer partition, Long size, boolean internal, int... replicas) {
+            this.topic = topic;
+            this.name = name;
+            this.partition = partition;
+            this.size = size;
+            this.internal = internal;
+            this.replicas = replicas;
+        }
+    }
+
+    private static List<ArrowWriter.Column<Row>> columns() {
+        return List.of(
+                new ArrowWriter.StringColumn<>("topic", row -> row.topic, true),
+                new ArrowWriter.StringColumn<>("name", row -> row.name, false),
+                new ArrowWriter.IntColumn<>("partition", row -> row.partition),
+                new ArrowWriter.LongColumn<>("size", row -> row.size),
+                new ArrowWriter.BoolColumn<>("internal", row -> row.internal),
+                new ArrowWriter.IntListColumn<>("replicas", row -> row.replicas));
+    }
+
+    private static byte[] write(Columns selection, int batchSize, List<Row> rows) {
+        PrintStream stdout = System.out;
+        var bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes));
+        try (Output out = Output.stdout().columns(selection);
+             var writer = new ArrowWriter<>(out, columns(), batchSize)) {
+            rows.forEach(writer::add);
+        } finally {
+            System.setOut(stdout);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Reads each batch of the stream, returning the number of rows in each. */
+    private static List<Integer> read(byte[] stream, Consumer<ArrowStreamReader> batchConsumer) throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             var reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            while (reader.loadNextBatch()) {
+                batchSizes.add(reader.getVectorSchemaRoot().getRowCount());
+                batchConsumer.accept(reader);
+            }
+        }
+        return batchSizes;
+    }
+
+    private static String decode(ArrowStreamReader reader, FieldVector indexes, int index) {
+        if (indexes.isNull(index)) {
+            return null;
+        }
+        long id = indexes.getField().getDictionary().getId();
+        Dictionary dictionary;
+        try {
+            dictionary = reader.getDictionaryVectors().get(id);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        int value = (int) ((BaseIntVector) indexes).getValueAsLong(index);
+        return ((VarCharVector) dictionary.getVector()).getObject(value).toString();
+    }
+
+    @Test
+    void roundTripAcrossBatchesWithDeltaDictionaries() throws Exception {
+        List<Row> rows = List.of(
+                new Row("foo", "a", 0, 10L, false, 1, 2, 3),
+                new Row("foo", null, 1, null, true),
+                new Row("bar", "ccc", null, Long.MAX_VALUE, false, 4),
+                // The second batch reuses "foo" and adds "baz", so needs a delta dictionary batch
+                new Row("baz", "", 2, 0L, true, 5, 6),
+                new Row("foo", "é", 3, -1L, false, 7),
+                new Row(null, "d", 4, 5L, false),
+                // The third batch adds nothing new to the dictionary
+                new Row("bar", "e", 5, 6L, true, 8, 9, 10, 11));
+        List<Row> readBack = new ArrayList<>();
+        List<Integer> batchSizes = read(write(Columns.ALL, 3, rows), reader -> {
+            VectorSchemaRoot root;
+            try {
+                root = reader.getVectorSchemaRoot();
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+            FieldVector topic = root.getVector("topic");
+            var name = (VarCharVector) root.getVector("name");
+            var partition = (IntVector) root.getVector("partition");
+            var size = (BigIntVector) root.getVector("size");
+            var internal = (BitVector) root.getVector("internal");
+            var replicas = (ListVector) root.getVector("replicas");
+            for (int i = 0; i < root.getRowCount(); i++) {
+                List<?> list = replicas.getObject(i);
+                readBack.add(new Row(decode(reader, topic, i),
+                        name.isNull(i) ? null : name.getObject(i).toString(),
+                        partition.getObject(i),
+                        size.getObject(i),
+                        internal.getObject(i),
+                        list.stream().mapToInt(o -> (Integer) o).toArray()));
+            }
+        });
+
+        assertEquals(List.of(3, 3, 1), batchSizes);
+        assertEquals(rows.size(), readBack.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row expected = rows.get(i);
+            Row actual = readBack.get(i);
+            assertEquals(expected.topic, actual.topic, "topic of row " + i);
+            assertEquals(expected.name, actual.name, "name of row " + i);
+            assertEquals(expected.partition, actual.partition, "partition of row " + i);
+            assertEquals(expected.size, actual.size, "size of row " + i);
+            assertEquals(expected.internal, actual.internal, "internal of row " + i);
+            assertEquals(Arrays.toString(expected.replicas), Arrays.toString(actual.replicas), "replicas of row " + i);
+        }
+    }
+
+    @Test
+    void onlySelectedColumnsAreWritten() throws Exception {
+        List<String> fieldNames = new ArrayList<>();
+        List<Integer> partitions = new ArrayList<>();
+        read(write(Columns.of(List.of("PARTITION", "topic")), 10, List.of(
+                new Row("foo", "a", 0, 1L, false),
+                new Row("bar", "b", 1, 2L, false))), reader -> {
+            try {
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                root.getSchema().getFields().forEach(field -> fieldNames.add(field.getName()));
+                var partition = (IntVector) root.getVector("partition");
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    partitions.add(partition.get(i));
+                }
+                assertNull(root.getVector("name"));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        assertEquals(List.of("topic", "partition"), fieldNames);
+        assertEquals(List.of(0, 1), partitions);
+    }
+
+    @Test
+    void emptyStreamHasSchemaButNoBatches() throws Exception {
+        byte[] stream = write(Columns.ALL, 10, List.of());
+        try (BufferAllocator allocator = new RootAllocator();
+             var reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            assertNotNull(reader.getVectorSchemaRoot().getSchema().findField("replicas"));
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+}
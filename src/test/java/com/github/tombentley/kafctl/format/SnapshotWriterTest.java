@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.format;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberAssignment;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static ConsumerGroupDescription group(String... memberIds) {
+        List<MemberDescription> members = List.of(memberIds).stream()
+                .map(id -> new MemberDescription(id, "client", "host", new MemberAssignment(Set.of(
+                        new TopicPartition("b", 0), new TopicPartition("a", 10), new TopicPartition("a", 2)))))
+                .collect(Collectors.toList());
+        return new ConsumerGroupDescription("group", false, members, "range", ConsumerGroupState.STABLE,
+                new Node(0, "host", 9092));
+    }
+
+    private static List<String> lines(Path path) throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void replacesTheSnapshotOnlyOnceComplete() throws Exception {
+        Path path = dir.resolve("snap.gz");
+        Files.writeString(path, "previous");
+        try (var writer = new SnapshotWriter(path, "ctx")) {
+            writer.group(group("m1"));
+            assertEquals("previous", Files.readString(path));
+            writer.complete();
+        }
+        assertEquals(2, lines(path).size());
+        assertEquals(List.of(path), files());
+    }
+
+    @Test
+    void discardsAnIncompleteSnapshot() throws Exception {
+        Path path = dir.resolve("snap.gz");
+        Files.writeString(path, "previous");
+        assertThrows(IllegalStateException.class, () -> {
+            try (var writer = new SnapshotWriter(path, "ctx")) {
+                writer.group(group("m1"));
+                throw new IllegalStateException("failed part way through");
+            }
+        });
+        assertEquals("previous", Files.readString(path));
+        assertEquals(List.of(path), files());
+    }
+
+    @Test
+    void membersAndAssignmentsAreSorted() throws Exception {
+        Path a = dir.resolve("a.gz");
+        Path b = dir.resolve("b.gz");
+        try (var writer = new SnapshotWriter(a, "ctx")) {
+            writer.group(group("m2", "m1", "m3"));
+            writer.complete();
+        }
+        try (var writer = new SnapshotWriter(b, "ctx")) {
+            writer.group(group("m3", "m1", "m2"));
+            writer.complete();
+        }
+        String groupA = lines(a).get(1);
+        assertEquals(groupA, lines(b).get(1));
+        assertTrue(groupA.indexOf("\"m1\"") < groupA.indexOf("\"m2\"") && groupA.indexOf("\"m2\"") < groupA.indexOf("\"m3\""), groupA);
+        assertTrue(groupA.contains("[\"a/2\",\"a/10\",\"b/0\"]"), groupA);
+    }
+}
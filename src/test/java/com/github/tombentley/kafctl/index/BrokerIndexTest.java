@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BrokerIndexTest {
+
+    private static final List<Node> NODES = List.of(
+            new Node(0, "host0", 9092, "a"),
+            new Node(1, "host1", 9092, "b"),
+            new Node(2, "host2", 9092, "a"),
+            new Node(3, "host3", 9092, "b"),
+            new Node(4, "host4", 9092, "a"));
+
+    private static List<Node> nodes(int... ids) {
+        return Arrays.stream(ids).mapToObj(NODES::get).collect(Collectors.toList());
+    }
+
+    private static TopicPartitionInfo partition(int partition, int leader, int[] replicas, int... isr) {
+        return new TopicPartitionInfo(partition, leader < 0 ? null : NODES.get(leader), nodes(replicas), nodes(isr));
+    }
+
+    /** Broker 3 is a replica but isn't live, and broker 4 is live but has no replicas. */
+    private static BrokerIndex index() {
+        PartitionIndex partitions = PartitionIndex.build(List.of(
+                new TopicDescription("t", false, List.of(
+                        partition(0, 0, new int[]{0, 1, 2}, 0, 1, 2),
+                        // Led by a broker other than the preferred leader, which is out of the ISR
+                        partition(1, 1, new int[]{0, 1}, 1),
+                        // No leader, and nothing in the ISR
+                        partition(2, -1, new int[]{2, 3}))),
+                new TopicDescription("u", false, List.of(
+                        partition(0, 2, new int[]{2}, 2)))),
+                NODES);
+        return BrokerIndex.build(partitions, nodes(0, 1, 2, 4));
+    }
+
+    private static String names(BrokerIndex index, int[] rows) {
+        PartitionIndex partitions = index.partitions();
+        return Arrays.stream(rows)
+                .mapToObj(row -> partitions.topicName(row) + "/" + partitions.partition(row))
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    @Test
+    void includesLiveBrokersWithoutReplicasAndReplicasWhichArentLive() {
+        BrokerIndex index = index();
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, index.brokerIds());
+        assertTrue(index.isLive(4));
+        assertFalse(index.isLive(3));
+        assertFalse(index.contains(5));
+        assertThrows(IllegalArgumentException.class, () -> index.leadingCount(5));
+    }
+
+    @Test
+    void countsLeadersFollowersAndLaggingReplicas() {
+        BrokerIndex index = index();
+        int[] ids = index.brokerIds();
+        assertArrayEquals(new int[]{1, 1, 1, 0, 0}, Arrays.stream(ids).map(index::leadingCount).toArray());
+        assertArrayEquals(new int[]{1, 1, 2, 1, 0}, Arrays.stream(ids).map(index::followingCount).toArray());
+        assertArrayEquals(new int[]{1, 0, 1, 1, 0}, Arrays.stream(ids).map(index::laggingCount).toArray());
+        assertArrayEquals(new int[]{2, 2, 3, 1, 0}, Arrays.stream(ids).map(index::replicaCount).toArray());
+        assertArrayEquals(new int[]{2, 0, 2, 0, 0}, Arrays.stream(ids).map(index::preferredLeaderCount).toArray());
+    }
+
+    @Test
+    void listsEachBrokersPartitions() {
+        BrokerIndex index = index();
+        assertEquals("t/0", names(index, index.leading(0)));
+        assertEquals("t/1", names(index, index.following(0)));
+        assertEquals("t/1", names(index, index.lagging(0)));
+        assertEquals("u/0", names(index, index.leading(2)));
+        assertEquals("t/0 t/2", names(index, index.following(2)));
+        assertEquals("", names(index, index.leading(4)));
+    }
+
+    @Test
+    void partitionsWithoutALeaderOnlyHaveFollowers() {
+        BrokerIndex index = index();
+        // t/2 has no leader, so both its replicas count as following it, and neither leads it
+        assertEquals("t/2", names(index, index.following(3)));
+        assertEquals("t/2", names(index, index.lagging(3)));
+        assertEquals("", names(index, index.leading(3)));
+        int leaders = Arrays.stream(index.brokerIds()).map(index::leadingCount).sum();
+        assertEquals(index.partitions().size() - 1, leaders);
+    }
+
+    @Test
+    void leaderSkewComparesLeadingWithPreferredLeading() {
+        BrokerIndex index = index();
+        // Broker 0 is the preferred leader of t/0 and t/1, but only leads t/0
+        assertEquals(-50.0, index.leaderSkew(0));
+        // Broker 1 is the preferred leader of nothing
+        assertEquals(0.0, index.leaderSkew(1));
+        assertEquals(0.0, index.leaderSkew(4));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class IntSortTest {
+
+    /** Sorts the indexes of {@code keys} by key, checking against the (stable) sort of boxed indexes. */
+    private static void assertSortsStably(int[] keys) {
+        int[] indexes = IntStream.range(0, keys.length).toArray();
+        Integer[] expected = IntStream.range(0, keys.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(expected, Comparator.comparingInt(i -> keys[i]));
+        IntSort.sort(indexes, (a, b) -> Integer.compare(keys[a], keys[b]));
+        assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(), indexes,
+                "sorting " + Arrays.toString(keys));
+    }
+
+    @Test
+    void sortsTrivialArrays() {
+        assertSortsStably(new int[0]);
+        assertSortsStably(new int[]{42});
+        assertSortsStably(new int[]{2, 1});
+    }
+
+    @Test
+    void isStableAroundTheInsertionSortThreshold() {
+        var random = new Random(0);
+        for (int length = 14; length <= 70; length++) {
+            // Few distinct keys, so that there are lots of ties
+            assertSortsStably(random.ints(length, 0, 4).toArray());
+        }
+    }
+
+    @Test
+    void isStableForLargeArrays() {
+        var random = new Random(1);
+        for (int distinct : new int[]{1, 3, 100, Integer.MAX_VALUE}) {
+            assertSortsStably(random.ints(10_000, 0, distinct).toArray());
+        }
+    }
+
+    @Test
+    void sortsSortedAndReversedArrays() {
+        assertSortsStably(IntStream.range(0, 1000).toArray());
+        assertSortsStably(IntStream.range(0, 1000).map(i -> 1000 - i).toArray());
+        assertSortsStably(IntStream.range(0, 1000).map(i -> (1000 - i) / 7).toArray());
+    }
+}
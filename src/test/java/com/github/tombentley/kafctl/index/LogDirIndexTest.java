@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.ReplicaInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.KafkaStorageException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LogDirIndexTest {
+
+    private static Map<TopicPartition, ReplicaInfo> replicas(Object... topicPartitionSizeLag) {
+        Map<TopicPartition, ReplicaInfo> result = new LinkedHashMap<>();
+        for (int i = 0; i < topicPartitionSizeLag.length; i += 4) {
+            result.put(new TopicPartition((String) topicPartitionSizeLag[i], (Integer) topicPartitionSizeLag[i + 1]),
+                    new ReplicaInfo((Long) topicPartitionSizeLag[i + 2], (Long) topicPartitionSizeLag[i + 3], false));
+        }
+        return result;
+    }
+
+    private static LogDirIndex index(Set<String> topicFilter) {
+        var index = new LogDirIndex(topicFilter);
+        Map<String, LogDirDescription> broker0 = new LinkedHashMap<>();
+        broker0.put("/d0", new LogDirDescription(null, replicas("foo", 1, 100L, 0L, "bar", 0, 10L, 1L)));
+        broker0.put("/d1", new LogDirDescription(null, replicas("foo", 0, 200L, 2L)));
+        index.add(0, broker0);
+        Map<String, LogDirDescription> broker1 = new LinkedHashMap<>();
+        broker1.put("/d0", new LogDirDescription(null, replicas("foo", 0, 150L, 0L)));
+        broker1.put("/d1", new LogDirDescription(new KafkaStorageException("offline"), Map.of()));
+        index.add(1, broker1);
+        index.addError(2, "timed out");
+        return index;
+    }
+
+    private static String[] topicNames(LogDirIndex index) {
+        return Arrays.stream(index.topics()).mapToObj(index::topicName).toArray(String[]::new);
+    }
+
+    @Test
+    void totalsByDir() {
+        LogDirIndex index = index(null);
+        int[] dirs = index.dirs(List.of(1, 0));
+        assertEquals(4, dirs.length);
+        assertEquals(1, index.dirBroker(dirs[0]));
+        assertEquals("/d0", index.dirPath(dirs[0]));
+        assertEquals(150L, index.dirSize(dirs[0]));
+        assertEquals("offline", index.dirError(dirs[1]));
+        assertEquals(0, index.dirReplicas(dirs[1]));
+        assertEquals(2, index.dirReplicas(dirs[2]));
+        assertEquals(110L, index.dirSize(dirs[2]));
+        assertEquals(1L, index.dirOffsetLag(dirs[2]));
+        assertNull(index.dirError(dirs[2]));
+        assertEquals(Map.of(2, "timed out"), index.brokerErrors());
+    }
+
+    @Test
+    void totalsByTopicAndPartition() {
+        LogDirIndex index = index(null);
+        assertArrayEquals(new String[]{"bar", "foo"}, topicNames(index));
+        int foo = index.topics()[1];
+        assertEquals(2, index.topicPartitions(foo));
+        assertEquals(3, index.topicReplicas(foo));
+        assertEquals(450L, index.topicSize(foo));
+        assertEquals(2L, index.topicOffsetLag(foo));
+
+        int[] partitions = index.partitions();
+        assertEquals(3, partitions.length);
+        assertEquals("bar", index.partitionTopicName(partitions[0]));
+        assertEquals("foo", index.partitionTopicName(partitions[1]));
+        assertEquals(0, index.partition(partitions[1]));
+        assertEquals(1, index.partition(partitions[2]));
+
+        int foo0 = index.partitionRow("foo", 0);
+        assertEquals(partitions[1], foo0);
+        assertEquals(2, index.partitionReplicas(foo0));
+        assertEquals(350L, index.partitionSize(foo0));
+        assertEquals(200L, index.partitionMaxSize(foo0));
+        assertEquals(-1, index.partitionRow("foo", 2));
+        assertEquals(-1, index.partitionRow("baz", 0));
+    }
+
+    @Test
+    void replicaDirs() {
+        LogDirIndex index = index(null);
+        int foo0 = index.partitionRow("foo", 0);
+        assertEquals("/d1", index.dirPath(index.replicaDir(foo0, 0)));
+        assertEquals(1, index.dirBroker(index.replicaDir(foo0, 1)));
+        assertEquals(-1, index.replicaDir(foo0, 2));
+    }
+
+    @Test
+    void topicFilterOnlyAppliesToTopicAndPartitionTotals() {
+        LogDirIndex index = index(Set.of("bar"));
+        assertArrayEquals(new String[]{"bar"}, topicNames(index));
+        assertEquals(1, index.partitions().length);
+        assertEquals(-1, index.partitionRow("foo", 0));
+        int[] dirs = index.dirs(null);
+        assertEquals(110L, index.dirSize(dirs[0]));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongIntMapTest {
+
+    @Test
+    void getsWhatWasPut() {
+        var map = new LongIntMap(4);
+        assertEquals(LongIntMap.MISSING, map.get(0));
+        map.put(0, 7);
+        map.put(-1, 8);
+        map.put(Long.MIN_VALUE, 9);
+        map.put(Long.MAX_VALUE, 0);
+        assertEquals(7, map.get(0));
+        assertEquals(8, map.get(-1));
+        assertEquals(9, map.get(Long.MIN_VALUE));
+        assertEquals(0, map.get(Long.MAX_VALUE));
+        assertEquals(LongIntMap.MISSING, map.get(1));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void putReplacesTheValue() {
+        var map = new LongIntMap(4);
+        map.put(42, 1);
+        map.put(42, 2);
+        assertEquals(2, map.get(42));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntMap(4).put(1, -1));
+    }
+
+    @Test
+    void probesPastCollisions() {
+        // A table of 32 slots which is kept just under half full has long probe sequences.
+        // Keys which differ only in their high or low halves are how the index packs two ints into a key.
+        var map = new LongIntMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 15; i++) {
+            long key = i % 2 == 0 ? (long) i << 32 : i;
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "key " + key));
+        for (int i = 15; i < 100; i++) {
+            assertEquals(LongIntMap.MISSING, map.get((long) i << 32));
+            assertEquals(LongIntMap.MISSING, map.get(i));
+        }
+    }
+
+    @Test
+    void resizesKeepingEveryEntry() {
+        var map = new LongIntMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        var random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(1000) % 3 == 0 ? random.nextLong() : ((long) random.nextInt(500) << 32) | random.nextInt(500);
+            int value = random.nextInt(Integer.MAX_VALUE);
+            map.put(key, value);
+            expected.put(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "key " + key));
+    }
+}
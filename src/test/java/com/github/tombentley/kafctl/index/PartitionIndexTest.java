@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PartitionIndexTest {
+
+    private static final List<Node> NODES = List.of(
+            new Node(0, "host0", 9092, "a"),
+            new Node(1, "host1", 9092, "b"),
+            new Node(2, "host2", 9092, "a"),
+            new Node(3, "host3", 9092));
+
+    private static TopicPartitionInfo partition(int partition, int leader, int[] replicas, int... isr) {
+        return new TopicPartitionInfo(partition, leader < 0 ? null : NODES.get(leader),
+                Arrays.stream(replicas).mapToObj(NODES::get).collect(Collectors.toList()),
+                Arrays.stream(isr).mapToObj(NODES::get).collect(Collectors.toList()));
+    }
+
+    private static PartitionIndex index() {
+        return PartitionIndex.build(List.of(
+                new TopicDescription("zebra", false, List.of(
+                        partition(0, 0, new int[]{0, 1, 2}, 0, 1, 2),
+                        partition(1, 2, new int[]{1, 2, 0}, 2, 0))),
+                new TopicDescription("ant", false, List.of(
+                        partition(1, 3, new int[]{3, 0}, 3, 0),
+                        partition(0, -1, new int[]{1, 3}, 1)))),
+                NODES);
+    }
+
+    private static String names(PartitionIndex index, int[] rows) {
+        StringBuilder sb = new StringBuilder();
+        for (int row : rows) {
+            sb.append(index.topicName(row)).append('/').append(index.partition(row)).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    void indexesTheReplicasAndIsr() {
+        PartitionIndex index = index();
+        assertEquals(4, index.size());
+        int row = index.row("zebra", 1);
+        assertEquals(1, row);
+        assertArrayEquals(new int[]{1, 2, 0}, index.replicas(row));
+        assertArrayEquals(new int[]{2, 0}, index.isr(row));
+        assertEquals(1, index.replica(row, 0));
+        assertEquals("a", index.leaderRack(row));
+        assertEquals(-1, index.row("ant", 2));
+        assertEquals(PartitionIndex.NO_LEADER, index.leader(index.row("ant", 0)));
+        assertNull(index.leaderRack(index.row("ant", 0)));
+    }
+
+    @Test
+    void filters() {
+        PartitionIndex index = index();
+        assertEquals(BitSet.valueOf(new long[]{0b1010}), index.whereUnderReplicated());
+        assertEquals(BitSet.valueOf(new long[]{0b1010}), index.whereNotPreferredLeader());
+        assertEquals(BitSet.valueOf(new long[]{0b1000}), index.whereNoLeader());
+        assertEquals(BitSet.valueOf(new long[]{0b0010}), index.whereLagging(1));
+        assertEquals(BitSet.valueOf(new long[]{0b0110}), index.whereFollower(0));
+        assertEquals(BitSet.valueOf(new long[]{0b1100}), index.whereTopic(Set.of("ant")));
+        assertEquals(BitSet.valueOf(new long[]{0b0011}), index.whereLeaderRack("a"));
+    }
+
+    @Test
+    void sortsByTopicNameThenPartition() {
+        PartitionIndex index = index();
+        int[] rows = index.sort(index.all(), List.of(
+                new PartitionIndex.Sort(PartitionIndex.SortKey.TOPIC, false),
+                new PartitionIndex.Sort(PartitionIndex.SortKey.PARTITION, false)));
+        assertEquals("ant/0 ant/1 zebra/0 zebra/1", names(index, rows));
+        rows = index.sort(index.all(), List.of(
+                new PartitionIndex.Sort(PartitionIndex.SortKey.TOPIC, true),
+                new PartitionIndex.Sort(PartitionIndex.SortKey.PARTITION, false)));
+        assertEquals("zebra/0 zebra/1 ant/0 ant/1", names(index, rows));
+    }
+
+    @Test
+    void sortsTiesByRow() {
+        PartitionIndex index = index();
+        // zebra/1 and ant/1 have the same ISR size, so stay in row order
+        int[] rows = index.sort(index.all(), List.of(new PartitionIndex.Sort(PartitionIndex.SortKey.ISR_SIZE, true)));
+        assertEquals("zebra/0 zebra/1 ant/1 ant/0", names(index, rows));
+        // No leader, or no rack, sorts first
+        rows = index.sort(index.all(), List.of(new PartitionIndex.Sort(PartitionIndex.SortKey.LEADER_RACK, false)));
+        assertEquals("ant/1 ant/0 zebra/0 zebra/1", names(index, rows));
+    }
+}
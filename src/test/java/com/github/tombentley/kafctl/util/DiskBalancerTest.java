@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.index.LogDirIndex;
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.ReplicaInfo;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.TopicPartitionReplica;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskBalancerTest {
+
+    /** A cluster whose partition and log dir indexes agree with each other. */
+    private static class Cluster {
+        final List<Node> brokers = new ArrayList<>();
+        final Map<Integer, Map<String, Map<TopicPartition, ReplicaInfo>>> dirs = new HashMap<>();
+        final Map<String, List<TopicPartitionInfo>> topics = new LinkedHashMap<>();
+        final Map<TopicPartition, Long> sizes = new HashMap<>();
+
+        Cluster broker(int id, String rack, String... dirNames) {
+            brokers.add(new Node(id, "host" + id, 9092, rack));
+            Map<String, Map<TopicPartition, ReplicaInfo>> brokerDirs = new LinkedHashMap<>();
+            for (String dir : dirNames) {
+                brokerDirs.put(dir, new HashMap<>());
+            }
+            dirs.put(id, brokerDirs);
+            return this;
+        }
+
+        Node node(int id) {
+            return brokers.stream().filter(node -> node.id() == id).findFirst().orElseThrow();
+        }
+
+        /** Adds a partition with the given replicas, each in its broker's first log dir. */
+        Cluster partition(String topic, long size, int... replicas) {
+            List<TopicPartitionInfo> partitions = topics.computeIfAbsent(topic, t -> new ArrayList<>());
+            TopicPartition tp = new TopicPartition(topic, partitions.size());
+            List<Node> nodes = new ArrayList<>();
+            for (int replica : replicas) {
+                nodes.add(node(replica));
+                dirs.get(replica).values().iterator().next().put(tp, new ReplicaInfo(size, 0, false));
+            }
+            partitions.add(new TopicPartitionInfo(tp.partition(), nodes.get(0), nodes, nodes));
+            sizes.put(tp, size);
+            return this;
+        }
+
+        DiskBalancer balancer() {
+            PartitionIndex partitions = PartitionIndex.build(topics.entrySet().stream()
+                    .map(e -> new TopicDescription(e.getKey(), false, e.getValue()))
+                    .collect(Collectors.toList()), brokers);
+            LogDirIndex logDirs = new LogDirIndex(null);
+            dirs.forEach((brokerId, brokerDirs) -> {
+                Map<String, LogDirDescription> descriptions = new LinkedHashMap<>();
+                brokerDirs.forEach((path, replicas) -> descriptions.put(path, new LogDirDescription(null, replicas)));
+                logDirs.add(brokerId, descriptions);
+            });
+            return new DiskBalancer(partitions, logDirs, brokers);
+        }
+
+        String rack(int brokerId) {
+            return node(brokerId).rack();
+        }
+    }
+
+    /** Checks that the plan is consistent with the cluster and with the balancer's predicted bytes. */
+    private static void assertConsistent(Cluster cluster, DiskBalancer balancer, ReassignmentPlan plan) {
+        long totalBefore = 0;
+        long totalAfter = 0;
+        Map<Integer, Long> expectedAfter = new HashMap<>();
+        for (int brokerId : balancer.brokerIds()) {
+            totalBefore += balancer.bytesBefore(brokerId);
+            totalAfter += balancer.bytesAfter(brokerId);
+            expectedAfter.put(brokerId, balancer.bytesBefore(brokerId));
+        }
+        assertEquals(totalBefore, totalAfter);
+        plan.target().forEach((tp, target) -> {
+            List<Integer> current = plan.current().get(tp);
+            assertEquals(target.size(), new HashSet<>(target).size(), tp + " has duplicate replicas " + target);
+            Set<String> currentRacks = current.stream().map(cluster::rack).collect(Collectors.toSet());
+            Set<String> targetRacks = target.stream().map(cluster::rack).collect(Collectors.toSet());
+            assertTrue(targetRacks.size() >= currentRacks.size(), tp + " would span fewer racks: " + current + " -> " + target);
+            long size = cluster.sizes.get(tp);
+            current.stream().filter(b -> !target.contains(b)).forEach(b -> expectedAfter.merge(b, -size, Long::sum));
+            target.stream().filter(b -> !current.contains(b)).forEach(b -> expectedAfter.merge(b, size, Long::sum));
+        });
+        for (int brokerId : balancer.brokerIds()) {
+            assertEquals(expectedAfter.get(brokerId), balancer.bytesAfter(brokerId), "bytes after on broker " + brokerId);
+        }
+        assertEquals(plan.addedReplicas(), balancer.moves());
+    }
+
+    private static void assertWithinTolerance(DiskBalancer balancer, double tolerance) {
+        int[] brokerIds = balancer.brokerIds();
+        double mean = 0;
+        for (int brokerId : brokerIds) {
+            mean += balancer.bytesAfter(brokerId);
+        }
+        mean /= brokerIds.length;
+        for (int brokerId : brokerIds) {
+            assertTrue(Math.abs(balancer.bytesAfter(brokerId) - mean) <= tolerance * mean,
+                    "broker " + brokerId + " has " + balancer.bytesAfter(brokerId) + " bytes, but the mean is " + mean);
+        }
+    }
+
+    @Test
+    void movesHalfTheReplicasToAnEmptyBroker() {
+        var cluster = new Cluster().broker(0, null, "/d0").broker(1, null, "/d0");
+        for (int i = 0; i < 10; i++) {
+            cluster.partition("t", 100, 0);
+        }
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.05, Integer.MAX_VALUE);
+        assertConsistent(cluster, balancer, plan);
+        assertEquals(5, balancer.moves());
+        assertEquals(500, balancer.movedBytes());
+        assertEquals(500, balancer.bytesAfter(0));
+        assertEquals(500, balancer.bytesAfter(1));
+        // With a single log dir per broker there's no need to choose one
+        assertTrue(plan.logDirs().isEmpty());
+    }
+
+    @Test
+    void prefersTheReplicaClosestToTheIdealSize() {
+        var cluster = new Cluster().broker(0, null, "/d0").broker(1, null, "/d0")
+                .partition("t", 10, 0)
+                .partition("t", 500, 0)
+                .partition("t", 90, 0)
+                .partition("t", 1000, 0);
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.05, Integer.MAX_VALUE);
+        assertConsistent(cluster, balancer, plan);
+        // The mean is 800, so the 500 is moved, then the 90, then the 10.
+        // Moving the 1000 would only make things worse, so the brokers are left on 1000 and 600
+        assertEquals(Set.of(new TopicPartition("t", 1), new TopicPartition("t", 2), new TopicPartition("t", 0)),
+                plan.target().keySet());
+        assertEquals(1000, balancer.bytesAfter(0));
+        assertEquals(600, balancer.bytesAfter(1));
+    }
+
+    @Test
+    void doesNothingWithinTolerance() {
+        var cluster = new Cluster().broker(0, null, "/d0").broker(1, null, "/d0")
+                .partition("t", 104, 0)
+                .partition("t", 96, 1);
+        DiskBalancer balancer = cluster.balancer();
+        assertTrue(balancer.plan(0.05, Integer.MAX_VALUE).isEmpty());
+        assertEquals(0, balancer.moves());
+
+        balancer = cluster.balancer();
+        // Nothing can be moved without making the imbalance worse
+        assertTrue(balancer.plan(0.01, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void respectsMaxMoves() {
+        var cluster = new Cluster().broker(0, null, "/d0").broker(1, null, "/d0");
+        for (int i = 0; i < 10; i++) {
+            cluster.partition("t", 100, 0);
+        }
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.05, 2);
+        assertConsistent(cluster, balancer, plan);
+        assertEquals(2, balancer.moves());
+        assertEquals(800, balancer.bytesAfter(0));
+    }
+
+    @Test
+    void neverReducesTheRacksAPartitionSpans() {
+        // Brokers 0 and 2 hold a replica of every partition, in racks a and b. Moving a replica from 0 to 3,
+        // or from 2 to 1, would even out the brokers just as well, but would put both replicas in one rack
+        var cluster = new Cluster()
+                .broker(0, "a", "/d0").broker(1, "a", "/d0")
+                .broker(2, "b", "/d0").broker(3, "b", "/d0");
+        for (int i = 0; i < 20; i++) {
+            cluster.partition("t", 100, 0, 2);
+        }
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.05, Integer.MAX_VALUE);
+        assertConsistent(cluster, balancer, plan);
+        assertEquals(20, balancer.moves());
+        plan.target().forEach((tp, target) -> {
+            assertEquals("a", cluster.rack(target.get(0)), tp + " " + target);
+            assertEquals("b", cluster.rack(target.get(1)), tp + " " + target);
+        });
+        for (int brokerId = 0; brokerId < 4; brokerId++) {
+            assertEquals(1000, balancer.bytesAfter(brokerId));
+        }
+    }
+
+    @Test
+    void putsMovedReplicasInTheEmptiestDir() {
+        var cluster = new Cluster().broker(0, null, "/d0").broker(1, null, "/d0", "/d1");
+        for (int i = 0; i < 4; i++) {
+            cluster.partition("t", 100, 0);
+        }
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.05, Integer.MAX_VALUE);
+        assertConsistent(cluster, balancer, plan);
+        assertEquals(2, balancer.moves());
+        // Both dirs start empty, so the two moved replicas go in different dirs
+        assertEquals(Set.of("/d0", "/d1"), Set.copyOf(plan.logDirs().values()));
+        plan.logDirs().keySet().forEach(replica -> assertEquals(1, replica.brokerId()));
+    }
+
+    @Test
+    void convergesForALargeRackAwareCluster() {
+        var cluster = new Cluster();
+        String[] racks = {"a", "b", "c"};
+        for (int b = 0; b < 9; b++) {
+            cluster.broker(b, racks[b % 3], "/d0", "/d1");
+        }
+        var random = new Random(0);
+        for (int p = 0; p < 3000; p++) {
+            // One replica per rack, skewed towards the low numbered brokers in each rack
+            int[] replicas = new int[3];
+            for (int r = 0; r < 3; r++) {
+                replicas[r] = r + 3 * Math.min(2, (int) Math.abs(random.nextGaussian()));
+            }
+            cluster.partition("t" + p % 10, 1 + random.nextInt(1_000_000), replicas);
+        }
+        DiskBalancer balancer = cluster.balancer();
+        ReassignmentPlan plan = balancer.plan(0.02, Integer.MAX_VALUE);
+        assertConsistent(cluster, balancer, plan);
+        assertWithinTolerance(balancer, 0.02);
+        // Each replica moves at most once
+        plan.target().forEach((tp, target) -> {
+            Set<TopicPartitionReplica> moved = new HashSet<>();
+            target.stream().filter(b -> !plan.current().get(tp).contains(b))
+                    .forEach(b -> assertTrue(moved.add(new TopicPartitionReplica(tp.topic(), tp.partition(), b))));
+        });
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.tombentley.kafctl.index.PartitionIndex;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.TopicPartitionReplica;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReassignmentPlanTest {
+
+    // Brokers 0 and 1 are in rack a, 2 and 3 in rack b
+    private static final List<Node> BROKERS = List.of(
+            new Node(0, "host0", 9092, "a"),
+            new Node(1, "host1", 9092, "a"),
+            new Node(2, "host2", 9092, "b"),
+            new Node(3, "host3", 9092, "b"));
+
+    private static List<Node> nodes(int... ids) {
+        return Arrays.stream(ids).mapToObj(BROKERS::get).collect(Collectors.toList());
+    }
+
+    private static TopicPartitionInfo partition(int partition, int[] replicas, int... isr) {
+        return new TopicPartitionInfo(partition, BROKERS.get(replicas[0]), nodes(replicas), nodes(isr));
+    }
+
+    private static PartitionIndex index(TopicDescription... topics) {
+        return PartitionIndex.build(List.of(topics), BROKERS);
+    }
+
+    private static TopicPartition tp(String topic, int partition) {
+        return new TopicPartition(topic, partition);
+    }
+
+    private static ReassignmentPlan read(String json) {
+        return ReassignmentPlan.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void increasingTheReplicationFactorPrefersOtherRacksThenTheLeastLoadedBroker() {
+        PartitionIndex index = index(
+                new TopicDescription("t", false, List.of(partition(0, new int[]{0}, 0))),
+                // Make broker 2 busier than broker 3
+                new TopicDescription("other", false, List.of(partition(0, new int[]{2}, 2), partition(1, new int[]{2}, 2))));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.whereTopic(Set.of("t")), 3, BROKERS);
+        // The existing replica stays first, a new one goes on the idle broker in the other rack,
+        // and then the racks are tied, so the least loaded broker wins
+        assertEquals(Map.of(tp("t", 0), List.of(0, 3, 1)), plan.target());
+        assertEquals(Map.of(tp("t", 0), List.of(0)), plan.current());
+        assertEquals(2, plan.addedReplicas());
+    }
+
+    @Test
+    void increasingSpreadsNewReplicasAcrossPartitions() {
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            partitions.add(partition(p, new int[]{p % 4}, p % 4));
+        }
+        PartitionIndex index = index(new TopicDescription("t", false, partitions));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.all(), 2, BROKERS);
+        int[] counts = new int[BROKERS.size()];
+        plan.target().values().forEach(replicas -> replicas.forEach(broker -> counts[broker]++));
+        assertEquals("[4, 4, 4, 4]", Arrays.toString(counts));
+        plan.target().forEach((tp, replicas) ->
+                assertNotEquals(BROKERS.get(replicas.get(0)).rack(), BROKERS.get(replicas.get(1)).rack(),
+                        tp + " has both replicas in one rack: " + replicas));
+    }
+
+    @Test
+    void changingSeveralTopicsSpreadsNewReplicasAcrossAllOfThem() {
+        PartitionIndex index = index(
+                new TopicDescription("t", false, List.of(partition(0, new int[]{0}, 0), partition(1, new int[]{1}, 1))),
+                new TopicDescription("u", false, List.of(partition(0, new int[]{0}, 0), partition(1, new int[]{1}, 1))),
+                new TopicDescription("v", false, List.of(partition(0, new int[]{0, 2}, 0, 2))));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactors(index, Map.of("t", 2, "u", 2, "v", 1), BROKERS);
+        // The new replicas of t and u go in rack b, and the load from the earlier topics evens them out between its brokers
+        assertEquals(Map.of(
+                tp("t", 0), List.of(0, 3),
+                tp("t", 1), List.of(1, 2),
+                tp("u", 0), List.of(0, 3),
+                tp("u", 1), List.of(1, 2),
+                tp("v", 0), List.of(0)), plan.target());
+        assertEquals(4, plan.addedReplicas());
+        assertThrows(IllegalArgumentException.class,
+                () -> ReassignmentPlan.changeReplicationFactors(index, Map.of("t", 5), BROKERS));
+    }
+
+    @Test
+    void decreasingKeepsThePreferredLeaderAndRemovesReplicasOutOfTheIsrFirst() {
+        // The preferred leader 0 is out of the ISR, but is still kept
+        PartitionIndex index = index(new TopicDescription("t", false, List.of(
+                partition(0, new int[]{0, 2, 3}, 2))));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.all(), 2, BROKERS);
+        assertEquals(Map.of(tp("t", 0), List.of(0, 2)), plan.target());
+        assertEquals(0, plan.addedReplicas());
+    }
+
+    @Test
+    void decreasingRemovesReplicasSharingARackThenOnTheBusiestBroker() {
+        PartitionIndex index = index(
+                // 1 shares rack a with the leader, 2 and 3 share rack b
+                new TopicDescription("t", false, List.of(partition(0, new int[]{0, 1, 2}, 0, 1, 2))),
+                new TopicDescription("u", false, List.of(partition(0, new int[]{1, 2, 3}, 1, 2, 3))),
+                new TopicDescription("other", false, List.of(partition(0, new int[]{3}, 3))));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.whereTopic(Set.of("t", "u")), 2, BROKERS);
+        assertEquals(List.of(0, 2), plan.target().get(tp("t", 0)));
+        // 2 and 3 are both in rack b, but 3 has more replicas
+        assertEquals(List.of(1, 2), plan.target().get(tp("u", 0)));
+    }
+
+    @Test
+    void partitionsAlreadyAtTheReplicationFactorAreOmitted() {
+        PartitionIndex index = index(new TopicDescription("t", false, List.of(
+                partition(0, new int[]{0, 2}, 0, 2),
+                partition(1, new int[]{1}, 1))));
+        ReassignmentPlan plan = ReassignmentPlan.changeReplicationFactor(index, index.all(), 2, BROKERS);
+        assertEquals(List.of(tp("t", 1)), new ArrayList<>(plan.target().keySet()));
+    }
+
+    @Test
+    void rejectsImpossibleReplicationFactors() {
+        PartitionIndex index = index(new TopicDescription("t", false, List.of(partition(0, new int[]{0}, 0))));
+        assertThrows(IllegalArgumentException.class, () -> ReassignmentPlan.changeReplicationFactor(index, index.all(), 0, BROKERS));
+        assertThrows(IllegalArgumentException.class, () -> ReassignmentPlan.changeReplicationFactor(index, index.all(), 5, BROKERS));
+    }
+
+    @Test
+    void jsonRoundTrip() throws Exception {
+        ReassignmentPlan plan = read("{\"version\":1,\"partitions\":["
+                + "{\"topic\":\"t\",\"partition\":1,\"replicas\":[3,1],\"log_dirs\":[\"/d1\",\"any\"]},"
+                + "{\"topic\":\"t\",\"partition\":0,\"replicas\":[2,0],\"unknown\":true}]}");
+        assertEquals(List.of(tp("t", 0), tp("t", 1)), new ArrayList<>(plan.target().keySet()));
+        assertEquals(Map.of(new TopicPartitionReplica("t", 1, 3), "/d1"), plan.logDirs());
+
+        var out = new ByteArrayOutputStream();
+        plan.write(out);
+        ReassignmentPlan reread = read(out.toString(StandardCharsets.UTF_8));
+        assertEquals(plan.target(), reread.target());
+        assertEquals(plan.logDirs(), reread.logDirs());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"any\""));
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"topic\":\"t\",\"partition\":0,\"replicas\":[1,1]}]}"));
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"topic\":\"t\",\"partition\":0,\"replicas\":[]}]}"));
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"topic\":\"t\",\"partition\":0,\"replicas\":[1],\"log_dirs\":[]}]}"));
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"topic\":\"t\",\"partition\":0,\"replicas\":[1]},"
+                + "{\"topic\":\"t\",\"partition\":0,\"replicas\":[2]}]}"));
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"partition\":0,\"replicas\":[1]}]}"));
+        assertThrows(RuntimeException.class, () -> read("not json"));
+    }
+
+    @Test
+    void resolveOmitsUnchangedPartitionsAndTheLogDirsOfExistingReplicas() {
+        PartitionIndex index = index(new TopicDescription("t", false, List.of(
+                partition(0, new int[]{0, 2}, 0, 2),
+                partition(1, new int[]{1, 3}, 1, 3))));
+        ReassignmentPlan plan = read("{\"partitions\":["
+                + "{\"topic\":\"t\",\"partition\":0,\"replicas\":[0,2]},"
+                + "{\"topic\":\"t\",\"partition\":1,\"replicas\":[1,2],\"log_dirs\":[\"/d0\",\"/d1\"]}]}").resolve(index);
+        assertEquals(Map.of(tp("t", 1), List.of(1, 2)), plan.target());
+        assertEquals(Map.of(tp("t", 1), List.of(1, 3)), plan.current());
+        assertEquals(Map.of(new TopicPartitionReplica("t", 1, 2), "/d1"), plan.logDirs());
+        assertEquals(1, plan.addedReplicas());
+
+        assertThrows(RuntimeException.class, () -> read("{\"partitions\":[{\"topic\":\"t\",\"partition\":5,\"replicas\":[0]}]}")
+                .resolve(index));
+    }
+}
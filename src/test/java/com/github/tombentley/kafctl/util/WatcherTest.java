@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tombentley.kafctl.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WatcherTest {
+
+    /** Stops the watcher once it has made the given polls. */
+    private static Watcher.Poll polls(Watcher.Poll... polls) {
+        int[] count = {0};
+        return rows -> {
+            if (count[0] == polls.length) {
+                throw new IllegalStateException("done");
+            }
+            polls[count[0]++].poll(rows);
+        };
+    }
+
+    /** The lines written by the watcher, without their timestamps. */
+    private static List<String> watch(Watcher.Rows baseline, Watcher.Poll poll) throws InterruptedException {
+        StringWriter out = new StringWriter();
+        Watcher watcher = new Watcher(Duration.ofMillis(1), new PrintWriter(out));
+        watcher.baseline(baseline);
+        assertThrows(ExecutionException.class, () -> watcher.watch(poll));
+        return Arrays.stream(out.toString().split("\n"))
+                .filter(line -> !line.isEmpty())
+                .map(line -> line.substring(line.indexOf(' ') + 1))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void reportsAddedChangedAndRemovedRows() throws InterruptedException {
+        Watcher.Rows baseline = new Watcher.Rows();
+        baseline.add("a/0", "leader", "1");
+        baseline.add("a/1", "leader", "2");
+        List<String> lines = watch(baseline, polls(rows -> {
+            rows.add("a/0", "leader", "3");
+            rows.add("b/0", "leader", "1");
+        }));
+        assertEquals(List.of("~ a/0 leader: 1 -> 3", "+ b/0 leader: 1", "- a/1"), lines);
+    }
+
+    @Test
+    void keptRowsAreNotReportedAsRemoved() throws InterruptedException {
+        Watcher.Rows baseline = new Watcher.Rows();
+        baseline.add("a/0", "leader", "1");
+        baseline.add("a/1", "leader", "2");
+        baseline.add("b/0", "leader", "1");
+        List<String> lines = watch(baseline, polls(
+                // a can't be described, and b is deleted
+                rows -> rows.keep(key -> key.startsWith("a/")),
+                // a can be described again
+                rows -> {
+                    rows.add("a/0", "leader", "1");
+                    rows.add("a/1", "leader", "3");
+                }));
+        assertEquals(List.of("- b/0", "~ a/1 leader: 2 -> 3"), lines);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.admin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.GroupIdNotFoundException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+
+/**
+ * A {@link MockAdminClient} with consumer groups, log dir sizes and injectable latency, for running kafctl commands
+ * in-process against synthetic clusters, from the tests and the benchmarks.
+ * It's in this package so that it can construct the Admin result classes, as MockAdminClient does.
+ *
+ * <p>Each request's results are completed after a latency of {@code base} plus a uniformly random
+ * {@code jitter}, on a scheduler thread, so callers which pipeline requests see the benefit, as they would
+ * with a real cluster. Requests which kafctl doesn't make complete without latency.</p>
+ */
+public class SyntheticAdminClient extends MockAdminClient {
+
+    /** The log dir of each broker. */
+    public static final String LOG_DIR = "/var/lib/kafka";
+
+    private final Duration base;
+    private final Duration jitter;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, ConsumerGroupDescription> groups = new ConcurrentHashMap<>();
+    private final Map<String, Map<TopicPartition, OffsetAndMetadata>> committedOffsets = new ConcurrentHashMap<>();
+    private volatile ToLongFunction<TopicPartition> replicaSizes = tp -> 0L;
+
+    public SyntheticAdminClient(List<Node> brokers, Duration base, Duration jitter) {
+        super(brokers, brokers.get(0));
+        this.base = base;
+        this.jitter = jitter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-admin-latency");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Adds a consumer group, with the given committed offsets. */
+    public void addGroup(ConsumerGroupDescription group, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        groups.put(group.groupId(), group);
+        committedOffsets.put(group.groupId(), offsets);
+    }
+
+    /** Sets the size in bytes of each of a partition's replicas, which is reported by {@code describeLogDirs}. */
+    public void replicaSizes(ToLongFunction<TopicPartition> replicaSizes) {
+        this.replicaSizes = replicaSizes;
+    }
+
+    private long latencyMs() {
+        long jitterMs = jitter.toMillis();
+        return base.toMillis() + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+    }
+
+    /** A future which completes like {@code future}, but {@code delayMs} later. */
+    private <T> KafkaFuture<T> delayed(KafkaFuture<T> future, long delayMs) {
+        if (delayMs <= 0) {
+            return future;
+        }
+        KafkaFutureImpl<T> result = new KafkaFutureImpl<>();
+        future.whenComplete((value, error) -> scheduler.schedule(() -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    private <K, T> Map<K, KafkaFuture<T>> delayed(Map<K, KafkaFuture<T>> futures, long delayMs) {
+        Map<K, KafkaFuture<T>> result = new HashMap<>(futures.size());
+        futures.forEach((key, future) -> result.put(key, delayed(future, delayMs)));
+        return result;
+    }
+
+    private static <T> KafkaFuture<T> completed(T value) {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.complete(value);
+        return future;
+    }
+
+    @Override
+    public synchronized DescribeClusterResult describeCluster(DescribeClusterOptions options) {
+        DescribeClusterResult result = super.describeCluster(options);
+        long delayMs = latencyMs();
+        return new DescribeClusterResult(delayed(result.nodes(), delayMs), delayed(result.controller(), delayMs),
+                delayed(result.clusterId(), delayMs), delayed(result.authorizedOperations(), delayMs));
+    }
+
+    @Override
+    public synchronized ListTopicsResult listTopics(ListTopicsOptions options) {
+        return new ListTopicsResult(delayed(super.listTopics(options).namesToListings(), latencyMs()));
+    }
+
+    @Override
+    public synchronized DescribeTopicsResult describeTopics(Collection<String> topicNames, DescribeTopicsOptions options) {
+        return new DescribeTopicsResult(delayed(super.describeTopics(topicNames, options).values(), latencyMs()));
+    }
+
+    @Override
+    public synchronized DescribeConfigsResult describeConfigs(Collection<ConfigResource> resources, DescribeConfigsOptions options) {
+        return new DescribeConfigsResult(delayed(super.describeConfigs(resources, options).values(), latencyMs()));
+    }
+
+    @Override
+    public synchronized AlterConfigsResult incrementalAlterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> configs,
+                                                                   AlterConfigsOptions options) {
+        return new AlterConfigsResult(delayed(super.incrementalAlterConfigs(configs, options).values(), latencyMs()));
+    }
+
+    @Override
+    public synchronized ListOffsetsResult listOffsets(Map<TopicPartition, OffsetSpec> topicPartitionOffsets,
+                                                      ListOffsetsOptions options) {
+        ListOffsetsResult result = super.listOffsets(topicPartitionOffsets, options);
+        Map<TopicPartition, KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo>> futures = new HashMap<>();
+        topicPartitionOffsets.keySet().forEach(tp -> futures.put(tp, result.partitionResult(tp)));
+        return new ListOffsetsResult(delayed(futures, latencyMs()));
+    }
+
+    @Override
+    public synchronized DeleteRecordsResult deleteRecords(Map<TopicPartition, RecordsToDelete> recordsToDelete,
+                                                          DeleteRecordsOptions options) {
+        return new DeleteRecordsResult(delayed(super.deleteRecords(recordsToDelete, options).lowWatermarks(), latencyMs()));
+    }
+
+    @Override
+    public synchronized AlterPartitionReassignmentsResult alterPartitionReassignments(
+            Map<TopicPartition, Optional<NewPartitionReassignment>> reassignments,
+            AlterPartitionReassignmentsOptions options) {
+        return new AlterPartitionReassignmentsResult(delayed(
+                super.alterPartitionReassignments(reassignments, options).values(), latencyMs()));
+    }
+
+    @Override
+    public synchronized ListPartitionReassignmentsResult listPartitionReassignments(Optional<Set<TopicPartition>> partitions,
+                                                                                    ListPartitionReassignmentsOptions options) {
+        return new ListPartitionReassignmentsResult(delayed(
+                super.listPartitionReassignments(partitions, options).reassignments(), latencyMs()));
+    }
+
+    /** Describes a single log dir on each broker, holding the replicas of every topic on the broker. */
+    @Override
+    public synchronized DescribeLogDirsResult describeLogDirs(Collection<Integer> brokers, DescribeLogDirsOptions options) {
+        Map<Integer, Map<TopicPartition, ReplicaInfo>> replicas = new HashMap<>();
+        brokers.forEach(brokerId -> replicas.put(brokerId, new HashMap<>()));
+        Collection<TopicDescription> topics;
+        try {
+            topics = super.describeTopics(super.listTopics(new ListTopicsOptions().listInternal(true)).names().get())
+                    .all().get().values();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        for (TopicDescription td : topics) {
+            for (TopicPartitionInfo p : td.partitions()) {
+                TopicPartition tp = new TopicPartition(td.name(), p.partition());
+                for (Node replica : p.replicas()) {
+                    Map<TopicPartition, ReplicaInfo> onBroker = replicas.get(replica.id());
+                    if (onBroker != null) {
+                        onBroker.put(tp, new ReplicaInfo(replicaSizes.applyAsLong(tp), 0, false));
+                    }
+                }
+            }
+        }
+        Map<Integer, KafkaFuture<Map<String, LogDirDescription>>> futures = new HashMap<>(brokers.size());
+        replicas.forEach((brokerId, onBroker) -> futures.put(brokerId,
+                completed(Map.of(LOG_DIR, new LogDirDescription(null, onBroker)))));
+        return new DescribeLogDirsResult(delayed(futures, latencyMs()));
+    }
+
+    @Override
+    public synchronized ListConsumerGroupsResult listConsumerGroups(ListConsumerGroupsOptions options) {
+        List<Object> listings = new ArrayList<>(groups.size());
+        groups.values().forEach(group -> listings.add(
+                new ConsumerGroupListing(group.groupId(), group.isSimpleConsumerGroup(), Optional.of(group.state()))));
+        KafkaFutureImpl<Collection<Object>> future = new KafkaFutureImpl<>();
+        scheduler.schedule(() -> future.complete(listings), latencyMs(), TimeUnit.MILLISECONDS);
+        return new ListConsumerGroupsResult(future);
+    }
+
+    @Override
+    public synchronized DescribeConsumerGroupsResult describeConsumerGroups(Collection<String> groupIds,
+                                                                            DescribeConsumerGroupsOptions options) {
+        Map<String, KafkaFuture<ConsumerGroupDescription>> futures = new HashMap<>(groupIds.size());
+        for (String groupId : groupIds) {
+            ConsumerGroupDescription group = groups.get(groupId);
+            KafkaFutureImpl<ConsumerGroupDescription> future = new KafkaFutureImpl<>();
+            if (group == null) {
+                future.completeExceptionally(new GroupIdNotFoundException("Group " + groupId + " not found."));
+            } else {
+                future.complete(group);
+            }
+            futures.put(groupId, future);
+        }
+        return new DescribeConsumerGroupsResult(delayed(futures, latencyMs()));
+    }
+
+    @Override
+    public synchronized ListConsumerGroupOffsetsResult listConsumerGroupOffsets(String groupId,
+                                                                                ListConsumerGroupOffsetsOptions options) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = committedOffsets.getOrDefault(groupId, Map.of());
+        Map<TopicPartition, OffsetAndMetadata> selected = offsets;
+        if (options.topicPartitions() != null) {
+            selected = new HashMap<>();
+            for (TopicPartition tp : options.topicPartitions()) {
+                if (offsets.containsKey(tp)) {
+                    selected.put(tp, offsets.get(tp));
+                }
+            }
+        }
+        return new ListConsumerGroupOffsetsResult(delayed(completed(selected), latencyMs()));
+    }
+
+    @Override
+    public synchronized void close(Duration timeout) {
+        scheduler.shutdownNow();
+        super.close(timeout);
+    }
+}